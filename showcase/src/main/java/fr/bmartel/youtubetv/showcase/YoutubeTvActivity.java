@@ -39,6 +39,7 @@ package fr.bmartel.youtubetv.showcase;
 import android.app.Activity;
 import android.os.Bundle;
 import com.crashlytics.android.Crashlytics;
+import fr.bmartel.youtubetv.YoutubeTv;
 import io.fabric.sdk.android.Fabric;
 
 /**
@@ -54,6 +55,9 @@ public class YoutubeTvActivity extends Activity {
             Fabric.with(this, new Crashlytics());
         }
 
+        // load WebView while the sample list is displayed
+        YoutubeTv.initialize(getApplicationContext());
+
         setContentView(R.layout.activity_grid_example);
     }
 }
@@ -118,6 +118,7 @@ public class YoutubeActivityApiShowcase extends Activity {
     @Override
     protected void onResume() {
         super.onResume();
+        mYoutubeView1.onResume();
     }
 
     @Override
@@ -130,7 +131,7 @@ public class YoutubeActivityApiShowcase extends Activity {
     @Override
     protected void onPause() {
         super.onPause();
-
+        mYoutubeView1.onPause();
     }
 
 }
@@ -26,8 +26,14 @@ package fr.bmartel.youtubetv.showcase.samples;
 
 import android.app.Activity;
 import android.os.Bundle;
+import android.widget.TextView;
+
+import java.util.Map;
 
 import fr.bmartel.youtubetv.YoutubeTvView;
+import fr.bmartel.youtubetv.listener.IStartupListener;
+import fr.bmartel.youtubetv.metrics.StartupStatistics;
+import fr.bmartel.youtubetv.metrics.StartupTimeline;
 import fr.bmartel.youtubetv.showcase.R;
 
 /**
@@ -37,16 +43,45 @@ public class YoutubeTvViewDebug extends Activity {
 
     private YoutubeTvView mYoutubeView;
 
+    private TextView mTimelineView;
+
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_view_debug);
 
         mYoutubeView = (YoutubeTvView) findViewById(R.id.youtube_video);
+        mTimelineView = (TextView) findViewById(R.id.startup_timeline);
+
+        mYoutubeView.addStartupListener(new IStartupListener() {
+            @Override
+            public void onMilestone(StartupTimeline timeline, String milestone, long time) {
+                showTimeline(timeline);
+            }
+        });
+    }
+
+    /**
+     * Display milestones of the current session with median & 90th percentile of all sessions.
+     *
+     * @param timeline current session timeline
+     */
+    private void showTimeline(final StartupTimeline timeline) {
+        StartupStatistics statistics = StartupStatistics.getInstance();
+        StringBuilder text = new StringBuilder("session " + timeline.getSessionId());
+        for (Map.Entry<String, Long> milestone : timeline.getMilestones().entrySet()) {
+            text.append(String.format("\n%-20s %6dms  p50 %6dms  p90 %6dms",
+                    milestone.getKey(),
+                    milestone.getValue(),
+                    statistics.getPercentile(milestone.getKey(), 50),
+                    statistics.getPercentile(milestone.getKey(), 90)));
+        }
+        mTimelineView.setText(text);
     }
 
     @Override
     protected void onResume() {
         super.onResume();
+        mYoutubeView.onResume();
     }
 
     @Override
@@ -59,6 +94,6 @@ public class YoutubeTvViewDebug extends Activity {
     @Override
     protected void onPause() {
         super.onPause();
-
+        mYoutubeView.onPause();
     }
 }
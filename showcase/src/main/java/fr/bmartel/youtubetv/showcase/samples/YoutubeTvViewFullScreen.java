@@ -46,6 +46,7 @@ public class YoutubeTvViewFullScreen extends Activity {
     @Override
     protected void onResume() {
         super.onResume();
+        mYoutubeView.onResume();
     }
 
     @Override
@@ -58,6 +59,6 @@ public class YoutubeTvViewFullScreen extends Activity {
     @Override
     protected void onPause() {
         super.onPause();
-
+        mYoutubeView.onPause();
     }
 }
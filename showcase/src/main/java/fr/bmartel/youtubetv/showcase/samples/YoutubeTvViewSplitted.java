@@ -27,6 +27,7 @@ import android.app.Activity;
 import android.os.Bundle;
 
 import fr.bmartel.youtubetv.YoutubeTvView;
+import fr.bmartel.youtubetv.YoutubeTvViewCoordinator;
 import fr.bmartel.youtubetv.showcase.R;
 
 /**
@@ -37,17 +38,26 @@ public class YoutubeTvViewSplitted extends Activity {
     private YoutubeTvView mYoutubeView1;
     private YoutubeTvView mYoutubeView2;
 
+    private YoutubeTvViewCoordinator mCoordinator;
+
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splitted);
 
         mYoutubeView1 = (YoutubeTvView) findViewById(R.id.youtube_video1);
         mYoutubeView2 = (YoutubeTvView) findViewById(R.id.youtube_video2);
+
+        // focused player is heard & plays at full quality, the other one is muted & steps down its quality
+        mCoordinator = new YoutubeTvViewCoordinator(this);
+        mCoordinator.add(mYoutubeView1);
+        mCoordinator.add(mYoutubeView2);
     }
 
     @Override
     protected void onResume() {
         super.onResume();
+        mYoutubeView1.onResume();
+        mYoutubeView2.onResume();
     }
 
     @Override
@@ -55,12 +65,14 @@ public class YoutubeTvViewSplitted extends Activity {
         super.onBackPressed();
         mYoutubeView1.closePlayer();
         mYoutubeView2.closePlayer();
+        mCoordinator.release();
         finish();
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-
+        mYoutubeView1.onPause();
+        mYoutubeView2.onPause();
     }
 }
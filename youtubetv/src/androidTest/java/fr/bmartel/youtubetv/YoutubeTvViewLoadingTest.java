@@ -0,0 +1,242 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.bmartel.youtubetv.config.PlayerConfig;
+import fr.bmartel.youtubetv.listener.IPlayerListener;
+import fr.bmartel.youtubetv.listener.IStartupListener;
+import fr.bmartel.youtubetv.metrics.StartupTimeline;
+import fr.bmartel.youtubetv.model.VideoInfo;
+import fr.bmartel.youtubetv.model.VideoState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Loading path of the player page : a stub iframe API is served from a local server through the iframe API url
+ * override, the page must reach onPlayerReady & report its bootstrap milestones.
+ *
+ * @author Bertrand Martel
+ */
+@RunWith(AndroidJUnit4.class)
+public class YoutubeTvViewLoadingTest {
+
+    private final static String VIDEO_ID = "stubVideoId";
+
+    private final static String VIDEO_TITLE = "stub title";
+
+    private final static int TIMEOUT_SECONDS = 20;
+
+    /**
+     * Minimal YT namespace : creates a player that becomes ready asynchronously like the real one.
+     */
+    private final static String IFRAME_API_STUB = "" +
+            "(function() {\n" +
+            "  function noop() {}\n" +
+            "  function Player(id, options) {\n" +
+            "    var self = this;\n" +
+            "    var videoId = options.videoId;\n" +
+            "    self.getVideoData = function() {\n" +
+            "      return {title: '" + VIDEO_TITLE + "', author: 'stub author', video_id: videoId};\n" +
+            "    };\n" +
+            "    self.getAvailableQualityLevels = function() { return ['hd720', 'medium']; };\n" +
+            "    self.getPlaylist = function() { return null; };\n" +
+            "    self.getPlaylistIndex = function() { return -1; };\n" +
+            "    self.getPlayerState = function() { return -1; };\n" +
+            "    self.getCurrentTime = function() { return 0; };\n" +
+            "    self.getDuration = function() { return 0; };\n" +
+            "    self.getVolume = function() { return 100; };\n" +
+            "    self.isMuted = function() { return false; };\n" +
+            "    self.getPlaybackRate = function() { return 1; };\n" +
+            "    self.getAvailablePlaybackRates = function() { return [1]; };\n" +
+            "    self.getPlaybackQuality = function() { return 'hd720'; };\n" +
+            "    self.getVideoLoadedFraction = function() { return 0; };\n" +
+            "    self.getVideoUrl = function() { return ''; };\n" +
+            "    self.getVideoEmbedCode = function() { return ''; };\n" +
+            "    ['playVideo', 'pauseVideo', 'stopVideo', 'seekTo', 'nextVideo', 'previousVideo', 'playVideoAt',\n" +
+            "      'loadVideoById', 'cueVideoById', 'loadPlaylist', 'cuePlaylist', 'mute', 'unMute', 'setVolume',\n" +
+            "      'setSize', 'setPlaybackRate', 'setPlaybackQuality', 'setLoop', 'setShuffle', 'loadModule',\n" +
+            "      'unloadModule'].forEach(function(name) { self[name] = noop; });\n" +
+            "    setTimeout(function() { options.events.onReady({target: self}); }, 0);\n" +
+            "  }\n" +
+            "  window.YT = {Player: Player, PlayerState: {UNSTARTED: -1, ENDED: 0, PLAYING: 1, PAUSED: 2,\n" +
+            "    BUFFERING: 3, CUED: 5}};\n" +
+            "  window.onYouTubeIframeAPIReady();\n" +
+            "})();\n";
+
+    private ServerSocket mServerSocket;
+
+    private Thread mServerThread;
+
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    private YoutubeTvView mView;
+
+    @Before
+    public void setUp() throws IOException {
+        mServerSocket = new ServerSocket(0, 0, InetAddress.getByName("127.0.0.1"));
+        mServerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!mServerSocket.isClosed()) {
+                    try {
+                        serve(mServerSocket.accept());
+                    } catch (IOException e) {
+                        // server closed
+                    }
+                }
+            }
+        });
+        mServerThread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                if (mView != null) {
+                    mView.closePlayer();
+                }
+            }
+        });
+        mServerSocket.close();
+        mServerThread.join();
+    }
+
+    @Test
+    public void pageReachesPlayerReadyWithStubIframeApi() throws InterruptedException {
+
+        final String iframeApiUrl = "http://127.0.0.1:" + mServerSocket.getLocalPort() + "/iframe_api";
+        final CountDownLatch readyLatch = new CountDownLatch(1);
+        final VideoInfo[] readyInfo = new VideoInfo[1];
+        final CountDownLatch milestoneLatch = new CountDownLatch(1);
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                PlayerConfig config = new PlayerConfig.Builder()
+                        .setVideoId(VIDEO_ID)
+                        .setAutoplay(false)
+                        .setIframeApiUrl(iframeApiUrl)
+                        .build();
+
+                mView = new YoutubeTvView(InstrumentationRegistry.getTargetContext(), config);
+
+                mView.addPlayerListener(new IPlayerListener() {
+                    @Override
+                    public void onPlayerReady(VideoInfo videoInfo) {
+                        readyInfo[0] = videoInfo;
+                        readyLatch.countDown();
+                    }
+
+                    @Override
+                    public void onPlayerStateChange(VideoState state, long position, float speed, float duration,
+                                                    VideoInfo videoInfo) {
+                    }
+                });
+                mView.addStartupListener(new IStartupListener() {
+                    @Override
+                    public void onMilestone(StartupTimeline timeline, String milestone, long time) {
+                        if (StartupTimeline.PLAYER_READY.equals(milestone)) {
+                            milestoneLatch.countDown();
+                        }
+                    }
+                });
+            }
+        });
+
+        assertTrue("onPlayerReady not received", readyLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue("playerReady milestone not received", milestoneLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(1, mRequestCount.get());
+        assertEquals(VIDEO_ID, readyInfo[0].getVideoId());
+        assertEquals(VIDEO_TITLE, readyInfo[0].getTitle());
+
+        Map<String, Long> milestones = mView.getStartupTimeline().getMilestones();
+
+        assertTrue(milestones.containsKey(StartupTimeline.PAGE_LOADED));
+        assertTrue(milestones.containsKey(StartupTimeline.PLAYER_READY));
+        assertTrue(milestones.containsKey(StartupTimeline.JS_PREFIX + "domContentLoaded"));
+        assertTrue(milestones.containsKey(StartupTimeline.JS_PREFIX + "iframeApiReady"));
+        assertTrue(milestones.containsKey(StartupTimeline.JS_PREFIX + "playerReady"));
+
+        // iframe API is ready before the player is created
+        assertTrue(milestones.get(StartupTimeline.JS_PREFIX + "iframeApiReady") <=
+                milestones.get(StartupTimeline.JS_PREFIX + "playerReady"));
+    }
+
+    /**
+     * Answer a request with the iframe API stub.
+     *
+     * @param socket client socket
+     */
+    private void serve(final Socket socket) throws IOException {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            String requestLine = reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                // skip headers
+            }
+            OutputStream output = socket.getOutputStream();
+            if (requestLine != null && requestLine.startsWith("GET /iframe_api")) {
+                mRequestCount.incrementAndGet();
+                byte[] body = IFRAME_API_STUB.getBytes(Charset.forName("UTF-8"));
+                output.write(("HTTP/1.1 200 OK\r\n" +
+                        "Content-Type: application/javascript\r\n" +
+                        "Content-Length: " + body.length + "\r\n" +
+                        "Connection: close\r\n\r\n").getBytes(Charset.forName("UTF-8")));
+                output.write(body);
+            } else {
+                output.write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+                        .getBytes(Charset.forName("UTF-8")));
+            }
+            output.flush();
+        } finally {
+            socket.close();
+        }
+    }
+}
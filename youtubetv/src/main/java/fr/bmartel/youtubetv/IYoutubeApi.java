@@ -24,10 +24,13 @@
 package fr.bmartel.youtubetv;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 import fr.bmartel.youtubetv.listener.IBufferStateListener;
 import fr.bmartel.youtubetv.listener.IPlayerListener;
 import fr.bmartel.youtubetv.listener.IProgressUpdateListener;
+import fr.bmartel.youtubetv.listener.IQueryListener;
+import fr.bmartel.youtubetv.model.PlayerStateSnapshot;
 import fr.bmartel.youtubetv.model.VideoInfo;
 import fr.bmartel.youtubetv.model.VideoQuality;
 import fr.bmartel.youtubetv.model.VideoState;
@@ -109,6 +112,14 @@ public interface IYoutubeApi {
      */
     boolean isMuted() throws InterruptedException;
 
+    /**
+     * Check if player is muted (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with true if the player is muted, false if not
+     */
+    Future<Boolean> isMuted(IQueryListener<Boolean> listener);
+
     /**
      * Set volume
      *
@@ -123,6 +134,14 @@ public interface IYoutubeApi {
      */
     int getVolume() throws InterruptedException;
 
+    /**
+     * Returns the player's current volume, an integer between 0 and 100 (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with volume between 0 and 100
+     */
+    Future<Integer> getVolume(IQueryListener<Integer> listener);
+
     /**
      * Sets the size in pixels of the <iframe> that contains the player.
      *
@@ -138,6 +157,14 @@ public interface IYoutubeApi {
      */
     int getPlaybackRate() throws InterruptedException;
 
+    /**
+     * Retrieves the playback rate of the currently playing video (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with playback rate
+     */
+    Future<Integer> getPlaybackRate(IQueryListener<Integer> listener);
+
     /**
      * Set the playback rate.
      *
@@ -152,6 +179,14 @@ public interface IYoutubeApi {
      */
     List<Integer> getAvailablePlaybackRates() throws InterruptedException;
 
+    /**
+     * List of playback rates in which the current video is available (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the set of playback rates in which the current video is available. The default value is 1, which indicates that the video is playing in normal speed
+     */
+    Future<List<Integer>> getAvailablePlaybackRates(IQueryListener<List<Integer>> listener);
+
     /**
      * Loop the playlist or not.
      *
@@ -173,6 +208,14 @@ public interface IYoutubeApi {
      */
     float getVideoLoadedFraction();
 
+    /**
+     * Get video loaded fraction (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with a number between 0 and 1 that specifies the percentage of the video that the player shows as buffered
+     */
+    Future<Float> getVideoLoadedFraction(IQueryListener<Float> listener);
+
     /**
      * Get current player state.
      *
@@ -180,6 +223,14 @@ public interface IYoutubeApi {
      */
     VideoState getPlayerState();
 
+    /**
+     * Get current player state (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with state of the player
+     */
+    Future<VideoState> getPlayerState(IQueryListener<VideoState> listener);
+
     /**
      * Get time since video is playing.
      *
@@ -187,6 +238,14 @@ public interface IYoutubeApi {
      */
     float getCurrentPosition();
 
+    /**
+     * Get time since video is playing (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with elapsed time in seconds since the video started playing
+     */
+    Future<Float> getCurrentPosition(IQueryListener<Float> listener);
+
     /**
      * Set the suggested video quality for the current video.
      *
@@ -201,6 +260,14 @@ public interface IYoutubeApi {
      */
     VideoQuality getPlaybackQuality();
 
+    /**
+     * Get current video quality (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the actual video quality of the current video
+     */
+    Future<VideoQuality> getPlaybackQuality(IQueryListener<VideoQuality> listener);
+
     /**
      * Get all available quality levels.
      *
@@ -208,6 +275,14 @@ public interface IYoutubeApi {
      */
     List<VideoQuality> getAvailableQualityLevels();
 
+    /**
+     * Get all available quality levels (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the set of quality formats in which the current video is available
+     */
+    Future<List<VideoQuality>> getAvailableQualityLevels(IQueryListener<List<VideoQuality>> listener);
+
     /**
      * Get duration.
      *
@@ -215,6 +290,14 @@ public interface IYoutubeApi {
      */
     float getDuration();
 
+    /**
+     * Get duration (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the duration in seconds of the currently playing video
+     */
+    Future<Float> getDuration(IQueryListener<Float> listener);
+
     /**
      * Get video URL.
      *
@@ -222,6 +305,14 @@ public interface IYoutubeApi {
      */
     String getVideoUrl();
 
+    /**
+     * Get video URL (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the YouTube.com URL for the currently loaded/playing video
+     */
+    Future<String> getVideoUrl(IQueryListener<String> listener);
+
     /**
      * Get video embed code.
      *
@@ -229,6 +320,14 @@ public interface IYoutubeApi {
      */
     String getVideoEmbedCode();
 
+    /**
+     * Get video embed code (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the embed code for the currently loaded/playing video
+     */
+    Future<String> getVideoEmbedCode(IQueryListener<String> listener);
+
     /**
      * Get playlist.
      *
@@ -236,6 +335,14 @@ public interface IYoutubeApi {
      */
     List<String> getPlaylist();
 
+    /**
+     * Get playlist (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with an array of the video IDs in the playlist as they are currently ordered
+     */
+    Future<List<String>> getPlaylist(IQueryListener<List<String>> listener);
+
     /**
      * Get playlist index.
      *
@@ -243,6 +350,14 @@ public interface IYoutubeApi {
      */
     int getPlaylistIndex();
 
+    /**
+     * Get playlist index (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the index of the playlist video that is currently playing
+     */
+    Future<Integer> getPlaylistIndex(IQueryListener<Integer> listener);
+
     /**
      * Get Youtube current video ID.
      *
@@ -250,6 +365,14 @@ public interface IYoutubeApi {
      */
     String getVideoId();
 
+    /**
+     * Get Youtube current video ID (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the result
+     */
+    Future<String> getVideoId(IQueryListener<String> listener);
+
     /**
      * Get Youtube current video title.
      *
@@ -257,6 +380,14 @@ public interface IYoutubeApi {
      */
     String getVideoTitle();
 
+    /**
+     * Get Youtube current video title (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the result
+     */
+    Future<String> getVideoTitle(IQueryListener<String> listener);
+
     /**
      * Move forward to current video time + seconds.
      *
@@ -306,6 +437,21 @@ public interface IYoutubeApi {
      */
     void setOnProgressUpdateListener(IProgressUpdateListener listener);
 
+    /**
+     * Set interval between two progress updates sent by Javascript.
+     *
+     * @param interval interval in milliseconds
+     */
+    void setProgressInterval(int interval);
+
+    /**
+     * Enable/disable progress updates (eg when no progress is displayed). Progress updates are also paused while
+     * the view is not visible.
+     *
+     * @param enabled true to receive progress updates
+     */
+    void setProgressEnabled(boolean enabled);
+
     /**
      * Get videoInfo.
      *
@@ -314,12 +460,62 @@ public interface IYoutubeApi {
     VideoInfo getVideoInfo();
 
     /**
-     * load a new video (reload the page to play a new video).
+     * Get videoInfo (asynchronous).
+     *
+     * @param listener called on main thread with the result (may be null)
+     * @return future completed with the result
+     */
+    Future<VideoInfo> getVideoInfo(IQueryListener<VideoInfo> listener);
+
+    /**
+     * Get the last player state snapshot pushed from Javascript. This doesn't wait for any Javascript response.
+     *
+     * @return last state snapshot or null if state snapshot mode is disabled or no snapshot has been received yet
+     */
+    PlayerStateSnapshot getStateSnapshot();
+
+    /**
+     * Play a new video in the existing player (cued only if autoplay is disabled). The page is reloaded only if
+     * configuration has changed in a way that requires it.
      *
      * @param videoId
      */
     void playVideo(String videoId);
 
+    /**
+     * Loads and plays the specified video in the existing player.
+     *
+     * @param videoId      video id
+     * @param startSeconds time from which the video should start playing
+     */
+    void loadVideoById(String videoId, int startSeconds);
+
+    /**
+     * Loads the specified video's thumbnail and prepares the player to play the video, without playing it.
+     *
+     * @param videoId      video id
+     * @param startSeconds time from which the video should start playing
+     */
+    void cueVideoById(String videoId, int startSeconds);
+
+    /**
+     * Loads the specified playlist and plays it.
+     *
+     * @param playlistId   playlist id
+     * @param index        index of the first video to play
+     * @param startSeconds time from which the first video should start playing
+     */
+    void loadPlaylist(String playlistId, int index, int startSeconds);
+
+    /**
+     * Queues the specified playlist, the first video is not played.
+     *
+     * @param playlistId   playlist id
+     * @param index        index of the first video to play
+     * @param startSeconds time from which the first video should start playing
+     */
+    void cuePlaylist(String playlistId, int index, int startSeconds);
+
     /**
      * Stop loading webview, stop video & Release MediaSession.
      */
@@ -24,31 +24,33 @@
 
 package fr.bmartel.youtubetv;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.media.MediaMetadata;
-import android.media.session.MediaSession;
 import android.media.session.PlaybackState;
-import android.os.AsyncTask;
-import android.os.ConditionVariable;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.View;
 import android.webkit.WebView;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
 
 import java.io.IOException;
-import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
-import fr.bmartel.youtubetv.listener.IBufferStateListener;
-import fr.bmartel.youtubetv.listener.IPlayerListener;
-import fr.bmartel.youtubetv.listener.IProgressUpdateListener;
+import fr.bmartel.youtubetv.media.MediaSessionUpdater;
+import fr.bmartel.youtubetv.metrics.StartupStatistics;
+import fr.bmartel.youtubetv.metrics.StartupTimeline;
+import fr.bmartel.youtubetv.model.PlayerStateSnapshot;
 import fr.bmartel.youtubetv.model.VideoInfo;
 import fr.bmartel.youtubetv.model.VideoQuality;
 import fr.bmartel.youtubetv.model.VideoState;
+import fr.bmartel.youtubetv.request.PendingRequestTable;
+import fr.bmartel.youtubetv.utils.EventDispatcher;
+import fr.bmartel.youtubetv.utils.ProgressInterpolator;
+import fr.bmartel.youtubetv.utils.TaskExecutor;
 import fr.bmartel.youtubetv.utils.WebviewUtils;
 
 /**
@@ -85,12 +87,6 @@ public class JavascriptInterface {
      */
     private Handler mHandler;
 
-
-    /**
-     * Lock used to wait for Javascript task completion.
-     */
-    private ConditionVariable mLock;
-
     /**
      * Player temporary volume value.
      */
@@ -127,14 +123,9 @@ public class JavascriptInterface {
     private float mDuration;
 
     /**
-     * define if last state was pause or play.
+     * Dispatcher delivering events to player, progress & buffer listeners.
      */
-    private boolean previousPlayPause;
-
-    /**
-     * List of player listener.
-     */
-    private List<IPlayerListener> mPlayerListenerList = new ArrayList<>();
+    private EventDispatcher mEventDispatcher;
 
     /**
      * Youtube TV view.
@@ -146,21 +137,6 @@ public class JavascriptInterface {
      */
     private String suggestedThumbnailQuality = YoutubeTvConst.DEFAULT_THUMBNAIL_QUALITY.getValue();
 
-    /**
-     * Variable to check if onWindowFocusChanged has been called.
-     */
-    private boolean mWaitLoaded;
-
-    /**
-     * Webview actual width.
-     */
-    private int mViewWidth;
-
-    /**
-     * Webview actual height.
-     */
-    private int mViewHeight;
-
     /**
      * video loaded fraction.
      */
@@ -202,14 +178,9 @@ public class JavascriptInterface {
     private int mPlaylistIndex;
 
     /**
-     * Buffer state listener.
-     */
-    private IBufferStateListener mBufferStateListener;
-
-    /**
-     * Progress update listener.
+     * page configuration (JSON object).
      */
-    private IProgressUpdateListener mProgressUpdateListener;
+    private volatile String mPlayerConfig = "{}";
 
     /**
      * list featuring available quality for the current video.
@@ -219,33 +190,154 @@ public class JavascriptInterface {
     /**
      * Video information.
      */
-    private VideoInfo mVideoInfo = new VideoInfo("", "", "", new ArrayList<VideoQuality>());
+    private volatile VideoInfo mVideoInfo = new VideoInfo("", "", "", new ArrayList<VideoQuality>());
+
+    /**
+     * available quality bitmask of mVideoInfo.
+     */
+    private int mVideoInfoQualityMask;
+
+    /**
+     * strings sent by Javascript, by id.
+     */
+    private final SparseArray<String> mInternedStrings = new SparseArray<>();
+
+    /**
+     * Last player state snapshot pushed from Javascript (null if state snapshot mode is disabled).
+     */
+    private volatile PlayerStateSnapshot mStateSnapshot;
+
+    /**
+     * Queries waiting for a Javascript response.
+     */
+    private PendingRequestTable mRequests;
+
+    /**
+     * startup milestones of this page.
+     */
+    private final StartupTimeline mTimeline;
+
+    /**
+     * media session (now playing card) publisher.
+     */
+    private MediaSessionUpdater mMediaSessionUpdater;
+
+    /**
+     * playback position extrapolated from the last state change & progress update.
+     */
+    private final ProgressInterpolator mPlayback = new ProgressInterpolator();
+
+    /**
+     * last player state received.
+     */
+    private volatile VideoState mLastState = VideoState.UNSTARTED;
+
+    /**
+     * video id of the last state change.
+     */
+    private volatile String mLastVideoId;
+
+    /**
+     * video title of the last state change.
+     */
+    private volatile String mLastTitle;
+
+    /**
+     * playback rate of the last state change.
+     */
+    private volatile float mLastSpeed = 1;
 
     /**
      * Build JS interface.
      *
-     * @param playerListenerList        reference to list of player listener
+     * @param eventDispatcher           dispatcher delivering events to listeners
      * @param handler                   Webview handler
      * @param loadingBar                layout containing the progress bar
      * @param playIcon                  overlay icon used to play the video when clicked
      * @param webView                   Webview object
      * @param youtubeTvView             YoutubeTv view
      * @param suggestedThumbnailQuality suggested quality for thumbnail
+     * @param requests                  queries waiting for a Javascript response
+     * @param taskExecutor              executor used for media session artwork
+     * @param timeline                  startup milestones of this page
      */
-    public JavascriptInterface(final List<IPlayerListener> playerListenerList,
+    public JavascriptInterface(final EventDispatcher eventDispatcher,
                                final Handler handler,
                                final ProgressBar loadingBar,
                                final ImageView playIcon,
                                final WebView webView,
                                final YoutubeTvView youtubeTvView,
-                               final String suggestedThumbnailQuality) {
-        this.mPlayerListenerList = playerListenerList;
+                               final String suggestedThumbnailQuality,
+                               final PendingRequestTable requests,
+                               final TaskExecutor taskExecutor,
+                               final StartupTimeline timeline) {
+        mEventDispatcher = eventDispatcher;
         this.mWebview = webView;
         this.mLoadingProgress = loadingBar;
         this.mHandler = handler;
         this.mPlayIcon = playIcon;
         mYoutubeTvView = youtubeTvView;
         this.suggestedThumbnailQuality = suggestedThumbnailQuality;
+        mRequests = requests;
+        mMediaSessionUpdater = new MediaSessionUpdater(handler, taskExecutor, suggestedThumbnailQuality);
+        mTimeline = timeline;
+    }
+
+    /**
+     * Record a startup milestone & notify listeners the first time it is reached.
+     *
+     * @param milestone milestone name
+     */
+    private void markMilestone(final String milestone) {
+        long time = mTimeline.mark(milestone);
+        if (time >= 0) {
+            onMilestone(milestone, time);
+        }
+    }
+
+    private void onMilestone(final String milestone, final long time) {
+        StartupStatistics.getInstance().record(milestone, time);
+        mEventDispatcher.dispatchMilestone(mTimeline, milestone, time);
+    }
+
+    /**
+     * Get startup milestones of this page.
+     *
+     * @return
+     */
+    public StartupTimeline getTimeline() {
+        return mTimeline;
+    }
+
+    /**
+     * Complete the query matching this request id. A response to a query that has already timed out is dropped.
+     *
+     * @param requestId request id returned by Javascript
+     * @param result    query result
+     */
+    private void completeRequest(final int requestId, final Object result) {
+        if (requestId != PendingRequestTable.NO_REQUEST_ID) {
+            mRequests.complete(requestId, result);
+        }
+    }
+
+    /**
+     * Set configuration read by the page when it loads.
+     *
+     * @param config JSON configuration
+     */
+    public void setPlayerConfig(final String config) {
+        mPlayerConfig = config;
+    }
+
+    /**
+     * Get page configuration (called by Javascript when the page loads).
+     *
+     * @return JSON configuration
+     */
+    @android.webkit.JavascriptInterface
+    public String getPlayerConfig() {
+        return mPlayerConfig;
     }
 
     /**
@@ -268,272 +360,372 @@ public class JavascriptInterface {
         Log.v(header, message);
     }
 
+    /**
+     * Register a string sent by Javascript, next events only refer to it by id.
+     *
+     * @param id    string id
+     * @param value string value
+     */
     @android.webkit.JavascriptInterface
-    public void onPlayerReady(final String title, final String author, final String videoId, final String qualityLevels) {
+    public void onStringInterned(final int id, final String value) {
+        synchronized (mInternedStrings) {
+            mInternedStrings.put(id, value);
+        }
+    }
 
-        mHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                final VideoInfo videoInfo = new VideoInfo(videoId, author, title, WebviewUtils.parseQualityLevels(qualityLevels));
+    /**
+     * Get a string sent by Javascript.
+     *
+     * @param id string id
+     * @return string value or empty string if unknown
+     */
+    private String getInternedString(final int id) {
+        synchronized (mInternedStrings) {
+            String value = mInternedStrings.get(id);
+            return (value != null) ? value : "";
+        }
+    }
 
-                for (IPlayerListener listener : mPlayerListenerList) {
-                    listener.onPlayerReady(videoInfo);
-                }
+    /**
+     * Get video information from interned strings.
+     *
+     * @param titleId     interned title id
+     * @param authorId    interned author id
+     * @param videoIdId   interned video id id
+     * @param qualityMask available quality bitmask
+     * @return video information
+     */
+    private VideoInfo getVideoInfo(final int titleId, final int authorId, final int videoIdId, final int qualityMask) {
+        synchronized (mInternedStrings) {
+            return getVideoInfo(getInternedString(titleId), getInternedString(authorId), getInternedString(videoIdId), qualityMask);
+        }
+    }
+
+    /**
+     * Get video information, rebuilt only if video or available qualities have changed.
+     *
+     * @param title       video title
+     * @param author      video author
+     * @param videoId     video id
+     * @param qualityMask available quality bitmask
+     * @return video information
+     */
+    private VideoInfo getVideoInfo(final String title, final String author, final String videoId, final int qualityMask) {
+        synchronized (mInternedStrings) {
+            VideoInfo videoInfo = mVideoInfo;
+            if (videoInfo.getVideoId().equals(videoId) && videoInfo.getTitle().equals(title) &&
+                    videoInfo.getAuthor().equals(author) && mVideoInfoQualityMask == qualityMask) {
+                return videoInfo;
             }
-        });
+            mVideoInfo = new VideoInfo(videoId, author, title,
+                    Collections.unmodifiableList(VideoQuality.fromMask(qualityMask)));
+            mVideoInfoQualityMask = qualityMask;
+            return mVideoInfo;
+        }
+    }
 
+    /**
+     * Page bootstrap milestone reached (iframe API loaded, player ready, first playing state...).
+     *
+     * @param milestone milestone name
+     * @param time      time in milliseconds since navigation start
+     */
+    @android.webkit.JavascriptInterface
+    public void onBootstrapTiming(final String milestone, final float time) {
+        Log.i(TAG, "bootstrap " + milestone + " : " + time + "ms");
+        long sessionTime = mTimeline.markJs(milestone, time);
+        if (sessionTime >= 0) {
+            onMilestone(StartupTimeline.JS_PREFIX + milestone, sessionTime);
+        }
+    }
+
+    /**
+     * Get page bootstrap milestones.
+     *
+     * @return time in milliseconds since navigation start by milestone name
+     */
+    public Map<String, Float> getBootstrapTimings() {
+        return mTimeline.getJsMilestones();
+    }
+
+    @android.webkit.JavascriptInterface
+    public void onPlayerReady(final int titleId, final int authorId, final int videoIdId, final int qualityMask) {
+        markMilestone(StartupTimeline.PLAYER_READY);
+        mEventDispatcher.dispatchPlayerReady(getVideoInfo(titleId, authorId, videoIdId, qualityMask));
     }
 
     @android.webkit.JavascriptInterface
     public void onProgressUpdate(final float currentTime) {
-        mHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                if (mProgressUpdateListener != null) {
-                    mProgressUpdateListener.onProgressUpdate(currentTime);
-                }
-            }
-        });
+        mPlayback.setPosition((long) (currentTime * 1000));
+        mEventDispatcher.dispatchProgress(currentTime);
+    }
+
+    /**
+     * Get last player state received.
+     *
+     * @return
+     */
+    public VideoState getLastState() {
+        return mLastState;
+    }
+
+    /**
+     * Get video id of the last state change.
+     *
+     * @return video id or null if no state change has been received
+     */
+    public String getLastVideoId() {
+        return mLastVideoId;
+    }
+
+    /**
+     * Get current playback position extrapolated from the last state change & progress update.
+     *
+     * @return position in milliseconds
+     */
+    public long getPlaybackPosition() {
+        return mPlayback.getPosition();
     }
 
     @android.webkit.JavascriptInterface
     public void onPlayerStateChange(final int state,
                                     final long position,
                                     final float speed,
-                                    final String title,
-                                    final String videoId,
-                                    final String videoAuthor,
+                                    final int titleId,
+                                    final int videoIdId,
+                                    final int authorId,
                                     final float duration,
                                     final float loadedFraction,
-                                    final String qualityLevels) {
-        mHandler.post(new Runnable() {
-            @Override
-            public void run() {
-
-                final VideoState videoState = VideoState.getPlayerState(state);
-
-                if (mYoutubeTvView.isShowingNowPlayingCard()) {
-
-                    int playbackState = PlaybackState.STATE_STOPPED;
-
-                    boolean rebuildMedia = true;
-
-                    switch (videoState) {
-                        case UNSTARTED:
-                            previousPlayPause = false;
-                            playbackState = PlaybackState.STATE_STOPPED;
-                            break;
-                        case ENDED:
-                            if (mYoutubeTvView.getPlaylistIndex() != -1) {
-                                mYoutubeTvView.start();
-                            }
-                            previousPlayPause = false;
-                            playbackState = PlaybackState.STATE_STOPPED;
-                            break;
-                        case PLAYING:
-                            if (previousPlayPause) {
-                                rebuildMedia = false;
-                            }
-                            previousPlayPause = true;
-                            playbackState = PlaybackState.STATE_PLAYING;
-                            break;
-                        case PAUSED:
-                            if (previousPlayPause) {
-                                rebuildMedia = false;
-                            }
-                            previousPlayPause = true;
-                            playbackState = PlaybackState.STATE_PAUSED;
-                            break;
-                        case BUFFERING:
-                            previousPlayPause = false;
-                            playbackState = PlaybackState.STATE_BUFFERING;
-                            if (mBufferStateListener != null) {
-                                mBufferStateListener.onBufferUpdate(duration, loadedFraction);
-                            }
-                            break;
-                        case VIDEO_CUED:
-                            previousPlayPause = false;
-                            playbackState = PlaybackState.STATE_PLAYING;
-                            break;
-                        default:
-                            break;
-                    }
+                                    final int qualityMask) {
+        final VideoState videoState = VideoState.getPlayerState(state);
+        final VideoInfo videoInfo = getVideoInfo(titleId, authorId, videoIdId, qualityMask);
+        final String videoId = videoInfo.getVideoId();
+        final String title = videoInfo.getTitle();
+
+        mLastState = videoState;
+        mLastVideoId = videoId;
+        mLastTitle = title;
+        mLastSpeed = speed;
+        mPlayback.update(position, speed, videoState == VideoState.PLAYING);
+
+        if (videoState == VideoState.BUFFERING) {
+            mEventDispatcher.dispatchBufferUpdate(duration, loadedFraction);
+        } else if (videoState == VideoState.PLAYING) {
+            markMilestone(StartupTimeline.FIRST_PLAYING);
+        }
+        mEventDispatcher.dispatchStateChange(videoState, position, speed, duration, videoInfo);
 
-                    updateMediaSession(videoId, rebuildMedia, playbackState, position, speed, title, mYoutubeTvView.getMediaSession());
+        if (videoState == VideoState.ENDED) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mYoutubeTvView.onPlaylistItemEnded();
                 }
+            });
+        }
 
-                for (IPlayerListener listener : mPlayerListenerList) {
-                    listener.onPlayerStateChange(videoState, position, speed, duration, new VideoInfo(videoId, videoAuthor, title, WebviewUtils.parseQualityLevels(qualityLevels)));
-                }
+        if (!mYoutubeTvView.isShowingNowPlayingCard()) {
+            return;
+        }
+
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mMediaSessionUpdater.update(mYoutubeTvView.getMediaSession(), videoId, title,
+                        getPlaybackState(videoState), position, speed);
             }
         });
     }
 
-    private void updateMediaSession(String videoId,
-                                    final boolean rebuildMedia,
-                                    final int playbackState,
-                                    final long position,
-                                    final float speed,
-                                    final String title,
-                                    final MediaSession mediaSession) {
-        new AsyncTask<String, Void, Void>() {
-
-            @Override
-            protected Void doInBackground(String... videoId) {
-
-                String thumbnailUrl = WebviewUtils.getThumbnailURL(videoId[0], suggestedThumbnailQuality);
-                try {
-                    thumbnailUrl = WebviewUtils.getThumbnailQuality(videoId[0], suggestedThumbnailQuality);
-                } catch (IOException e) {
-                    Log.e(TAG, "getThumbnailQuality", e);
-                }
-
-                MediaMetadata.Builder mediaBuilder = null;
-                boolean updateMetadata = false;
-
-                if (rebuildMedia) {
-                    Bitmap bitmap = null;
-                    try {
-                        URL url = new URL(thumbnailUrl);
-                        bitmap = BitmapFactory.decodeStream(url.openConnection().getInputStream());
-                    } catch (IOException e) {
-                        Log.e(TAG, "BitmapFactory.decodeStream", e);
-                    }
-
-                    mediaBuilder = new MediaMetadata.Builder();
-                    mediaBuilder.putString(MediaMetadata.METADATA_KEY_TITLE, title);
-                    if (bitmap != null) {
-                        mediaBuilder.putBitmap(MediaMetadata.METADATA_KEY_ART, bitmap);
-                    }
-                    updateMetadata = true;
-                }
+    /**
+     * Get media session playback state matching a player state.
+     *
+     * @param videoState player state
+     * @return
+     */
+    private static int getPlaybackState(final VideoState videoState) {
+        switch (videoState) {
+            case PLAYING:
+            case VIDEO_CUED:
+                return PlaybackState.STATE_PLAYING;
+            case PAUSED:
+                return PlaybackState.STATE_PAUSED;
+            case BUFFERING:
+                return PlaybackState.STATE_BUFFERING;
+            default:
+                return PlaybackState.STATE_STOPPED;
+        }
+    }
 
-                WebviewUtils.updateMediaSession(updateMetadata, mediaBuilder, mediaSession, playbackState, position, speed);
+    /**
+     * Publish the last player state to the media session now (eg when this player takes the shared media session).
+     * Must be called from main thread.
+     */
+    public void publishMediaSession() {
+        mMediaSessionUpdater.reset();
+        if (mLastVideoId != null) {
+            mMediaSessionUpdater.update(mYoutubeTvView.getMediaSession(), mLastVideoId, mLastTitle,
+                    getPlaybackState(mLastState), mPlayback.getPosition(), mLastSpeed);
+        }
+    }
 
-                return null;
-            }
+    /**
+     * Forget what has been published to the media session.
+     */
+    public void resetMediaSession() {
+        mMediaSessionUpdater.reset();
+    }
 
-            @Override
-            protected void onPostExecute(Void aVoid) {
-                super.onPostExecute(aVoid);
-            }
-        }.execute(videoId);
+    @android.webkit.JavascriptInterface
+    public void onStateSnapshot(final int state,
+                                final float currentTime,
+                                final float duration,
+                                final int volume,
+                                final boolean muted,
+                                final float playbackRate,
+                                final String playbackQuality,
+                                final float loadedFraction,
+                                final int playlistIndex,
+                                final int videoIdId,
+                                final int titleId) {
+        mStateSnapshot = new PlayerStateSnapshot(VideoState.getPlayerState(state),
+                currentTime,
+                duration,
+                volume,
+                muted,
+                playbackRate,
+                VideoQuality.getVideoQuality(playbackQuality != null ? playbackQuality : ""),
+                loadedFraction,
+                playlistIndex,
+                getInternedString(videoIdId),
+                getInternedString(titleId),
+                SystemClock.elapsedRealtime());
     }
 
     @android.webkit.JavascriptInterface
-    public void onMuteReceived(final boolean muted) {
+    public void onMuteReceived(final int requestId, final boolean muted) {
         mMuted = muted;
-        if (mLock != null) {
-            mLock.open();
-        }
+        completeRequest(requestId, muted);
     }
 
     @android.webkit.JavascriptInterface
-    public void onVolumeReceived(final int volume) {
+    public void onVolumeReceived(final int requestId, final int volume) {
         mVolume = volume;
-        if (mLock != null) {
-            mLock.open();
-        }
+        completeRequest(requestId, volume);
     }
 
     @android.webkit.JavascriptInterface
-    public void onVideoLoadedFractionReceived(final float fraction) {
+    public void onVideoLoadedFractionReceived(final int requestId, final float fraction) {
         mVideoLoadedFraction = fraction;
-        if (mLock != null) {
-            mLock.open();
-        }
+        completeRequest(requestId, fraction);
     }
 
     @android.webkit.JavascriptInterface
-    public void onPlaybackRateReceived(final int playbackRate) {
+    public void onPlaybackRateReceived(final int requestId, final int playbackRate) {
         mPlaybackRate = playbackRate;
-        if (mLock != null) {
-            mLock.open();
-        }
+        completeRequest(requestId, playbackRate);
     }
 
     @android.webkit.JavascriptInterface
-    public void onPlayerStateReceived(final int playerState) {
-        mPlayerState = VideoState.getPlayerState(playerState);
-        if (mLock != null) {
-            mLock.open();
-        }
+    public void onPlayerStateReceived(final int requestId, final int playerState) {
+        final VideoState result = VideoState.getPlayerState(playerState);
+        mPlayerState = result;
+        completeRequest(requestId, result);
     }
 
     @android.webkit.JavascriptInterface
-    public void onVideoIdReceived(final String videoId) {
+    public void onVideoIdReceived(final int requestId, final String videoId) {
         mVideoId = videoId;
-        mLock.open();
+        completeRequest(requestId, videoId);
     }
 
     @android.webkit.JavascriptInterface
-    public void onVideoTitleReceived(final String videoTitle) {
+    public void onVideoTitleReceived(final int requestId, final String videoTitle) {
         mVideoTitle = videoTitle;
-        mLock.open();
+        completeRequest(requestId, videoTitle);
     }
 
     @android.webkit.JavascriptInterface
-    public void onCurrentTimeReceived(final float currentTime) {
+    public void onCurrentTimeReceived(final int requestId, final float currentTime) {
         mCurrentTime = currentTime;
-        mLock.open();
+        completeRequest(requestId, currentTime);
     }
 
     @android.webkit.JavascriptInterface
-    public void onPlaybackQualityReceived(final String videoQuality) {
-        mPlaybackQuality = VideoQuality.getVideoQuality(videoQuality);
-        mLock.open();
+    public void onPlaybackQualityReceived(final int requestId, final String videoQuality) {
+        final VideoQuality result = VideoQuality.getVideoQuality(videoQuality);
+        mPlaybackQuality = result;
+        completeRequest(requestId, result);
     }
 
     @android.webkit.JavascriptInterface
-    public void onPlaylistIndexReceived(final int playListIndex) {
+    public void onPlaylistIndexReceived(final int requestId, final int playListIndex) {
         mPlaylistIndex = playListIndex;
-        mLock.open();
+        completeRequest(requestId, playListIndex);
     }
 
     @android.webkit.JavascriptInterface
-    public void onPlaylistReceived(final String playlist) {
-        mPlaylist = WebviewUtils.parsePlaylist(playlist);
-        mLock.open();
+    public void onPlaylistReceived(final int requestId, final String playlist) {
+        final List<String> result = WebviewUtils.parsePlaylist(playlist);
+        mPlaylist = result;
+        completeRequest(requestId, result);
     }
 
+    /**
+     * Playlist change pushed by Javascript : only the changed part of the playlist is received & parsed.
+     *
+     * @param playlistIndex index of the playlist video that is currently playing
+     * @param start         index of the first changed item
+     * @param removeCount   number of items removed at start index
+     * @param inserted      JSON array of video ids inserted at start index
+     */
     @android.webkit.JavascriptInterface
-    public void onPlaybackRatesListReceived(final String playbackRates) {
-        mAvailablePlaybackRates = WebviewUtils.parsePlaybackRates(playbackRates);
-        if (mLock != null) {
-            mLock.open();
-        }
+    public void onPlaylistSync(final int playlistIndex, final int start, final int removeCount, final String inserted) {
+        final List<String> items = WebviewUtils.parsePlaylist(inserted);
+        mPlaylistIndex = playlistIndex;
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mYoutubeTvView.getPlaylistQueue().applyPlayerDiff(playlistIndex, start, removeCount, items);
+            }
+        });
     }
 
     @android.webkit.JavascriptInterface
-    public void onDurationReceived(final float duration) {
+    public void onPlaybackRatesListReceived(final int requestId, final String playbackRates) {
+        final List<Integer> result = WebviewUtils.parsePlaybackRates(playbackRates);
+        mAvailablePlaybackRates = result;
+        completeRequest(requestId, result);
+    }
+
+    @android.webkit.JavascriptInterface
+    public void onDurationReceived(final int requestId, final float duration) {
         mDuration = duration;
-        mLock.open();
+        completeRequest(requestId, duration);
     }
 
     @android.webkit.JavascriptInterface
-    public void onVideoUrlReceived(final String videoUrl) {
+    public void onVideoUrlReceived(final int requestId, final String videoUrl) {
         mVideoUrl = videoUrl;
-        mLock.open();
+        completeRequest(requestId, videoUrl);
     }
 
     @android.webkit.JavascriptInterface
-    public void onVideoInfoReceived(final String title, final String author, final String videoId, final String qualityLevels) {
-        mVideoInfo = new VideoInfo(videoId, author, title, WebviewUtils.parseQualityLevels(qualityLevels));
-        mLock.open();
+    public void onVideoInfoReceived(final int requestId, final String title, final String author, final String videoId, final int qualityMask) {
+        completeRequest(requestId, getVideoInfo(title != null ? title : "", author != null ? author : "", videoId != null ? videoId : "", qualityMask));
     }
 
     @android.webkit.JavascriptInterface
-    public void onVideoEmbedCodeReceived(final String embedCode) {
+    public void onVideoEmbedCodeReceived(final int requestId, final String embedCode) {
         mEmbedCode = embedCode;
-        mLock.open();
+        completeRequest(requestId, embedCode);
     }
 
     @android.webkit.JavascriptInterface
-    public void onAvailableQualityLevelsReceived(final String qualityLevels) {
-        mAvailableQualityLevels = WebviewUtils.parseQualityLevels(qualityLevels);
-        if (mLock != null) {
-            mLock.open();
-        }
+    public void onAvailableQualityLevelsReceived(final int requestId, final String qualityLevels) {
+        final List<VideoQuality> result = WebviewUtils.parseQualityLevels(qualityLevels);
+        mAvailableQualityLevels = result;
+        completeRequest(requestId, result);
     }
 
 
@@ -547,6 +739,7 @@ public class JavascriptInterface {
                 @Override
                 public void run() {
                     mLoadingProgress.setVisibility(View.GONE);
+                    markMilestone(StartupTimeline.LOADING_HIDDEN);
                     if (showPlayIcon) {
                         mPlayIcon.setVisibility(View.VISIBLE);
                     } else {
@@ -578,21 +771,13 @@ public class JavascriptInterface {
     @android.webkit.JavascriptInterface
     public void onPageLoaded() {
         mLoaded = true;
-        if (mWaitLoaded) {
-            WebviewUtils.callOnWebviewThread(mWebview, "setSize", mViewWidth, mViewHeight);
-        }
-    }
-
-    /**
-     * Set size parameters from WebviewonWindowFocusChanged.
-     *
-     * @param viewWidth  webview actual width
-     * @param viewHeight webview actual height
-     */
-    public void setSizeOnLoad(int viewWidth, int viewHeight) {
-        mWaitLoaded = true;
-        mViewWidth = viewWidth;
-        mViewHeight = viewHeight;
+        markMilestone(StartupTimeline.PAGE_LOADED);
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mYoutubeTvView.onPageLoaded();
+            }
+        });
     }
 
     /**
@@ -658,15 +843,6 @@ public class JavascriptInterface {
         return mCurrentTime;
     }
 
-    /**
-     * Set blocking parameter used to be released when response is retrieved from JS side.
-     *
-     * @param lock
-     */
-    public void setBlock(final ConditionVariable lock) {
-        this.mLock = lock;
-    }
-
     /**
      * Get current video quality.
      *
@@ -758,20 +934,11 @@ public class JavascriptInterface {
     }
 
     /**
-     * Set buffer update listener.
-     *
-     * @param listener
-     */
-    public void setOnBufferingUpdateListener(IBufferStateListener listener) {
-        mBufferStateListener = listener;
-    }
-
-    /**
-     * Set progress update listener.
+     * Get last player state snapshot.
      *
-     * @param listener
+     * @return last snapshot pushed from Javascript or null if none has been received yet
      */
-    public void setOnProgressUpdateListener(IProgressUpdateListener listener) {
-        mProgressUpdateListener = listener;
+    public PlayerStateSnapshot getStateSnapshot() {
+        return mStateSnapshot;
     }
 }
@@ -0,0 +1,231 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.JsPromptResult;
+import android.webkit.JsResult;
+import android.webkit.WebChromeClient;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebSettings;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+import fr.bmartel.youtubetv.cache.ResourceCache;
+import fr.bmartel.youtubetv.listener.IWarmupListener;
+import fr.bmartel.youtubetv.metrics.StartupStatistics;
+
+/**
+ * Process wide WebView configuration & warmup. Calling {@link #initialize(Context)} at application start loads the
+ * WebView provider & starts a renderer before the first player is displayed, so that the first player screen doesn't
+ * pay Chromium initialization on its own. Must be used from main thread.
+ *
+ * @author Bertrand Martel
+ */
+public final class YoutubeTv {
+
+    private final static String TAG = YoutubeTv.class.getSimpleName();
+
+    /**
+     * milestone recorded in {@link StartupStatistics} : WebView provider loading & first WebView creation.
+     */
+    public final static String WARMUP_PROVIDER = "warmupProvider";
+
+    /**
+     * milestone recorded in {@link StartupStatistics} : warmup page loading.
+     */
+    public final static String WARMUP_PAGE = "warmupPage";
+
+    /**
+     * client serving player resources from the resource cache (shared by all players).
+     */
+    private final static WebViewClient PLAYER_CLIENT = new PlayerWebViewClient();
+
+    /**
+     * chrome client discarding Javascript dialogs (shared by all players).
+     */
+    private final static WebChromeClient PLAYER_CHROME_CLIENT = new WebChromeClient() {
+        @Override
+        public boolean onJsAlert(WebView view, String url, String message, JsResult result) {
+            result.cancel();
+            return true;
+        }
+
+        @Override
+        public boolean onJsConfirm(WebView view, String url, String message, JsResult result) {
+            result.cancel();
+            return true;
+        }
+
+        @Override
+        public boolean onJsPrompt(WebView view, String url, String message, String defaultValue, JsPromptResult result) {
+            result.cancel();
+            return true;
+        }
+    };
+
+    private static boolean sInitialized;
+
+    /**
+     * hidden WebView loading the warmup page, kept to keep its renderer alive if requested.
+     */
+    private static WebView sWarmupView;
+
+    private static long sProviderTime = -1;
+
+    private static long sPageTime = -1;
+
+    private YoutubeTv() {
+    }
+
+    /**
+     * Load the WebView provider & a minimal page. The warmup WebView is destroyed once the page is loaded.
+     *
+     * @param context android context
+     */
+    public static void initialize(final Context context) {
+        initialize(context, false, null);
+    }
+
+    /**
+     * Load the WebView provider & a minimal page which also fetches the iframe API in the resource cache.
+     *
+     * @param context      android context
+     * @param keepRenderer keep the hidden warmup WebView (& its renderer) alive until {@link #releaseRenderer()}
+     * @param listener     listener notified with warmup durations (may be null)
+     */
+    public static void initialize(final Context context, final boolean keepRenderer, final IWarmupListener listener) {
+
+        if (sInitialized) {
+            return;
+        }
+        sInitialized = true;
+
+        final Context appContext = context.getApplicationContext();
+        final long start = SystemClock.elapsedRealtime();
+
+        ResourceCache.getInstance().enableDiskCache(appContext);
+
+        final WebView webView = new WebView(appContext);
+        configureWebView(webView);
+
+        final long pageStart = SystemClock.elapsedRealtime();
+        sProviderTime = pageStart - start;
+        StartupStatistics.getInstance().record(WARMUP_PROVIDER, sProviderTime);
+
+        webView.setWebViewClient(new PlayerWebViewClient() {
+
+            private boolean mDone;
+
+            @Override
+            public void onPageFinished(WebView view, String url) {
+                if (mDone) {
+                    return;
+                }
+                mDone = true;
+                sPageTime = SystemClock.elapsedRealtime() - pageStart;
+                StartupStatistics.getInstance().record(WARMUP_PAGE, sPageTime);
+                Log.v(TAG, "warmup : provider " + sProviderTime + "ms, page " + sPageTime + "ms");
+
+                if (!keepRenderer) {
+                    view.destroy();
+                    if (sWarmupView == view) {
+                        sWarmupView = null;
+                    }
+                }
+                if (listener != null) {
+                    listener.onWarmupComplete(sProviderTime, sPageTime);
+                }
+            }
+        });
+        sWarmupView = webView;
+        webView.loadDataWithBaseURL(YoutubeTvConst.WARMUP_BASE_URL, YoutubeTvConst.WARMUP_PAGE, "text/html", "UTF-8", null);
+    }
+
+    /**
+     * Destroy the warmup WebView kept alive by {@link #initialize(Context, boolean, IWarmupListener)}.
+     */
+    public static void releaseRenderer() {
+        if (sWarmupView != null) {
+            sWarmupView.destroy();
+            sWarmupView = null;
+        }
+    }
+
+    public static boolean isInitialized() {
+        return sInitialized;
+    }
+
+    /**
+     * Get time spent loading the WebView provider & creating the first WebView.
+     *
+     * @return duration in milliseconds or -1 if no warmup has been done
+     */
+    public static long getProviderTime() {
+        return sProviderTime;
+    }
+
+    /**
+     * Get time spent loading the warmup page.
+     *
+     * @return duration in milliseconds or -1 if warmup is not complete
+     */
+    public static long getPageTime() {
+        return sPageTime;
+    }
+
+    /**
+     * Apply the player WebView configuration : settings, resource cache client & Javascript dialogs discarding.
+     *
+     * @param webView player WebView
+     */
+    static void configureWebView(final WebView webView) {
+
+        final WebSettings settings = webView.getSettings();
+        settings.setJavaScriptEnabled(true);
+        settings.setJavaScriptCanOpenWindowsAutomatically(true);
+        settings.setPluginState(WebSettings.PluginState.ON);
+        settings.setLoadWithOverviewMode(true);
+        settings.setUseWideViewPort(true);
+        settings.setDomStorageEnabled(true);
+        settings.setMediaPlaybackRequiresUserGesture(false);
+
+        webView.setWebViewClient(PLAYER_CLIENT);
+        webView.setWebChromeClient(PLAYER_CHROME_CLIENT);
+    }
+
+    /**
+     * WebView client serving player resources from the resource cache.
+     */
+    private static class PlayerWebViewClient extends WebViewClient {
+        @Override
+        public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+            WebResourceResponse response = ResourceCache.getInstance().intercept(request);
+            return (response != null) ? response : super.shouldInterceptRequest(view, request);
+        }
+    }
+}
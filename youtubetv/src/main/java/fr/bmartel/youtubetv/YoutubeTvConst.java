@@ -137,6 +137,37 @@ public class YoutubeTvConst {
      */
     public static final boolean DEFAULT_SHOW_NOWPLAYINGCARD = true;
 
+    /**
+     * Default value for state snapshot mode (player state pushed from Javascript).
+     */
+    public final static boolean DEFAULT_STATE_SNAPSHOT = false;
+
+    /**
+     * Default interval in milliseconds between two state snapshots.
+     */
+    public final static int DEFAULT_STATE_SNAPSHOT_INTERVAL = 1000;
+
+    /**
+     * Default interval in milliseconds between two progress updates sent by Javascript.
+     */
+    public final static int DEFAULT_PROGRESS_INTERVAL = 1000;
+
+    /**
+     * Default interval in milliseconds between two progress updates of players which don't have the focus in a
+     * coordinated group.
+     */
+    public final static int DEFAULT_BACKGROUND_PROGRESS_INTERVAL = 5000;
+
+    /**
+     * Default time in milliseconds after which a hidden player is released.
+     */
+    public final static int DEFAULT_IDLE_RELEASE_DELAY = 30000;
+
+    /**
+     * Default Youtube iframe API URL.
+     */
+    public final static String DEFAULT_IFRAME_API_URL = "https://www.youtube.com/iframe_api";
+
     static {
         THUMBNAIL_QUALITY_LIST.add("maxresdefault");
         THUMBNAIL_QUALITY_LIST.add("sddefault");
@@ -149,4 +180,101 @@ public class YoutubeTvConst {
      * Default thumbnail URL in case no thumbnail is available for videoId.
      */
     public final static String DEFAULT_THUMBNAIL_URL = "";
+
+    /**
+     * Max number of video ids kept in thumbnail cache memory.
+     */
+    public final static int THUMBNAIL_CACHE_SIZE = 100;
+
+    /**
+     * Time to live of a thumbnail cache entry in milliseconds.
+     */
+    public final static long THUMBNAIL_CACHE_TTL = 24 * 60 * 60 * 1000;
+
+    /**
+     * Connect & read timeout for HTTP requests in milliseconds.
+     */
+    public final static int HTTP_TIMEOUT = 5000;
+
+    /**
+     * Max size in bytes of decoded artworks kept in memory for the now playing card.
+     */
+    public final static int ARTWORK_CACHE_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Width in pixels to which now playing card artworks are downsampled.
+     */
+    public final static int ARTWORK_WIDTH = 320;
+
+    /**
+     * Height in pixels to which now playing card artworks are downsampled.
+     */
+    public final static int ARTWORK_HEIGHT = 180;
+
+    /**
+     * Max size in bytes of player static resources kept in memory.
+     */
+    public final static int RESOURCE_CACHE_MEMORY_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * Max size in bytes of player static resources kept on disk.
+     */
+    public final static long RESOURCE_CACHE_DISK_SIZE = 20 * 1024 * 1024;
+
+    /**
+     * Number of sessions kept by milestone for startup percentiles.
+     */
+    public final static int STARTUP_SAMPLE_COUNT = 100;
+
+    /**
+     * Player page (configuration is read from Javascript interface when the page loads).
+     */
+    public final static String PLAYER_PAGE_URL = "file:///android_asset/youtube.html";
+
+    /**
+     * Base URL of the warmup page (same origin as the player page).
+     */
+    public final static String WARMUP_BASE_URL = "file:///android_asset/";
+
+    /**
+     * Minimal page loaded at warmup, fetching the iframe API so that it is in the resource cache.
+     */
+    public final static String WARMUP_PAGE = "<html><head>" +
+            "<script async src=\"https://www.youtube.com/iframe_api\"></script>" +
+            "</head><body></body></html>";
+
+    /**
+     * Default number of upcoming playlist items prefetched.
+     */
+    public final static int DEFAULT_PREFETCH_DEPTH = 2;
+
+    /**
+     * Number of prefetched playlist item metadata kept in memory.
+     */
+    public final static int PREFETCH_METADATA_SIZE = 64;
+
+    /**
+     * oEmbed endpoint used to resolve title & author of upcoming playlist items.
+     */
+    public final static String OEMBED_URL = "https://www.youtube.com/oembed?format=json&url=";
+
+    /**
+     * Number of threads used for library background work.
+     */
+    public final static int BACKGROUND_POOL_SIZE = 2;
+
+    /**
+     * Max number of background tasks waiting for a thread.
+     */
+    public final static int BACKGROUND_QUEUE_SIZE = 8;
+
+    /**
+     * Keep alive time in milliseconds of idle background threads.
+     */
+    public final static long BACKGROUND_KEEP_ALIVE = 30000;
+
+    /**
+     * Delay in milliseconds during which media session updates are coalesced.
+     */
+    public final static int MEDIA_SESSION_DEBOUNCE = 250;
 }
@@ -26,7 +26,6 @@ package fr.bmartel.youtubetv;
 
 import android.content.Context;
 import android.content.Intent;
-import android.content.res.TypedArray;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.DrawableContainer;
 import android.graphics.drawable.GradientDrawable;
@@ -34,35 +33,54 @@ import android.graphics.drawable.StateListDrawable;
 import android.media.session.MediaSession;
 import android.media.session.PlaybackState;
 import android.os.Bundle;
-import android.os.ConditionVariable;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.KeyEvent;
-import android.webkit.JsPromptResult;
-import android.webkit.JsResult;
-import android.webkit.WebChromeClient;
-import android.webkit.WebSettings;
+import android.view.View;
 import android.webkit.WebView;
-import android.webkit.WebViewClient;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
 
+
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import fr.bmartel.youtubetv.cache.ResourceCache;
+import fr.bmartel.youtubetv.cache.ThumbnailCache;
+import fr.bmartel.youtubetv.config.ConfigChange;
+import fr.bmartel.youtubetv.config.ConfigDiff;
+import fr.bmartel.youtubetv.config.PlayerConfig;
 import fr.bmartel.youtubetv.listener.IBufferStateListener;
 import fr.bmartel.youtubetv.listener.IPlayerListener;
+import fr.bmartel.youtubetv.listener.IPlaylistQueueListener;
 import fr.bmartel.youtubetv.listener.IProgressUpdateListener;
+import fr.bmartel.youtubetv.listener.IQueryListener;
+import fr.bmartel.youtubetv.listener.IStartupListener;
+import fr.bmartel.youtubetv.metrics.BridgeMetrics;
+import fr.bmartel.youtubetv.metrics.StartupStatistics;
+import fr.bmartel.youtubetv.metrics.StartupTimeline;
+import fr.bmartel.youtubetv.model.PlayerStateSnapshot;
 import fr.bmartel.youtubetv.model.ThumbnailQuality;
-import fr.bmartel.youtubetv.model.UserAgents;
-import fr.bmartel.youtubetv.model.VideoAutoHide;
-import fr.bmartel.youtubetv.model.VideoControls;
 import fr.bmartel.youtubetv.model.VideoInfo;
 import fr.bmartel.youtubetv.model.VideoQuality;
 import fr.bmartel.youtubetv.model.VideoState;
-import fr.bmartel.youtubetv.utils.WebviewUtils;
+import fr.bmartel.youtubetv.playlist.PlaylistQueue;
+import fr.bmartel.youtubetv.request.PendingRequestTable;
+import fr.bmartel.youtubetv.request.QueryFuture;
+import fr.bmartel.youtubetv.utils.EventDispatcher;
+import fr.bmartel.youtubetv.utils.JavascriptCommandQueue;
+import fr.bmartel.youtubetv.utils.TaskExecutor;
 
 /**
  * Youtube TV custom view.
@@ -74,144 +92,190 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
     private final static String TAG = YoutubeTvView.class.getSimpleName();
 
     /**
-     * User agent string used.
+     * player configuration.
      */
-    private UserAgents mUserAgent;
+    private PlayerConfig mConfig = new PlayerConfig.Builder().build();
 
     /**
-     * Video id.
+     * video id loaded in the player.
      */
-    private String mVideoId;
+    private String mVideoId = YoutubeTvConst.DEFAULT_VIDEO_ID;
 
     /**
-     * set suggested video quality. (https://developers.google.com/youtube/iframe_api_reference#Playback_quality)
+     * Javascript interface.
      */
-    private VideoQuality mVideoQuality;
+    private JavascriptInterface mJavascriptInterface;
 
     /**
-     * show/dont show related video at the end of the video. (check https://developers.google.com/youtube/player_parameters?playerVersion=HTML5)
+     * startup milestones of the next page load (started when the view is initialized).
      */
-    private int mShowRelatedVideos;
+    private StartupTimeline mStartupTimeline;
 
     /**
-     * show/hide video info at the beginning of the video.
+     * Youtube Webview.
      */
-    private int mShowVideoInfo;
+    private WebView mWebView;
 
     /**
-     * show/hide youtube player controls.
+     * Queue used to send commands to Javascript (one script evaluation per frame).
      */
-    private VideoControls mShowControls;
+    private JavascriptCommandQueue mCommandQueue;
 
     /**
-     * autohide mode for youtube player controls.
+     * Playlist ID for the loaded video.
      */
-    private VideoAutoHide mAutohide;
+    private String mPlaylistId;
 
     /**
-     * show/hide closed caption.
+     * Java side model of the player playlist.
      */
-    private int mClosedCaptions;
+    private final PlaylistQueue mPlaylistQueue = new PlaylistQueue();
 
     /**
-     * show/hide video annotation.
+     * Push the item following the current one to the page whenever the playlist queue changes, so that the page plays
+     * it instead of the player own next item when the current one ends.
      */
-    private int mVideoAnnotation;
+    private final IPlaylistQueueListener mPlaylistQueueListener = new IPlaylistQueueListener() {
+
+        @Override
+        public void onItemsInserted(int index, int count) {
+            pushNextPlaylistIndex();
+        }
+
+        @Override
+        public void onItemsRemoved(int index, int count) {
+            pushNextPlaylistIndex();
+        }
+
+        @Override
+        public void onItemMoved(int fromIndex, int toIndex) {
+            pushNextPlaylistIndex();
+        }
+
+        @Override
+        public void onOrderChanged() {
+            pushNextPlaylistIndex();
+        }
+
+        @Override
+        public void onCurrentChanged(int index) {
+            pushNextPlaylistIndex();
+        }
+    };
 
     /**
-     * debug mode.
+     * Dispatcher delivering events to player, progress & buffer listeners.
      */
-    private int mDebug;
+    private final EventDispatcher mEventDispatcher = new EventDispatcher();
 
     /**
-     * webview background color.
+     * Javascript queries waiting for a response.
      */
-    private int mLoadBackgroundColor = YoutubeTvConst.DEFAULT_LOADING_BG;
+    private final PendingRequestTable mRequests = new PendingRequestTable();
 
     /**
-     * Javascript interface.
+     * executor for background work (thumbnail probing, artwork decoding, media session updates).
      */
-    private JavascriptInterface mJavascriptInterface;
+    private final TaskExecutor mTaskExecutor = new TaskExecutor(TaskExecutor.getDefaultExecutor());
 
     /**
-     * Youtube Webview.
+     * Media session used to manage now playing card.
      */
-    private WebView mWebView;
+    private MediaSession mMediaSession;
 
     /**
-     * autoplay mode.
+     * media session shared with other players (null if this player has its own media session).
      */
-    private int mAutoPlay;
+    private MediaSession mSharedMediaSession;
 
     /**
-     * define if border is shown when selecting the frame.
+     * define if this player publishes its state to the shared media session.
      */
-    private boolean mShowBorder;
+    private boolean mMediaSessionFocus = true;
 
     /**
-     * Border width.
+     * define if the view size is sent to the page once it is loaded (window focus changed while loading).
      */
-    private int mBorderWidth;
+    private boolean mSizePending;
 
     /**
-     * Border color.
+     * progress interval overriding the configured one in milliseconds (-1 if none).
      */
-    private int mBorderColor;
+    private int mProgressIntervalOverride = -1;
 
     /**
-     * Closed caption language preference.
+     * Media session tag used for now playing card.
      */
-    private String mClosedCaptionLangPref;
+    private final static String MEDIA_SESSION_TAG = "fr.bmartel.youtubetv.MediaSession";
 
     /**
-     * Playlist ID for the loaded video.
+     * define if progress updates have been requested.
      */
-    private String mPlaylistId;
+    private boolean mProgressEnabled = true;
 
     /**
-     * youtube player languge (http://www.loc.gov/standards/iso639-2/php/code_list.php)
+     * define if progress updates are currently sent by Javascript.
      */
-    private String mPlayerLanguage;
+    private boolean mProgressActive = true;
 
     /**
-     * Thumbnail quality.
+     * define if configuration has changed since page has been loaded (page must be reloaded to apply it).
      */
-    private ThumbnailQuality mThumbnailQuality;
+    private boolean mReloadRequired;
 
     /**
-     * condition variable used to lock JS call that return data.
+     * content load requested while the page was loading.
      */
-    private ConditionVariable mBlock = new ConditionVariable();
+    private String mPendingLoadMethod;
+
+    private Object[] mPendingLoadParams;
 
     /**
-     * Javascript call timeout in milliseconds.
+     * define if the host activity/fragment is resumed.
      */
-    private int mJavascriptTimeout = YoutubeTvConst.DEFAULT_JAVASCRIPT_TIMEOUT;
+    private boolean mLifecycleResumed = true;
 
     /**
-     * List of player listener.
+     * define if the player has been paused because the view is hidden or in background.
      */
-    private List<IPlayerListener> mPlayerListenerList = new ArrayList<>();
+    private boolean mSuspended;
 
     /**
-     * Lock object used to synchronize Javascript calls.
+     * define if the page has been released after being hidden for idle release delay.
      */
-    private final Object mLock = new Object();
+    private boolean mReleased;
 
     /**
-     * Media session used to manage now playing card.
+     * define if the player is idle in a pool : it stays suspended until it is acquired, even though it is detached.
      */
-    private MediaSession mMediaSession;
+    private boolean mIdle;
 
     /**
-     * Media session tag used for now playing card.
+     * define if playback is resumed when the view is shown again.
      */
-    private final static String MEDIA_SESSION_TAG = "fr.bmartel.youtubetv.MediaSession";
+    private boolean mResumePlaying;
+
+    /**
+     * position in milliseconds at which the player is restored after a release.
+     */
+    private long mResumePosition;
 
     /**
-     * define if now playing card is shown or not.
+     * define if next page load restores the player at the saved position.
      */
-    private boolean mShowNowPlayingCard;
+    private boolean mRestorePending;
+
+    /**
+     * Handler used to schedule idle release.
+     */
+    private final Handler mLifecycleHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mReleaseTask = new Runnable() {
+        @Override
+        public void run() {
+            releasePlayer();
+        }
+    };
 
     /**
      * Build Custom view.
@@ -223,6 +287,30 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
         initView();
     }
 
+    /**
+     * Build Custom view with a player configuration.
+     *
+     * @param context android context
+     * @param config  player configuration
+     */
+    public YoutubeTvView(Context context, PlayerConfig config) {
+        super(context);
+        setConfig(config);
+        initView();
+    }
+
+    /**
+     * Build Custom view with a configuration bundle (same keys as {@link #updateView(Bundle)}).
+     *
+     * @param context   android context
+     * @param arguments player configuration
+     */
+    public YoutubeTvView(Context context, Bundle arguments) {
+        super(context);
+        updateView(arguments);
+        initView();
+    }
+
     /**
      * Build Custom view.
      *
@@ -255,37 +343,9 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
      * @param attrs   attributes
      */
     private void processAttr(final Context context, AttributeSet attrs) {
-
-        TypedArray styledAttr = context.getTheme().obtainStyledAttributes(
-                attrs,
-                R.styleable.YoutubeTvView,
-                0, 0);
-
-        try {
-            mVideoId = styledAttr.getString(R.styleable.YoutubeTvView_yt_videoId);
-            mVideoQuality = VideoQuality.getVideoQuality(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_videoQuality, YoutubeTvConst.DEFAULT_VIDEO_QUALITY.getIndex()));
-            mShowRelatedVideos = styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_showRelatedVideos, YoutubeTvConst.DEFAULT_SHOW_RELATED_VIDEOS) ? 1 : 0;
-            mShowVideoInfo = styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_showVideoInfo, YoutubeTvConst.DEFAULT_SHOW_VIDEO_INFO) ? 1 : 0;
-            mShowControls = VideoControls.getVideoControls(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_showControls, YoutubeTvConst.DEFAULT_SHOW_CONTROLS.getIndex()));
-            mClosedCaptions = styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_closedCaptions, YoutubeTvConst.DEFAULT_CLOSED_CAPTION) ? 1 : 0;
-            mVideoAnnotation = styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_videoAnnotation, YoutubeTvConst.DEFAULT_VIDEO_ANNOTATION) ? 1 : 3;
-            mAutohide = VideoAutoHide.getVideoControls(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_autoHide, YoutubeTvConst.DEFAULT_AUTOHIDE.getIndex()));
-            mDebug = styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_debug, YoutubeTvConst.DEFAULT_DEBUG_MODE) ? 1 : 0;
-            mLoadBackgroundColor = styledAttr.getInteger(R.styleable.YoutubeTvView_yt_loadingBackgroundColor, YoutubeTvConst.DEFAULT_LOADING_BG);
-            mAutoPlay = styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_autoplay, YoutubeTvConst.DEFAULT_AUTOPLAY) ? 1 : 0;
-            mUserAgent = UserAgents.getUserAgent(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_userAgentString, YoutubeTvConst.DEFAULT_USER_AGENT.getIndex()));
-            mShowBorder = styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_showBorder, YoutubeTvConst.DEFAULT_SHOW_BORDER);
-            mBorderWidth = styledAttr.getInteger(R.styleable.YoutubeTvView_yt_borderWidth, YoutubeTvConst.DEFAULT_BORDER_WIDTH);
-            mBorderColor = styledAttr.getColor(R.styleable.YoutubeTvView_yt_borderColor, YoutubeTvConst.DEFAULT_BORDER_COLOR);
-            mThumbnailQuality = ThumbnailQuality.getThumbnail(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_thumbnailQuality, YoutubeTvConst.DEFAULT_THUMBNAIL_QUALITY.getIndex()));
-            mClosedCaptionLangPref = styledAttr.getString(R.styleable.YoutubeTvView_yt_closedCaptionLangPref);
-            mPlayerLanguage = styledAttr.getString(R.styleable.YoutubeTvView_yt_playerLanguage);
-            mJavascriptTimeout = styledAttr.getInteger(R.styleable.YoutubeTvView_yt_javascriptTimeout, YoutubeTvConst.DEFAULT_JAVASCRIPT_TIMEOUT);
-            mPlaylistId = styledAttr.getString(R.styleable.YoutubeTvView_yt_playlistId);
-            mShowNowPlayingCard = styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_showNowPlayingCard, YoutubeTvConst.DEFAULT_SHOW_NOWPLAYINGCARD);
-        } finally {
-            styledAttr.recycle();
-        }
+        mConfig = PlayerConfig.fromAttributes(context, attrs);
+        mVideoId = mConfig.getVideoId();
+        mPlaylistId = mConfig.getPlaylistId();
     }
 
     /**
@@ -299,9 +359,43 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
         int viewWidth = getWidth();
         int viewHeight = getHeight();
         if (mJavascriptInterface != null && mJavascriptInterface.isPageLoaded()) {
-            WebviewUtils.callJavaScript(mWebView, "setSize", viewWidth, viewHeight);
+            mCommandQueue.post("setSize", viewWidth, viewHeight);
         } else {
-            mJavascriptInterface.setSizeOnLoad(viewWidth, viewHeight);
+            mSizePending = true;
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        if (mJavascriptInterface != null && mJavascriptInterface.isPageLoaded()) {
+            mCommandQueue.post("setSize", width, height);
+        }
+    }
+
+    /**
+     * Create the media session of this player (replacing the previous one).
+     */
+    private void createMediaSession() {
+
+        if (mMediaSession != null) {
+            mMediaSession.setActive(false);
+            mMediaSession.release();
+        }
+        mMediaSession = new MediaSession(getContext(), MEDIA_SESSION_TAG);
+        mMediaSession.setCallback(new MediaSession.Callback() {
+            @Override
+            public boolean onMediaButtonEvent(Intent mediaButtonIntent) {
+                // Consume the media button event here. Should not send it to other apps.
+                return true;
+            }
+        });
+
+        mMediaSession.setFlags(MediaSession.FLAG_HANDLES_MEDIA_BUTTONS |
+                MediaSession.FLAG_HANDLES_TRANSPORT_CONTROLS);
+
+        if (!mMediaSession.isActive()) {
+            mMediaSession.setActive(true);
         }
     }
 
@@ -310,8 +404,15 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
      */
     private void initView() {
 
+        mStartupTimeline = new StartupTimeline();
+
         inflate(getContext(), R.layout.youtube_view, this);
 
+        mPlaylistQueue.addListener(mPlaylistQueueListener);
+
+        ThumbnailCache.getInstance().enableDiskCache(getContext());
+        ResourceCache.getInstance().enableDiskCache(getContext());
+
         init();
     }
 
@@ -320,123 +421,94 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
      */
     private void init() {
 
+        mReloadRequired = false;
+        mReleased = false;
+        mPendingLoadMethod = null;
+        mPendingLoadParams = null;
+
+        // a new page pushes its whole playlist again
+        if (!mPlaylistQueue.isDetached()) {
+            mPlaylistQueue.clear();
+        }
+
+        int autoPlay = mConfig.isAutoplay() ? 1 : 0;
+        int start = 0;
+        if (mRestorePending) {
+            autoPlay = mResumePlaying ? 1 : 0;
+            start = (int) (mResumePosition / 1000);
+            mRestorePending = false;
+        } else {
+            mResumePlaying = mConfig.isAutoplay();
+        }
+
+        // first load is timed from view initialization, reloads from now
+        StartupTimeline timeline = (mJavascriptInterface == null) ? mStartupTimeline : new StartupTimeline();
+
         setBorder();
 
         mWebView = (WebView) findViewById(R.id.youtube_view);
+        if (mCommandQueue == null) {
+            mCommandQueue = new JavascriptCommandQueue(mWebView);
+        }
         ImageView playIcon = (ImageView) findViewById(R.id.play_icon);
 
         ProgressBar loadingProgress = (ProgressBar) findViewById(R.id.progress_bar);
         Handler handler = new Handler();
 
-        mWebView.setBackgroundColor(mLoadBackgroundColor);
+        mWebView.setBackgroundColor(mConfig.getLoadingBackgroundColor());
 
         int width = getMeasuredWidth();
         int height = getMeasuredHeight();
 
-        final WebSettings settings = mWebView.getSettings();
-        settings.setJavaScriptEnabled(true);
-        settings.setJavaScriptCanOpenWindowsAutomatically(true);
-        settings.setPluginState(WebSettings.PluginState.ON);
-        settings.setLoadWithOverviewMode(true);
-        settings.setUseWideViewPort(true);
-        settings.setDomStorageEnabled(true);
-        settings.setMediaPlaybackRequiresUserGesture(false);
-
-        mWebView.setWebViewClient(new WebViewClient());
-
-        mWebView.setWebChromeClient(new WebChromeClient() {
-            @Override
-            public boolean onJsAlert(WebView view, String url, String message, JsResult result) {
-                result.cancel();
-                return true;
-            }
-
-            @Override
-            public boolean onJsConfirm(WebView view, String url, String message, JsResult result) {
-                result.cancel();
-                return true;
-            }
-
-            @Override
-            public boolean onJsPrompt(WebView view, String url, String message, String defaultValue, JsPromptResult result) {
-                result.cancel();
-                return true;
-            }
-        });
+        YoutubeTv.configureWebView(mWebView);
 
         mWebView.setPadding(0, 0, 0, 0);
         mWebView.setScrollbarFadingEnabled(true);
 
-        mJavascriptInterface = new JavascriptInterface(mPlayerListenerList,
+        mJavascriptInterface = new JavascriptInterface(mEventDispatcher,
                 handler,
                 loadingProgress,
                 playIcon,
                 mWebView,
                 this,
-                mThumbnailQuality.getValue());
+                mConfig.getThumbnailQuality().getValue(),
+                mRequests,
+                mTaskExecutor,
+                timeline);
 
         mWebView.addJavascriptInterface(mJavascriptInterface, "JSInterface");
 
-        mWebView.getSettings().setUserAgentString(mUserAgent.getValue());
-
-        if (mShowNowPlayingCard) {
+        mWebView.getSettings().setUserAgentString(mConfig.getUserAgent().getValue());
 
-            if (mMediaSession != null) {
-                mMediaSession.setActive(false);
-                mMediaSession.release();
-            }
-            mMediaSession = new MediaSession(getContext(), MEDIA_SESSION_TAG);
-            mMediaSession.setCallback(new MediaSession.Callback() {
-                @Override
-                public boolean onMediaButtonEvent(Intent mediaButtonIntent) {
-                    // Consume the media button event here. Should not send it to other apps.
-                    return true;
-                }
-            });
-
-            mMediaSession.setFlags(MediaSession.FLAG_HANDLES_MEDIA_BUTTONS |
-                    MediaSession.FLAG_HANDLES_TRANSPORT_CONTROLS);
-
-            if (!mMediaSession.isActive()) {
-                mMediaSession.setActive(true);
-            }
+        if (mConfig.isShowNowPlayingCard() && mSharedMediaSession == null) {
+            createMediaSession();
         }
 
-        final String videoUrl = "file:///android_asset/youtube.html" +
-                "?videoId=" + mVideoId +
-                "&videoQuality=" + mVideoQuality.getValue() +
-                "&playerHeight=" + height +
-                "&playerWidth=" + width +
-                "&rel=" + mShowRelatedVideos +
-                "&showinfo=" + mShowVideoInfo +
-                "&controls=" + mShowControls.getIndex() +
-                "&autohide=" + mAutohide.getIndex() +
-                "&cc_load_policy=" + mClosedCaptions +
-                "&iv_load_policy=" + mVideoAnnotation +
-                "&autoplay=" + mAutoPlay +
-                "&thumbnailQuality=" + mThumbnailQuality.getValue() +
-                "&cc_lang_pref=" + mClosedCaptionLangPref +
-                "&hl=" + mPlayerLanguage +
-                "&playlist_id=" + mPlaylistId +
-                "&debug=" + mDebug;
-
+        PlayerConfig pageConfig = mConfig;
+        if (mProgressIntervalOverride >= 0) {
+            pageConfig = mConfig.toBuilder().setProgressInterval(mProgressIntervalOverride).build();
+        }
+        mJavascriptInterface.setPlayerConfig(pageConfig.toPageConfig(mVideoId, mPlaylistId, autoPlay, start, width, height,
+                mProgressActive));
 
-        Log.v(TAG, "videoUrl : " + videoUrl);
+        mWebView.loadUrl(YoutubeTvConst.PLAYER_PAGE_URL);
 
-        mWebView.loadUrl(videoUrl);
+        if (mSuspended) {
+            scheduleRelease();
+        }
     }
 
     private void setBorder() {
 
-        if (mShowBorder) {
+        if (mConfig.isShowBorder()) {
             FrameLayout layout = (FrameLayout) findViewById(R.id.youtube_frame);
-            layout.setPadding(mBorderWidth, mBorderWidth, mBorderWidth, mBorderWidth);
+            layout.setPadding(mConfig.getBorderWidth(), mConfig.getBorderWidth(), mConfig.getBorderWidth(), mConfig.getBorderWidth());
             layout.setBackground(getResources().getDrawable(R.drawable.webview_selector));
             StateListDrawable drawable = (StateListDrawable) layout.getBackground();
             DrawableContainer.DrawableContainerState drawableContainerState = (DrawableContainer.DrawableContainerState) drawable.getConstantState();
             Drawable[] children = drawableContainerState.getChildren();
             GradientDrawable focusedItem = (GradientDrawable) children[0];
-            focusedItem.setStroke(mBorderWidth, mBorderColor);
+            focusedItem.setStroke(mConfig.getBorderWidth(), mConfig.getBorderColor());
         }
     }
 
@@ -455,16 +527,16 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
             switch (event.getKeyCode()) {
                 case KeyEvent.KEYCODE_DPAD_CENTER:
                 case KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE:
-                    WebviewUtils.callJavaScript(mWebView, "playPause");
+                    mCommandQueue.post("playPause");
                     break;
                 case KeyEvent.KEYCODE_MEDIA_PLAY:
-                    WebviewUtils.callJavaScript(mWebView, "playVideo");
+                    mCommandQueue.post("playVideo");
                     break;
                 case KeyEvent.KEYCODE_MEDIA_PAUSE:
-                    WebviewUtils.callJavaScript(mWebView, "playPause");
+                    mCommandQueue.post("playPause");
                     break;
                 case KeyEvent.KEYCODE_MEDIA_NEXT:
-                    WebviewUtils.callJavaScript(mWebView, "nextVideo");
+                    nextVideo();
                     break;
                 default:
                     break;
@@ -475,27 +547,27 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
 
     @Override
     public void start() {
-        WebviewUtils.callOnWebviewThread(mWebView, "playVideo");
+        mCommandQueue.post("playVideo");
     }
 
     @Override
     public void pause() {
-        WebviewUtils.callOnWebviewThread(mWebView, "pauseVideo");
+        mCommandQueue.post("pauseVideo");
     }
 
     @Override
     public void playPause() {
-        WebviewUtils.callOnWebviewThread(mWebView, "playPause");
+        mCommandQueue.post("playPause");
     }
 
     @Override
     public void stopVideo() {
-        WebviewUtils.callOnWebviewThread(mWebView, "stopVideo");
+        mCommandQueue.post("stopVideo");
     }
 
     @Override
     public void seekTo(int seconds, boolean allowSeekAhead) {
-        WebviewUtils.callOnWebviewThread(mWebView, "seekTo", seconds, allowSeekAhead);
+        mCommandQueue.post("seekTo", seconds, allowSeekAhead);
     }
 
     @Override
@@ -505,37 +577,110 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
 
     @Override
     public void nextVideo() {
-        WebviewUtils.callOnWebviewThread(mWebView, "nextVideo");
+        if (mPlaylistQueue.isEmpty()) {
+            mCommandQueue.post("nextVideo");
+            return;
+        }
+        int index = mPlaylistQueue.moveToNext();
+        if (index != -1) {
+            playQueueItem(index);
+        }
     }
 
     @Override
     public void previousVideo() {
-        WebviewUtils.callOnWebviewThread(mWebView, "previousVideo");
+        if (mPlaylistQueue.isEmpty()) {
+            mCommandQueue.post("previousVideo");
+            return;
+        }
+        int index = mPlaylistQueue.moveToPrevious();
+        if (index != -1) {
+            playQueueItem(index);
+        }
     }
 
     @Override
     public void playVideoAt(int index) {
-        WebviewUtils.callOnWebviewThread(mWebView, "playVideoAt", index);
+        if (mPlaylistQueue.isEmpty()) {
+            mCommandQueue.post("playVideoAt", index);
+            return;
+        }
+        mPlaylistQueue.setCurrentIndex(index);
+        playQueueItem(index);
+    }
+
+    /**
+     * Play an item of the playlist queue : by index while the queue matches the player playlist, by video id once it
+     * has been edited locally.
+     *
+     * @param index item index
+     */
+    private void playQueueItem(final int index) {
+        if (mPlaylistQueue.isDetached()) {
+            mVideoId = mPlaylistQueue.get(index);
+            loadContent("loadVideoById", mVideoId, 0, mConfig.getVideoQuality().getValue());
+        } else {
+            mCommandQueue.post("playVideoAt", index);
+        }
+    }
+
+    /**
+     * Called when a video has ended. While the queue matches the player playlist, the page has already played the
+     * next item of the queue (see {@link #pushNextPlaylistIndex()}). Once edited locally, the next item is loaded by
+     * video id.
+     */
+    void onPlaylistItemEnded() {
+        if (mPlaylistQueue.isEmpty()) {
+            return;
+        }
+        if (mPlaylistQueue.isDetached()) {
+            nextVideo();
+        } else if (mPlaylistQueue.getNextIndex() != -1 && isShowingNowPlayingCard()) {
+            start();
+        }
+    }
+
+    /**
+     * Push the playlist index the page must play when the current item ends : the player only follows its own
+     * playlist order, which differs from the queue when it is shuffled, looped or edited locally (the page then stops
+     * & the next item is loaded by video id).
+     */
+    private void pushNextPlaylistIndex() {
+        if (mCommandQueue == null || mPlaylistQueue.isEmpty()) {
+            return;
+        }
+        int index = mPlaylistQueue.isDetached() ? -1 : mPlaylistQueue.getNextIndex();
+        mCommandQueue.post("setNextPlaylistIndex", index);
+    }
+
+    /**
+     * Get Java side model of the player playlist. It mirrors the playlist loaded in the player & can be edited
+     * locally (items are then played by video id).
+     *
+     * @return
+     */
+    public PlaylistQueue getPlaylistQueue() {
+        return mPlaylistQueue;
     }
 
     @Override
     public void mute() {
-        WebviewUtils.callOnWebviewThread(mWebView, "mute");
+        mCommandQueue.post("mute");
     }
 
     @Override
     public void unMute() {
-        WebviewUtils.callOnWebviewThread(mWebView, "unMute");
+        mCommandQueue.post("unMute");
     }
 
     @Override
     public void moveForward(int seconds) {
-        WebviewUtils.callOnWebviewThread(mWebView, "moveForward", seconds);
+        mCommandQueue.post("moveForward", seconds);
     }
 
     @Override
     public void moveBackward(int seconds) {
-        WebviewUtils.callOnWebviewThread(mWebView, "moveBackward", seconds);
+        mCommandQueue.post("moveBackward", seconds);
     }
 
     @Override
@@ -545,225 +690,388 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
 
     @Override
     public boolean isMuted() throws InterruptedException {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "isMuted");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.isMuted();
         }
-        return mJavascriptInterface.isMuted();
+        Boolean result = blockingQuery("isMuted");
+        return (result != null) ? result : mJavascriptInterface.isMuted();
     }
 
     @Override
     public void setVolume(int volume) {
-        WebviewUtils.callOnWebviewThread(mWebView, "setVolume", volume);
+        mCommandQueue.post("setVolume", volume);
     }
 
     @Override
     public int getVolume() throws InterruptedException {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getVolume");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.getVolume();
         }
-        return mJavascriptInterface.getVolume();
+        Integer result = blockingQuery("getVolume");
+        return (result != null) ? result : mJavascriptInterface.getVolume();
     }
 
     @Override
     public void setSize(int width, int height) {
-        WebviewUtils.callOnWebviewThread(mWebView, "setSize", width, height);
+        mCommandQueue.post("setSize", width, height);
     }
 
     @Override
     public int getPlaybackRate() throws InterruptedException {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getPlaybackRate");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return (int) snapshot.getPlaybackRate();
         }
-        return mJavascriptInterface.getPlaybackRate();
+        Integer result = blockingQuery("getPlaybackRate");
+        return (result != null) ? result : mJavascriptInterface.getPlaybackRate();
     }
 
     @Override
     public void setPlaybackRate(int suggestedRate) {
-        WebviewUtils.callOnWebviewThread(mWebView, "setPlaybackRate", suggestedRate);
+        mCommandQueue.post("setPlaybackRate", suggestedRate);
     }
 
     @Override
     public List<Integer> getAvailablePlaybackRates() throws InterruptedException {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getAvailablePlaybackRateList");
-            mBlock.block(mJavascriptTimeout);
-        }
-        return mJavascriptInterface.getAvailablePlaybackRates();
+        List<Integer> result = blockingQuery("getAvailablePlaybackRateList");
+        return (result != null) ? result : mJavascriptInterface.getAvailablePlaybackRates();
     }
 
     @Override
     public void setLoop(boolean loopPlaylists) {
-        WebviewUtils.callOnWebviewThread(mWebView, "setLoop", loopPlaylists);
+        mPlaylistQueue.setLoop(loopPlaylists);
+        pushNextPlaylistIndex();
     }
 
     @Override
     public void setShuffle(boolean shufflePlaylist) {
-        WebviewUtils.callOnWebviewThread(mWebView, "setShuffle", shufflePlaylist);
+        mPlaylistQueue.setShuffle(shufflePlaylist);
     }
 
     @Override
     public float getVideoLoadedFraction() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getVideoLoadedFraction");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.getVideoLoadedFraction();
         }
-        return mJavascriptInterface.getVideoLoadedFraction();
+        Float result = blockingQuery("getVideoLoadedFraction");
+        return (result != null) ? result : mJavascriptInterface.getVideoLoadedFraction();
     }
 
     @Override
     public VideoState getPlayerState() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getPlayerState");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.getState();
         }
-        return mJavascriptInterface.getPlayerState();
+        VideoState result = blockingQuery("getPlayerState");
+        return (result != null) ? result : mJavascriptInterface.getPlayerState();
     }
 
     @Override
     public float getCurrentPosition() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getCurrentTime");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.getCurrentTime(SystemClock.elapsedRealtime());
         }
-        return mJavascriptInterface.getCurrentTime();
+        Float result = blockingQuery("getCurrentTime");
+        return (result != null) ? result : mJavascriptInterface.getCurrentTime();
     }
 
     @Override
     public void setPlaybackQuality(VideoQuality suggestedQuality) {
-        WebviewUtils.callOnWebviewThread(mWebView, "setPlaybackQuality", suggestedQuality.getValue());
+        mCommandQueue.post("setPlaybackQuality", suggestedQuality.getValue());
     }
 
     @Override
     public VideoQuality getPlaybackQuality() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getPlaybackQuality");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.getPlaybackQuality();
         }
-        return mJavascriptInterface.getPlaybackQuality();
+        VideoQuality result = blockingQuery("getPlaybackQuality");
+        return (result != null) ? result : mJavascriptInterface.getPlaybackQuality();
     }
 
     @Override
     public List<VideoQuality> getAvailableQualityLevels() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getAvailableQualityLevels");
-            mBlock.block(mJavascriptTimeout);
-        }
-        return mJavascriptInterface.getAvailableQualityLevels();
+        List<VideoQuality> result = blockingQuery("getAvailableQualityLevels");
+        return (result != null) ? result : mJavascriptInterface.getAvailableQualityLevels();
     }
 
     @Override
     public float getDuration() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getDuration");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.getDuration();
         }
-        return mJavascriptInterface.getDuration();
+        Float result = blockingQuery("getDuration");
+        return (result != null) ? result : mJavascriptInterface.getDuration();
     }
 
     @Override
     public String getVideoUrl() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getVideoUrl");
-            mBlock.block(mJavascriptTimeout);
-        }
-        return mJavascriptInterface.getVideoUrl();
+        String result = blockingQuery("getVideoUrl");
+        return (result != null) ? result : mJavascriptInterface.getVideoUrl();
     }
 
     @Override
     public String getVideoEmbedCode() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getVideoEmbedCode");
-            mBlock.block(mJavascriptTimeout);
-        }
-        return mJavascriptInterface.getVideoEmbedCode();
+        String result = blockingQuery("getVideoEmbedCode");
+        return (result != null) ? result : mJavascriptInterface.getVideoEmbedCode();
     }
 
     @Override
     public List<String> getPlaylist() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getPlaylist");
-            mBlock.block(mJavascriptTimeout);
+        if (!mPlaylistQueue.isEmpty()) {
+            return new ArrayList<>(mPlaylistQueue.getItems());
         }
-        return mJavascriptInterface.getPlaylist();
+        List<String> result = blockingQuery("getPlaylist");
+        return (result != null) ? result : mJavascriptInterface.getPlaylist();
     }
 
     @Override
     public int getPlaylistIndex() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getPlaylistIndex");
-            mBlock.block(mJavascriptTimeout);
+        if (!mPlaylistQueue.isEmpty()) {
+            return mPlaylistQueue.getCurrentIndex();
         }
-        return mJavascriptInterface.getPlaylistIndex();
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.getPlaylistIndex();
+        }
+        Integer result = blockingQuery("getPlaylistIndex");
+        return (result != null) ? result : mJavascriptInterface.getPlaylistIndex();
     }
 
     @Override
     public String getVideoId() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getVideoId");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.getVideoId();
         }
-        return mJavascriptInterface.getVideoId();
+        String result = blockingQuery("getVideoId");
+        return (result != null) ? result : mJavascriptInterface.getVideoId();
     }
 
     @Override
     public String getVideoTitle() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getVideoTitle");
-            mBlock.block(mJavascriptTimeout);
+        PlayerStateSnapshot snapshot = getStateSnapshot();
+        if (snapshot != null) {
+            return snapshot.getVideoTitle();
         }
-        return mJavascriptInterface.getVideoTitle();
+        String result = blockingQuery("getVideoTitle");
+        return (result != null) ? result : mJavascriptInterface.getVideoTitle();
     }
 
     @Override
     public VideoInfo getVideoInfo() {
-        synchronized (mLock) {
-            mBlock = new ConditionVariable();
-            mJavascriptInterface.setBlock(mBlock);
-            WebviewUtils.callOnWebviewThread(mWebView, "getVideoInfo");
-            mBlock.block(mJavascriptTimeout);
+        VideoInfo result = blockingQuery("getVideoInfo");
+        return (result != null) ? result : mJavascriptInterface.getVideoInfo();
+    }
+
+    @Override
+    public Future<Boolean> isMuted(final IQueryListener<Boolean> listener) {
+        return query("isMuted", listener);
+    }
+
+    @Override
+    public Future<Integer> getVolume(final IQueryListener<Integer> listener) {
+        return query("getVolume", listener);
+    }
+
+    @Override
+    public Future<Integer> getPlaybackRate(final IQueryListener<Integer> listener) {
+        return query("getPlaybackRate", listener);
+    }
+
+    @Override
+    public Future<List<Integer>> getAvailablePlaybackRates(final IQueryListener<List<Integer>> listener) {
+        return query("getAvailablePlaybackRateList", listener);
+    }
+
+    @Override
+    public Future<Float> getVideoLoadedFraction(final IQueryListener<Float> listener) {
+        return query("getVideoLoadedFraction", listener);
+    }
+
+    @Override
+    public Future<VideoState> getPlayerState(final IQueryListener<VideoState> listener) {
+        return query("getPlayerState", listener);
+    }
+
+    @Override
+    public Future<Float> getCurrentPosition(final IQueryListener<Float> listener) {
+        return query("getCurrentTime", listener);
+    }
+
+    @Override
+    public Future<VideoQuality> getPlaybackQuality(final IQueryListener<VideoQuality> listener) {
+        return query("getPlaybackQuality", listener);
+    }
+
+    @Override
+    public Future<List<VideoQuality>> getAvailableQualityLevels(final IQueryListener<List<VideoQuality>> listener) {
+        return query("getAvailableQualityLevels", listener);
+    }
+
+    @Override
+    public Future<Float> getDuration(final IQueryListener<Float> listener) {
+        return query("getDuration", listener);
+    }
+
+    @Override
+    public Future<String> getVideoUrl(final IQueryListener<String> listener) {
+        return query("getVideoUrl", listener);
+    }
+
+    @Override
+    public Future<String> getVideoEmbedCode(final IQueryListener<String> listener) {
+        return query("getVideoEmbedCode", listener);
+    }
+
+    @Override
+    public Future<List<String>> getPlaylist(final IQueryListener<List<String>> listener) {
+        return query("getPlaylist", listener);
+    }
+
+    @Override
+    public Future<Integer> getPlaylistIndex(final IQueryListener<Integer> listener) {
+        return query("getPlaylistIndex", listener);
+    }
+
+    @Override
+    public Future<String> getVideoId(final IQueryListener<String> listener) {
+        return query("getVideoId", listener);
+    }
+
+    @Override
+    public Future<String> getVideoTitle(final IQueryListener<String> listener) {
+        return query("getVideoTitle", listener);
+    }
+
+    @Override
+    public Future<VideoInfo> getVideoInfo(final IQueryListener<VideoInfo> listener) {
+        return query("getVideoInfo", listener);
+    }
+
+    /**
+     * Send an asynchronous query to Javascript. The request id is sent as the first parameter of the JS function & is returned in the response.
+     *
+     * @param methodName JS function name
+     * @param listener   query listener (may be null)
+     * @param <T>        result type
+     * @return pending query
+     */
+    private <T> Future<T> query(final String methodName, final IQueryListener<T> listener) {
+        QueryFuture<T> future = mRequests.register(methodName, listener, mConfig.getJavascriptTimeout());
+        mCommandQueue.post(methodName, future.getRequestId());
+        return future;
+    }
+
+    /**
+     * Send a query to Javascript & wait for its own response (at most javascriptTimeout ms). A response received after the timeout is dropped.
+     *
+     * @param methodName JS function name
+     * @param <T>        result type
+     * @return query result or null if no response has been received in time
+     */
+    private <T> T blockingQuery(final String methodName) {
+        QueryFuture<T> future = mRequests.register(methodName, null, mConfig.getJavascriptTimeout());
+        mCommandQueue.post(methodName, future.getRequestId());
+        try {
+            return future.get(mConfig.getJavascriptTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, methodName + " : no response received after " + mConfig.getJavascriptTimeout() + "ms");
+        } finally {
+            mRequests.discard(future.getRequestId());
+        }
+        return null;
+    }
+
+    @Override
+    public PlayerStateSnapshot getStateSnapshot() {
+        if (mConfig.isStateSnapshot() && mJavascriptInterface != null) {
+            return mJavascriptInterface.getStateSnapshot();
         }
-        return mJavascriptInterface.getVideoInfo();
+        return null;
     }
 
     @Override
     public void playVideo(String videoId) {
+        if (mConfig.isAutoplay()) {
+            loadVideoById(videoId, 0);
+        } else {
+            cueVideoById(videoId, 0);
+        }
+    }
+
+    @Override
+    public void loadVideoById(String videoId, int startSeconds) {
         mVideoId = videoId;
-        init();
+        mPlaylistQueue.clear();
+        loadContent("loadVideoById", videoId, startSeconds, mConfig.getVideoQuality().getValue());
+    }
+
+    @Override
+    public void cueVideoById(String videoId, int startSeconds) {
+        mVideoId = videoId;
+        mPlaylistQueue.clear();
+        loadContent("cueVideoById", videoId, startSeconds, mConfig.getVideoQuality().getValue());
+    }
+
+    @Override
+    public void loadPlaylist(String playlistId, int index, int startSeconds) {
+        mPlaylistId = playlistId;
+        mPlaylistQueue.clear();
+        loadContent("loadPlaylist", playlistId, index, startSeconds, mConfig.getVideoQuality().getValue());
+    }
+
+    @Override
+    public void cuePlaylist(String playlistId, int index, int startSeconds) {
+        mPlaylistId = playlistId;
+        mPlaylistQueue.clear();
+        loadContent("cuePlaylist", playlistId, index, startSeconds, mConfig.getVideoQuality().getValue());
+    }
+
+    /**
+     * Load content in the player already loaded in the page, or reload the page if configuration requires it.
+     *
+     * @param methodName Javascript function loading content
+     * @param params     function parameters
+     */
+    private void loadContent(final String methodName, final Object... params) {
+        if (mReloadRequired || mJavascriptInterface == null) {
+            init();
+        } else if (mJavascriptInterface.isPageLoaded()) {
+            mCommandQueue.post(methodName, params);
+        } else {
+            // page is still loading (eg a pooled player), content is loaded when the page is ready
+            mPendingLoadMethod = methodName;
+            mPendingLoadParams = params;
+        }
+    }
+
+    /**
+     * Called from main thread when the page is loaded.
+     */
+    void onPageLoaded() {
+        if (mSuspended) {
+            // player has been hidden while the page was loading
+            mCommandQueue.post("suspendPlayer");
+        }
+        if (mSizePending) {
+            mSizePending = false;
+            mCommandQueue.post("setSize", getWidth(), getHeight());
+        }
+        if (mPendingLoadMethod != null) {
+            mCommandQueue.post(mPendingLoadMethod, mPendingLoadParams);
+            mPendingLoadMethod = null;
+            mPendingLoadParams = null;
+        }
     }
 
     /**
@@ -773,7 +1081,7 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
      */
     @Override
     public void addPlayerListener(final IPlayerListener listener) {
-        mPlayerListenerList.add(listener);
+        mEventDispatcher.addPlayerListener(listener);
     }
 
     /**
@@ -783,12 +1091,40 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
      */
     @Override
     public void removePlayerListener(final IPlayerListener listener) {
-        mPlayerListenerList.remove(listener);
+        mEventDispatcher.removePlayerListener(listener);
+    }
+
+    /**
+     * Add a startup milestone listener.
+     *
+     * @param listener
+     */
+    public void addStartupListener(final IStartupListener listener) {
+        mEventDispatcher.addStartupListener(listener);
+    }
+
+    /**
+     * Remove startup milestone listener.
+     *
+     * @param listener
+     */
+    public void removeStartupListener(final IStartupListener listener) {
+        mEventDispatcher.removeStartupListener(listener);
+    }
+
+    /**
+     * Get startup milestones of the current page (page loaded, player ready, first playing, loading hidden & page
+     * milestones). Percentiles over all sessions are available in {@link StartupStatistics}.
+     *
+     * @return
+     */
+    public StartupTimeline getStartupTimeline() {
+        return mJavascriptInterface.getTimeline();
     }
 
     @Override
     public void setOnBufferingUpdateListener(IBufferStateListener listener) {
-        mJavascriptInterface.setOnBufferingUpdateListener(listener);
+        mEventDispatcher.setBufferStateListener(listener);
     }
 
     /**
@@ -797,7 +1133,7 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
      * @return
      */
     public MediaSession getMediaSession() {
-        return mMediaSession;
+        return (mSharedMediaSession != null) ? mSharedMediaSession : mMediaSession;
     }
 
     /**
@@ -806,7 +1142,71 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
      * @return
      */
     public boolean isShowingNowPlayingCard() {
-        return mShowNowPlayingCard;
+        return (mSharedMediaSession != null) ? mMediaSessionFocus : mConfig.isShowNowPlayingCard();
+    }
+
+    /**
+     * Use a media session shared with other players instead of creating one. Only the player having the media
+     * session focus publishes its state to it.
+     *
+     * @param mediaSession shared media session (null to use its own media session again)
+     */
+    public void setSharedMediaSession(final MediaSession mediaSession) {
+        MediaSession previous = mSharedMediaSession;
+        mSharedMediaSession = mediaSession;
+        if (mediaSession != null && mMediaSession != null) {
+            mMediaSession.setActive(false);
+            mMediaSession.release();
+            mMediaSession = null;
+        } else if (mediaSession == null && previous != null && mJavascriptInterface != null && !mReleased &&
+                mConfig.isShowNowPlayingCard()) {
+            createMediaSession();
+            mJavascriptInterface.publishMediaSession();
+        }
+    }
+
+    /**
+     * Give/remove the shared media session focus to this player : the player having the focus publishes its state
+     * to the shared media session.
+     *
+     * @param focus true to publish this player state
+     */
+    public void setMediaSessionFocus(final boolean focus) {
+        mMediaSessionFocus = focus;
+        if (mJavascriptInterface != null) {
+            if (focus) {
+                mJavascriptInterface.publishMediaSession();
+            } else {
+                mJavascriptInterface.resetMediaSession();
+            }
+        }
+    }
+
+    /**
+     * Get id of the playlist loaded in this player.
+     *
+     * @return playlist id (null or empty if no playlist has been loaded)
+     */
+    public String getPlaylistId() {
+        return mPlaylistId;
+    }
+
+    /**
+     * Get thumbnail quality from player configuration.
+     *
+     * @return
+     */
+    public ThumbnailQuality getThumbnailQuality() {
+        return mConfig.getThumbnailQuality();
+    }
+
+    /**
+     * Get suggested video quality from player configuration.
+     *
+     * @return
+     */
+    public VideoQuality getSuggestedQuality() {
+        return mConfig.getVideoQuality();
     }
 
     /**
@@ -816,85 +1216,385 @@ public class YoutubeTvView extends FrameLayout implements IYoutubeApi {
      */
     @Override
     public void setOnProgressUpdateListener(IProgressUpdateListener listener) {
-        mJavascriptInterface.setOnProgressUpdateListener(listener);
+        mEventDispatcher.setProgressUpdateListener(listener);
     }
 
     @Override
-    public void closePlayer() {
-        stopVideo();
-        PlaybackState.Builder stateBuilder = new PlaybackState.Builder();
-        stateBuilder.setState(PlaybackState.STATE_PAUSED,
-                12,
-                1);
-        mMediaSession.setPlaybackState(stateBuilder.build());
-        mMediaSession.setActive(false);
-        Log.i(TAG, "closePlayer : " + mMediaSession.isActive());
+    public void setProgressInterval(int interval) {
+        mConfig = mConfig.toBuilder().setProgressInterval(interval).build();
+        if (mProgressIntervalOverride < 0) {
+            mCommandQueue.post("setProgressInterval", interval);
+        }
     }
 
-    public void updateView(Bundle arguments) {
+    /**
+     * Override the configured progress interval without changing the player configuration (eg from a coordinator).
+     *
+     * @param interval interval in milliseconds
+     */
+    void overrideProgressInterval(final int interval) {
+        mProgressIntervalOverride = interval;
+        mCommandQueue.post("setProgressInterval", interval);
+    }
 
-        if (arguments.containsKey("videoId")) {
-            mVideoId = arguments.getString("videoId");
+    /**
+     * Remove progress interval override : the configured interval is applied again.
+     */
+    void clearProgressIntervalOverride() {
+        if (mProgressIntervalOverride >= 0) {
+            mProgressIntervalOverride = -1;
+            mCommandQueue.post("setProgressInterval", mConfig.getProgressInterval());
         }
-        if (arguments.containsKey("playlistId")) {
-            mPlaylistId = arguments.getString("playlistId");
+    }
+
+    @Override
+    public void setProgressEnabled(boolean enabled) {
+        mProgressEnabled = enabled;
+        updateProgressState();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateProgressState();
+        updateActiveState();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateProgressState();
+        updateActiveState();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateActiveState();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        updateActiveState();
+    }
+
+    /**
+     * To be called from host activity/fragment onPause : pause the player, stop Javascript timers & release the
+     * player after idle release delay.
+     */
+    public void onPause() {
+        mLifecycleResumed = false;
+        updateActiveState();
+        if (mWebView != null) {
+            mWebView.onPause();
         }
-        if (arguments.containsKey("videoQuality")) {
-            mVideoQuality = VideoQuality.getVideoQuality(arguments.getString("videoQuality"));
+    }
+
+    /**
+     * To be called from host activity/fragment onResume : resume the player (restored at its last position if it
+     * has been released).
+     */
+    public void onResume() {
+        mLifecycleResumed = true;
+        if (mWebView != null) {
+            mWebView.onResume();
         }
-        if (arguments.containsKey("showRelatedVideos")) {
-            mShowRelatedVideos = arguments.getBoolean("showRelatedVideos") ? 1 : 0;
+        updateActiveState();
+    }
+
+    /**
+     * Set time after which a hidden or paused player releases its page, video surface & media session. The player
+     * is restored at the same position when shown again.
+     *
+     * @param delay delay in milliseconds (-1 to never release)
+     */
+    public void setIdleReleaseDelay(final int delay) {
+        mConfig = mConfig.toBuilder().setIdleReleaseDelay(delay).build();
+        if (mSuspended) {
+            scheduleRelease();
         }
-        if (arguments.containsKey("showVideoInfo")) {
-            mShowVideoInfo = arguments.getBoolean("showVideoInfo") ? 1 : 0;
+    }
+
+    /**
+     * Check if the player has been paused because the view is hidden or in background.
+     *
+     * @return
+     */
+    public boolean isSuspended() {
+        return mSuspended;
+    }
+
+    /**
+     * Suspend the player when the view is hidden, detached or in background & resume it when it is shown again.
+     */
+    private void updateActiveState() {
+
+        if (mJavascriptInterface == null) {
+            return;
         }
-        if (arguments.containsKey("showControls")) {
-            mShowControls = VideoControls.getVideoControls(arguments.getInt("showControls"));
+        boolean active = !mIdle && mLifecycleResumed && isAttachedToWindow() && isShown() &&
+                getWindowVisibility() == VISIBLE;
+
+        if (active) {
+            mLifecycleHandler.removeCallbacks(mReleaseTask);
+            if (mReleased) {
+                restorePlayer();
+            } else if (mSuspended) {
+                mSuspended = false;
+                mCommandQueue.post("resumePlayer", mResumePlaying ? 1 : 0);
+            }
+        } else if (!mSuspended) {
+            mSuspended = true;
+            if (!mReleased) {
+                VideoState state = mJavascriptInterface.getLastState();
+                mResumePlaying = state == VideoState.PLAYING || state == VideoState.BUFFERING ||
+                        (state == VideoState.UNSTARTED && mResumePlaying);
+                mResumePosition = mJavascriptInterface.getPlaybackPosition();
+                mCommandQueue.post("suspendPlayer");
+            }
+            scheduleRelease();
+        }
+    }
+
+    /**
+     * Set idle state of a pooled player. An idle player is suspended while it waits in the pool, it is resumed without
+     * playing when it leaves the pool even if it is not attached yet (a released page is reloaded by next content
+     * load).
+     *
+     * @param idle idle state
+     */
+    void setIdle(final boolean idle) {
+        mIdle = idle;
+        if (idle) {
+            updateActiveState();
+        } else if (mSuspended) {
+            mSuspended = false;
+            if (!mReleased) {
+                mCommandQueue.post("resumePlayer", 0);
+            }
+        }
+    }
+
+    /**
+     * Reset loaded content of a player given back to a pool : video & playlist ids, pending load, restore state &
+     * playlist queue.
+     *
+     * @param config configuration of idle players
+     */
+    void resetContent(final PlayerConfig config) {
+        setConfig(config);
+        mVideoId = config.getVideoId();
+        mPlaylistId = config.getPlaylistId();
+        mPendingLoadMethod = null;
+        mPendingLoadParams = null;
+        mRestorePending = false;
+        mResumePlaying = false;
+        mResumePosition = 0;
+        mPlaylistQueue.clear();
+        mPlaylistQueue.setShuffle(false);
+        mPlaylistQueue.setLoop(false);
+    }
+
+    /**
+     * Schedule release of a suspended player after idle release delay. Detached players (eg in a pool) are kept.
+     */
+    private void scheduleRelease() {
+        mLifecycleHandler.removeCallbacks(mReleaseTask);
+        if (!mReleased && mConfig.getIdleReleaseDelay() >= 0 && isAttachedToWindow()) {
+            mLifecycleHandler.postDelayed(mReleaseTask, mConfig.getIdleReleaseDelay());
         }
-        if (arguments.containsKey("autoHide")) {
-            mAutohide = VideoAutoHide.getVideoControls(arguments.getInt("autoHide"));
+    }
+
+    /**
+     * Release page (video decoder & surface), media session & pending background work of a suspended player.
+     */
+    private void releasePlayer() {
+        if (!mSuspended || mReleased) {
+            return;
         }
-        if (arguments.containsKey("closedCaptions")) {
-            mClosedCaptions = arguments.getBoolean("closedCaptions") ? 1 : 0;
+        Log.v(TAG, "release idle player at " + mResumePosition + "ms");
+        mReleased = true;
+        mReloadRequired = true;
+        mJavascriptInterface.resetMediaSession();
+        mTaskExecutor.cancelAll();
+        if (mMediaSession != null) {
+            mMediaSession.setActive(false);
+            mMediaSession.release();
+            mMediaSession = null;
         }
-        if (arguments.containsKey("videoAnnotation")) {
-            mVideoAnnotation = arguments.getBoolean("videoAnnotation") ? 1 : 0;
+        mWebView.loadUrl("about:blank");
+    }
+
+    /**
+     * Reload a released player at its saved position.
+     */
+    private void restorePlayer() {
+        String videoId = mJavascriptInterface.getLastVideoId();
+        if (videoId != null && !videoId.isEmpty()) {
+            mVideoId = videoId;
         }
-        if (arguments.containsKey("debug")) {
-            mDebug = arguments.getBoolean("debug") ? 1 : 0;
+        Log.v(TAG, "restore player " + mVideoId + " at " + mResumePosition + "ms");
+        mSuspended = false;
+        mRestorePending = true;
+        init();
+    }
+
+    /**
+     * Enable Javascript progress updates only if they are requested & the view is visible.
+     */
+    private void updateProgressState() {
+        boolean active = mProgressEnabled && isShown() && getWindowVisibility() == VISIBLE;
+        if (active != mProgressActive && mCommandQueue != null) {
+            mProgressActive = active;
+            mCommandQueue.post("setProgressEnabled", active ? 1 : 0);
         }
-        if (arguments.containsKey("loadingBackgroundColor")) {
-            mLoadBackgroundColor = arguments.getInt("loadingBackgroundColor");
+    }
+
+    /**
+     * Set executor used for background work (thumbnail probing, artwork decoding, media session updates). By
+     * default, a small pool shared by all players is used.
+     *
+     * @param executor executor service
+     */
+    public void setExecutor(ExecutorService executor) {
+        mTaskExecutor.setExecutor(executor);
+    }
+
+    /**
+     * Set executor on which player, progress & buffer listeners are called (main thread by default). It must
+     * execute tasks in order. Listeners running off main thread must not touch views : the leanback glue
+     * ({@link fr.bmartel.youtubetv.media.MediaPlayerGlue}) hands its events back to main thread itself.
+     *
+     * @param executor target executor
+     */
+    public void setListenerExecutor(Executor executor) {
+        mEventDispatcher.setTarget(executor);
+    }
+
+    /**
+     * Get page bootstrap milestones (iframeApiReady, domContentLoaded, playerReady, firstPlaying) of the current
+     * page.
+     *
+     * @return time in milliseconds since navigation start by milestone name
+     */
+    public Map<String, Float> getBootstrapTimings() {
+        return mJavascriptInterface.getBootstrapTimings();
+    }
+
+    /**
+     * Get round trip metrics of Javascript queries (latency, timeouts, late replies & pending queries by JS
+     * function), used to size javascriptTimeout.
+     *
+     * @return
+     */
+    public BridgeMetrics getBridgeMetrics() {
+        return mRequests.getMetrics();
+    }
+
+    /**
+     * Remove all player, startup, progress & buffer listeners.
+     */
+    public void clearListeners() {
+        mEventDispatcher.clearListeners();
+    }
+
+    /**
+     * Release all resources held by this view. The view must not be used afterwards.
+     */
+    public void destroy() {
+        mLifecycleHandler.removeCallbacks(mReleaseTask);
+        stopVideo();
+        mJavascriptInterface.resetMediaSession();
+        mTaskExecutor.cancelAll();
+        clearListeners();
+        if (mMediaSession != null) {
+            mMediaSession.setActive(false);
+            mMediaSession.release();
+            mMediaSession = null;
         }
-        if (arguments.containsKey("autoplay")) {
-            mAutoPlay = arguments.getBoolean("autoplay") ? 1 : 0;
+        mWebView.removeJavascriptInterface("JSInterface");
+        mWebView.destroy();
+    }
+
+    @Override
+    public void closePlayer() {
+        stopVideo();
+        mJavascriptInterface.resetMediaSession();
+        mTaskExecutor.cancelAll();
+        PlaybackState.Builder stateBuilder = new PlaybackState.Builder();
+        stateBuilder.setState(PlaybackState.STATE_PAUSED,
+                12,
+                1);
+        if (mMediaSession != null) {
+            mMediaSession.setPlaybackState(stateBuilder.build());
+            mMediaSession.setActive(false);
+            Log.i(TAG, "closePlayer : " + mMediaSession.isActive());
         }
-        if (arguments.containsKey("userAgentString")) {
-            mUserAgent = UserAgents.getUserAgent(arguments.getInt("userAgentString"));
+    }
+
+    /**
+     * Update player configuration. Parameters which can't be changed in the running player (user agent, controls,
+     * player language...) are applied on next {@link #playVideo(String)} call which then reloads the page. Others
+     * are applied to the running player.
+     *
+     * @param arguments player configuration (keys defined in {@link PlayerConfig})
+     */
+    public void updateView(Bundle arguments) {
+        setConfig(mConfig.toBuilder().apply(arguments).build());
+    }
+
+    /**
+     * Set player configuration. Only changes classified as {@link ConfigChange#RELOAD} reload the page (on next
+     * {@link #playVideo(String)} call), others are applied to the running player.
+     *
+     * @param config player configuration
+     * @return changes applied
+     */
+    public ConfigDiff setConfig(final PlayerConfig config) {
+
+        ConfigDiff diff = mConfig.diff(config);
+        mConfig = config;
+
+        if (diff.isChanged(PlayerConfig.KEY_VIDEO_ID)) {
+            mVideoId = config.getVideoId();
         }
-        if (arguments.containsKey("showBorder")) {
-            mShowBorder = arguments.getBoolean("showBorder");
+        if (diff.isChanged(PlayerConfig.KEY_PLAYLIST_ID)) {
+            mPlaylistId = config.getPlaylistId();
         }
-        if (arguments.containsKey("borderWidth")) {
-            mBorderWidth = arguments.getInt("borderWidth");
+        if (diff.requiresReload()) {
+            mReloadRequired = true;
         }
-        if (arguments.containsKey("borderColor")) {
-            mBorderColor = arguments.getInt("borderColor");
+        if (mWebView == null) {
+            return diff;
         }
-        if (arguments.containsKey("thumbnailQuality")) {
-            mThumbnailQuality = ThumbnailQuality.getThumbnail(arguments.getInt("thumbnailQuality"));
+        setBorder();
+        mWebView.setBackgroundColor(config.getLoadingBackgroundColor());
+
+        if (diff.isChanged(PlayerConfig.KEY_IDLE_RELEASE_DELAY) && mSuspended) {
+            scheduleRelease();
         }
-        if (arguments.containsKey("closedCaptionLangPref")) {
-            mClosedCaptionLangPref = arguments.getString("closedCaptionLangPref");
+        if (mReloadRequired || !mJavascriptInterface.isPageLoaded()) {
+            return diff;
         }
-        if (arguments.containsKey("playerLanguage")) {
-            mPlayerLanguage = arguments.getString("playerLanguage");
+        if (diff.isChanged(PlayerConfig.KEY_VIDEO_QUALITY)) {
+            mCommandQueue.post("setPlaybackQuality", config.getVideoQuality().getValue());
         }
-        if (arguments.containsKey("javascriptTimeout")) {
-            mJavascriptTimeout = arguments.getInt("javascriptTimeout");
+        if (diff.isChanged(PlayerConfig.KEY_CLOSED_CAPTIONS)) {
+            mCommandQueue.post("setClosedCaptions", config.isClosedCaptions());
         }
-        if (arguments.containsKey("showNowPlayingCard")) {
-            mShowNowPlayingCard = arguments.getBoolean("showNowPlayingCard");
+        if (diff.isChanged(PlayerConfig.KEY_PROGRESS_INTERVAL) && mProgressIntervalOverride < 0) {
+            mCommandQueue.post("setProgressInterval", config.getProgressInterval());
         }
+        return diff;
+    }
+
+    /**
+     * Get player configuration.
+     *
+     * @return
+     */
+    public PlayerConfig getConfig() {
+        return mConfig;
     }
 }
@@ -0,0 +1,369 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv;
+
+import android.content.Context;
+import android.content.Intent;
+import android.media.session.MediaSession;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.bmartel.youtubetv.listener.IPlayerListener;
+import fr.bmartel.youtubetv.model.VideoInfo;
+import fr.bmartel.youtubetv.model.VideoQuality;
+import fr.bmartel.youtubetv.model.VideoState;
+
+/**
+ * Coordinate a group of players displayed at the same time (split screen, mosaic) : only the focused player is
+ * heard, uses its configured quality, sends frequent progress updates & publishes to the media session. Other
+ * players are muted, step down their quality to their tile size & send progress updates less frequently. Must be
+ * used from main thread.
+ *
+ * @author Bertrand Martel
+ */
+public class YoutubeTvViewCoordinator {
+
+    /**
+     * Media session tag of the shared media session.
+     */
+    private final static String MEDIA_SESSION_TAG = "fr.bmartel.youtubetv.SharedMediaSession";
+
+    /**
+     * coordinated players.
+     */
+    private final List<YoutubeTvView> mViews = new ArrayList<>();
+
+    /**
+     * player listeners registered on each player.
+     */
+    private final Map<YoutubeTvView, IPlayerListener> mListeners = new HashMap<>();
+
+    /**
+     * focus trackers of each player.
+     */
+    private final Map<YoutubeTvView, FocusTracker> mFocusTrackers = new HashMap<>();
+
+    /**
+     * media session shared by all players.
+     */
+    private MediaSession mMediaSession;
+
+    /**
+     * player having the focus.
+     */
+    private YoutubeTvView mFocusedView;
+
+    /**
+     * max quality of players which don't have the focus.
+     */
+    private VideoQuality mBackgroundQuality = VideoQuality.MEDIUM;
+
+    /**
+     * interval in milliseconds between two progress updates of the focused player.
+     */
+    private int mFocusedProgressInterval = YoutubeTvConst.DEFAULT_PROGRESS_INTERVAL;
+
+    /**
+     * interval in milliseconds between two progress updates of players which don't have the focus.
+     */
+    private int mBackgroundProgressInterval = YoutubeTvConst.DEFAULT_BACKGROUND_PROGRESS_INTERVAL;
+
+    /**
+     * Build coordinator with a media session shared by all players.
+     *
+     * @param context android context
+     */
+    public YoutubeTvViewCoordinator(final Context context) {
+        mMediaSession = new MediaSession(context, MEDIA_SESSION_TAG);
+        mMediaSession.setCallback(new MediaSession.Callback() {
+            @Override
+            public boolean onMediaButtonEvent(Intent mediaButtonIntent) {
+                // Consume the media button event here. Should not send it to other apps.
+                return true;
+            }
+        });
+        mMediaSession.setFlags(MediaSession.FLAG_HANDLES_MEDIA_BUTTONS |
+                MediaSession.FLAG_HANDLES_TRANSPORT_CONTROLS);
+        mMediaSession.setActive(true);
+    }
+
+    /**
+     * Add a player to the group. The first player added gets the focus. The coordinator follows focus changes of the
+     * player & its children through a global focus listener (the player OnFocusChangeListener is left untouched).
+     *
+     * @param view player view
+     */
+    public void add(final YoutubeTvView view) {
+
+        if (mViews.contains(view)) {
+            return;
+        }
+        mViews.add(view);
+        view.setSharedMediaSession(mMediaSession);
+
+        IPlayerListener listener = new IPlayerListener() {
+            @Override
+            public void onPlayerReady(VideoInfo videoInfo) {
+                // mute/quality commands sent before the player was ready have been ignored
+                apply(view);
+            }
+
+            @Override
+            public void onPlayerStateChange(VideoState state, long position, float speed, float duration, VideoInfo videoInfo) {
+            }
+        };
+        mListeners.put(view, listener);
+        view.addPlayerListener(listener);
+
+        FocusTracker focusTracker = new FocusTracker(view);
+        mFocusTrackers.put(view, focusTracker);
+        focusTracker.start();
+
+        if (mFocusedView == null) {
+            mFocusedView = view;
+        }
+        apply(view);
+    }
+
+    /**
+     * Remove a player from the group. The player keeps its current mute & quality settings, its configured progress
+     * interval & its own media session are restored. If it had the focus, the focus goes to the first remaining
+     * player.
+     *
+     * @param view player view
+     */
+    public void remove(final YoutubeTvView view) {
+
+        if (!mViews.remove(view)) {
+            return;
+        }
+        view.removePlayerListener(mListeners.remove(view));
+        mFocusTrackers.remove(view).stop();
+        view.setMediaSessionFocus(false);
+        view.setSharedMediaSession(null);
+        view.clearProgressIntervalOverride();
+
+        if (view == mFocusedView) {
+            mFocusedView = null;
+            if (!mViews.isEmpty()) {
+                setFocused(mViews.get(0));
+            }
+        }
+    }
+
+    /**
+     * Give the focus to a player of the group.
+     *
+     * @param view player view
+     */
+    public void setFocused(final YoutubeTvView view) {
+
+        if (view == mFocusedView || !mViews.contains(view)) {
+            return;
+        }
+        YoutubeTvView previous = mFocusedView;
+        mFocusedView = view;
+        if (previous != null) {
+            apply(previous);
+        }
+        apply(view);
+    }
+
+    /**
+     * Get player having the focus.
+     *
+     * @return focused player or null if the group is empty
+     */
+    public YoutubeTvView getFocused() {
+        return mFocusedView;
+    }
+
+    /**
+     * Get coordinated players.
+     *
+     * @return
+     */
+    public List<YoutubeTvView> getViews() {
+        return new ArrayList<>(mViews);
+    }
+
+    /**
+     * Get media session shared by all players.
+     *
+     * @return
+     */
+    public MediaSession getMediaSession() {
+        return mMediaSession;
+    }
+
+    /**
+     * Set max quality of players which don't have the focus.
+     *
+     * @param quality max quality
+     */
+    public void setBackgroundQuality(final VideoQuality quality) {
+        mBackgroundQuality = quality;
+        applyAll();
+    }
+
+    /**
+     * Set interval between two progress updates of the focused player & of other players.
+     *
+     * @param focusedInterval    interval in milliseconds for the focused player
+     * @param backgroundInterval interval in milliseconds for other players
+     */
+    public void setProgressIntervals(final int focusedInterval, final int backgroundInterval) {
+        mFocusedProgressInterval = focusedInterval;
+        mBackgroundProgressInterval = backgroundInterval;
+        applyAll();
+    }
+
+    /**
+     * Remove all players & release the shared media session.
+     */
+    public void release() {
+        for (YoutubeTvView view : new ArrayList<>(mViews)) {
+            remove(view);
+        }
+        if (mMediaSession != null) {
+            mMediaSession.setActive(false);
+            mMediaSession.release();
+            mMediaSession = null;
+        }
+    }
+
+    private void applyAll() {
+        for (YoutubeTvView view : mViews) {
+            apply(view);
+        }
+    }
+
+    /**
+     * Apply focused/background settings to a player.
+     *
+     * @param view player view
+     */
+    private void apply(final YoutubeTvView view) {
+        if (view == mFocusedView) {
+            view.unMute();
+            view.setPlaybackQuality(view.getSuggestedQuality());
+            view.overrideProgressInterval(mFocusedProgressInterval);
+            view.setMediaSessionFocus(true);
+        } else {
+            view.mute();
+            view.setPlaybackQuality(getTileQuality(view));
+            view.overrideProgressInterval(mBackgroundProgressInterval);
+            view.setMediaSessionFocus(false);
+        }
+    }
+
+    /**
+     * Get quality matching the tile height, bounded by background quality & by player configured quality.
+     *
+     * @param view player view
+     * @return
+     */
+    private VideoQuality getTileQuality(final YoutubeTvView view) {
+
+        int height = view.getHeight();
+        VideoQuality quality;
+
+        if (height <= 0) {
+            quality = mBackgroundQuality;
+        } else if (height <= 144) {
+            quality = VideoQuality.TINY;
+        } else if (height <= 240) {
+            quality = VideoQuality.SMALL;
+        } else if (height <= 360) {
+            quality = VideoQuality.MEDIUM;
+        } else if (height <= 480) {
+            quality = VideoQuality.LARGE;
+        } else {
+            quality = VideoQuality.HD_720;
+        }
+        if (quality.getResolutionRank() > mBackgroundQuality.getResolutionRank()) {
+            quality = mBackgroundQuality;
+        }
+        VideoQuality suggested = view.getSuggestedQuality();
+        if (suggested != VideoQuality.AUTO && quality.getResolutionRank() > suggested.getResolutionRank()) {
+            quality = suggested;
+        }
+        return quality;
+    }
+
+    /**
+     * Give the focus to a player when it or one of its children gets focused. The global focus listener is moved to
+     * the window view tree when the player is attached.
+     */
+    private class FocusTracker implements ViewTreeObserver.OnGlobalFocusChangeListener,
+            View.OnAttachStateChangeListener {
+
+        private final YoutubeTvView mView;
+
+        FocusTracker(final YoutubeTvView view) {
+            mView = view;
+        }
+
+        void start() {
+            mView.addOnAttachStateChangeListener(this);
+            if (mView.isAttachedToWindow()) {
+                mView.getViewTreeObserver().addOnGlobalFocusChangeListener(this);
+            }
+        }
+
+        void stop() {
+            mView.removeOnAttachStateChangeListener(this);
+            if (mView.isAttachedToWindow()) {
+                mView.getViewTreeObserver().removeOnGlobalFocusChangeListener(this);
+            }
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            v.getViewTreeObserver().addOnGlobalFocusChangeListener(this);
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            v.getViewTreeObserver().removeOnGlobalFocusChangeListener(this);
+        }
+
+        @Override
+        public void onGlobalFocusChanged(View oldFocus, View newFocus) {
+            View current = newFocus;
+            while (current != null) {
+                if (current == mView) {
+                    setFocused(mView);
+                    return;
+                }
+                current = (current.getParent() instanceof View) ? (View) current.getParent() : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import fr.bmartel.youtubetv.config.PlayerConfig;
+
+/**
+ * Pool of pre-warmed players : idle views have the Youtube iframe API already loaded so that playing a video only
+ * loads it in an existing player instead of reloading the whole page. Idle views are suspended (no autoplay, no
+ * Javascript timers) until they are acquired. Must be used from main thread.
+ *
+ * @author Bertrand Martel
+ */
+public class YoutubeTvViewPool {
+
+    /**
+     * context used to create views.
+     */
+    private final Context mContext;
+
+    /**
+     * configuration applied to acquired views.
+     */
+    private final PlayerConfig mConfig;
+
+    /**
+     * configuration of idle views (autoplay disabled).
+     */
+    private final PlayerConfig mIdleConfig;
+
+    /**
+     * number of idle views to keep warm.
+     */
+    private final int mSize;
+
+    /**
+     * idle views.
+     */
+    private final Deque<YoutubeTvView> mIdleViews = new ArrayDeque<>();
+
+    /**
+     * Handler used to refill the pool after an acquisition.
+     */
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * task creating idle views until the pool is full.
+     */
+    private final Runnable mPrewarmTask = new Runnable() {
+        @Override
+        public void run() {
+            prewarm();
+        }
+    };
+
+    /**
+     * Build player pool.
+     *
+     * @param context android context
+     * @param size    number of idle views to keep warm
+     * @param config  player configuration (same keys as {@link YoutubeTvView#updateView(Bundle)}, may be null)
+     */
+    public YoutubeTvViewPool(final Context context, final int size, final Bundle config) {
+        mContext = context;
+        mSize = size;
+        PlayerConfig.Builder builder = new PlayerConfig.Builder();
+        if (config != null) {
+            builder.apply(config);
+        }
+        mConfig = builder.build();
+        mIdleConfig = builder.setAutoplay(false).build();
+    }
+
+    /**
+     * Create idle views until the pool is full.
+     */
+    public void prewarm() {
+        mHandler.removeCallbacks(mPrewarmTask);
+        while (mIdleViews.size() < mSize) {
+            mIdleViews.add(createView());
+        }
+    }
+
+    /**
+     * Get a player & play this video in it. A warm view is used if available, the pool is refilled afterwards.
+     *
+     * @param videoId video id
+     * @return player view (not attached to any parent)
+     */
+    public YoutubeTvView acquire(final String videoId) {
+        YoutubeTvView view = acquire();
+        view.playVideo(videoId);
+        return view;
+    }
+
+    /**
+     * Get a warm player without loading any video in it (eg to cue a playlist). The pool is refilled afterwards.
+     *
+     * @return player view (not attached to any parent)
+     */
+    public YoutubeTvView acquire() {
+        YoutubeTvView view = mIdleViews.poll();
+        if (view == null) {
+            view = createView();
+        }
+        view.setConfig(mConfig);
+        view.setIdle(false);
+        mHandler.post(mPrewarmTask);
+        return view;
+    }
+
+    /**
+     * Give a player back to the pool. Video is stopped, listeners are removed, loaded content & playlist queue are
+     * reset & the view is suspended. If the pool is full, the view is destroyed.
+     *
+     * @param view player view
+     */
+    public void release(final YoutubeTvView view) {
+        if (view.getParent() instanceof ViewGroup) {
+            ((ViewGroup) view.getParent()).removeView(view);
+        }
+        view.clearListeners();
+        if (mIdleViews.size() < mSize && !mIdleViews.contains(view)) {
+            view.stopVideo();
+            view.resetContent(mIdleConfig);
+            view.setIdle(true);
+            mIdleViews.add(view);
+        } else if (!mIdleViews.contains(view)) {
+            view.destroy();
+        }
+    }
+
+    /**
+     * Destroy all idle views.
+     */
+    public void clear() {
+        mHandler.removeCallbacks(mPrewarmTask);
+        while (!mIdleViews.isEmpty()) {
+            mIdleViews.poll().destroy();
+        }
+    }
+
+    /**
+     * Get number of idle views.
+     *
+     * @return
+     */
+    public int getIdleCount() {
+        return mIdleViews.size();
+    }
+
+    private YoutubeTvView createView() {
+        YoutubeTvView view = new YoutubeTvView(mContext, mIdleConfig);
+        view.setIdle(true);
+        return view;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.cache;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import fr.bmartel.youtubetv.YoutubeTvConst;
+
+/**
+ * Memory-bounded cache of decoded artwork used for the now playing card. Artworks are downsampled to the size
+ * actually displayed & concurrent fetches of the same video are de-duplicated. Evicted bitmaps are not reused as
+ * inBitmap since every cached bitmap has been handed out (media session metadata, prefetcher) & may still be in use.
+ *
+ * @author Bertrand Martel
+ */
+public class ArtworkCache {
+
+    private final static String TAG = ArtworkCache.class.getSimpleName();
+
+    private static ArtworkCache mInstance;
+
+    /**
+     * decoded bitmaps, sized in bytes.
+     */
+    private final LruCache<String, Bitmap> mMemoryCache;
+
+    /**
+     * fetches in progress by video id.
+     */
+    private final Map<String, Fetch> mFetches = new HashMap<>();
+
+    /**
+     * artwork target width in pixels.
+     */
+    private final int mTargetWidth;
+
+    /**
+     * artwork target height in pixels.
+     */
+    private final int mTargetHeight;
+
+    /**
+     * Build artwork cache.
+     *
+     * @param maxSize      max size of decoded bitmaps in bytes
+     * @param targetWidth  width at which artworks are displayed
+     * @param targetHeight height at which artworks are displayed
+     */
+    public ArtworkCache(final int maxSize, final int targetWidth, final int targetHeight) {
+        mTargetWidth = targetWidth;
+        mTargetHeight = targetHeight;
+        mMemoryCache = new LruCache<String, Bitmap>(maxSize) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Get shared artwork cache.
+     *
+     * @return
+     */
+    public static synchronized ArtworkCache getInstance() {
+        if (mInstance == null) {
+            mInstance = new ArtworkCache(YoutubeTvConst.ARTWORK_CACHE_SIZE,
+                    YoutubeTvConst.ARTWORK_WIDTH,
+                    YoutubeTvConst.ARTWORK_HEIGHT);
+        }
+        return mInstance;
+    }
+
+    /**
+     * Get artwork for this video, downloading & decoding it if not in cache. This is blocking & must not be called
+     * from main thread. If the same video is already being fetched, this waits for that fetch.
+     *
+     * @param videoId      youtube video id
+     * @param thumbnailUrl thumbnail URL
+     * @return decoded artwork or null if it couldn't be fetched
+     */
+    public Bitmap getArtwork(final String videoId, final String thumbnailUrl) {
+
+        Bitmap bitmap = mMemoryCache.get(videoId);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        Fetch fetch;
+        boolean owner = false;
+
+        synchronized (mFetches) {
+            fetch = mFetches.get(videoId);
+            if (fetch == null) {
+                fetch = new Fetch();
+                mFetches.put(videoId, fetch);
+                owner = true;
+            }
+        }
+
+        if (!owner) {
+            try {
+                fetch.mDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return fetch.mBitmap;
+        }
+
+        try {
+            bitmap = download(thumbnailUrl);
+            if (bitmap != null) {
+                mMemoryCache.put(videoId, bitmap);
+            }
+            fetch.mBitmap = bitmap;
+        } finally {
+            synchronized (mFetches) {
+                mFetches.remove(videoId);
+            }
+            fetch.mDone.countDown();
+        }
+        return bitmap;
+    }
+
+    /**
+     * Remove all artworks.
+     */
+    public void clear() {
+        mMemoryCache.evictAll();
+    }
+
+    /**
+     * Download & decode artwork.
+     *
+     * @param thumbnailUrl thumbnail URL
+     * @return decoded bitmap or null if an error occured
+     */
+    private Bitmap download(final String thumbnailUrl) {
+
+        if (thumbnailUrl == null || thumbnailUrl.isEmpty()) {
+            return null;
+        }
+
+        byte[] data;
+        HttpURLConnection connection = null;
+
+        try {
+            connection = (HttpURLConnection) new URL(thumbnailUrl).openConnection();
+            connection.setConnectTimeout(YoutubeTvConst.HTTP_TIMEOUT);
+            connection.setReadTimeout(YoutubeTvConst.HTTP_TIMEOUT);
+
+            InputStream inputStream = connection.getInputStream();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            inputStream.close();
+            data = outputStream.toByteArray();
+        } catch (IOException e) {
+            Log.e(TAG, "download artwork", e);
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        return decode(data);
+    }
+
+    /**
+     * Decode artwork downsampled to target size.
+     *
+     * @param data encoded image
+     * @return decoded bitmap
+     */
+    private Bitmap decode(final byte[] data) {
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight);
+        options.inJustDecodeBounds = false;
+
+        return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+
+    /**
+     * Get the largest power of 2 sample size that keeps both dimensions above target size.
+     *
+     * @param width  image width
+     * @param height image height
+     * @return sample size
+     */
+    private int calculateInSampleSize(final int width, final int height) {
+        int inSampleSize = 1;
+        while ((width / (inSampleSize * 2)) >= mTargetWidth && (height / (inSampleSize * 2)) >= mTargetHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * A fetch in progress.
+     */
+    private static class Fetch {
+
+        private final CountDownLatch mDone = new CountDownLatch(1);
+
+        private volatile Bitmap mBitmap;
+    }
+}
@@ -0,0 +1,856 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.cache;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import android.util.LruCache;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.bmartel.youtubetv.YoutubeTvConst;
+
+/**
+ * Cache of static resources loaded by the player page (iframe API, player scripts & stylesheets, thumbnails) used
+ * from WebViewClient#shouldInterceptRequest. Resources are kept in a memory hot tier & in a size-bounded LRU disk
+ * cache. Stale resources are revalidated with their ETag/Last-Modified validators. Downloaded resources are streamed to
+ * the webview as they are received & stored once their body has been read in full.
+ *
+ * @author Bertrand Martel
+ */
+public class ResourceCache {
+
+    private final static String TAG = ResourceCache.class.getSimpleName();
+
+    /**
+     * disk cache directory (in application cache directory).
+     */
+    private final static String DISK_DIRECTORY = "youtubetv-resources";
+
+    private final static String META_SUFFIX = ".meta";
+
+    /**
+     * suffix of files being written (renamed once complete).
+     */
+    private final static String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * max size in bytes of a resource kept in memory.
+     */
+    private final static int MAX_MEMORY_ENTRY_SIZE = 256 * 1024;
+
+    /**
+     * response headers kept with a cached resource.
+     */
+    private final static String[] CACHED_HEADERS = new String[]{
+            "Access-Control-Allow-Origin",
+            "Timing-Allow-Origin",
+            "Cache-Control"
+    };
+
+    /**
+     * request headers not forwarded (response body is decoded & served in full).
+     */
+    private final static String[] SKIPPED_REQUEST_HEADERS = new String[]{
+            "Accept-Encoding",
+            "Range",
+            "If-None-Match",
+            "If-Modified-Since"
+    };
+
+    private static ResourceCache mInstance;
+
+    /**
+     * memory hot tier, sized in bytes.
+     */
+    private final LruCache<String, Resource> mMemoryCache;
+
+    /**
+     * disk entries in access order with their size in bytes.
+     */
+    private final LinkedHashMap<String, Long> mDiskIndex = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * max size of disk cache in bytes.
+     */
+    private final long mMaxDiskSize;
+
+    /**
+     * current size of disk cache in bytes.
+     */
+    private long mDiskSize;
+
+    /**
+     * disk cache directory (null if disabled).
+     */
+    private File mDirectory;
+
+    /**
+     * downloads in progress by resource key, counted down when the response body is closed.
+     */
+    private final Map<String, CountDownLatch> mDownloads = new HashMap<>();
+
+    private final AtomicInteger mMemoryHits = new AtomicInteger();
+    private final AtomicInteger mDiskHits = new AtomicInteger();
+    private final AtomicInteger mRevalidations = new AtomicInteger();
+    private final AtomicInteger mMisses = new AtomicInteger();
+
+    /**
+     * Build resource cache.
+     *
+     * @param maxMemorySize max size of memory tier in bytes
+     * @param maxDiskSize   max size of disk cache in bytes
+     */
+    public ResourceCache(final int maxMemorySize, final long maxDiskSize) {
+        mMaxDiskSize = maxDiskSize;
+        mMemoryCache = new LruCache<String, Resource>(maxMemorySize) {
+            @Override
+            protected int sizeOf(String key, Resource resource) {
+                return resource.mData.length;
+            }
+        };
+    }
+
+    /**
+     * Get shared resource cache.
+     *
+     * @return
+     */
+    public static synchronized ResourceCache getInstance() {
+        if (mInstance == null) {
+            mInstance = new ResourceCache(YoutubeTvConst.RESOURCE_CACHE_MEMORY_SIZE, YoutubeTvConst.RESOURCE_CACHE_DISK_SIZE);
+        }
+        return mInstance;
+    }
+
+    /**
+     * Enable disk cache.
+     *
+     * @param context android context
+     */
+    public void enableDiskCache(final Context context) {
+        synchronized (mDiskIndex) {
+            if (mDirectory != null) {
+                return;
+            }
+            File directory = new File(context.getApplicationContext().getCacheDir(), DISK_DIRECTORY);
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                Log.e(TAG, "can't create " + directory);
+                return;
+            }
+            File[] files = directory.listFiles();
+            if (files != null) {
+                Arrays.sort(files, new Comparator<File>() {
+                    @Override
+                    public int compare(File first, File second) {
+                        return Long.valueOf(first.lastModified()).compareTo(second.lastModified());
+                    }
+                });
+                for (File file : files) {
+                    if (file.getName().endsWith(TEMP_SUFFIX)) {
+                        file.delete();
+                    } else if (file.getName().endsWith(META_SUFFIX)) {
+                        String key = file.getName().substring(0, file.getName().length() - META_SUFFIX.length());
+                        long size = file.length() + new File(directory, key).length();
+                        mDiskIndex.put(key, size);
+                        mDiskSize += size;
+                    }
+                }
+            }
+            mDirectory = directory;
+            trimDisk();
+        }
+    }
+
+    /**
+     * Check if this request targets a static player resource.
+     *
+     * @param request webview request
+     * @return
+     */
+    public static boolean isCacheable(final WebResourceRequest request) {
+
+        Uri uri = request.getUrl();
+
+        if (!"GET".equals(request.getMethod()) || !"https".equals(uri.getScheme()) || uri.getHost() == null) {
+            return false;
+        }
+        String path = (uri.getPath() != null) ? uri.getPath() : "";
+
+        switch (uri.getHost()) {
+            case "www.youtube.com":
+                return path.equals("/iframe_api") || path.startsWith("/s/") || path.endsWith(".js") || path.endsWith(".css");
+            case "s.ytimg.com":
+            case "i.ytimg.com":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Serve a static resource from cache, revalidating or downloading it if needed. This is called on a webview
+     * background thread. A resource already being downloaded for another request is waited for instead of being
+     * downloaded twice.
+     *
+     * @param request webview request
+     * @return response or null to let the webview load the resource itself
+     */
+    public WebResourceResponse intercept(final WebResourceRequest request) {
+
+        if (!isCacheable(request)) {
+            return null;
+        }
+
+        String url = request.getUrl().toString();
+        String key = getKey(url);
+
+        Resource cached = mMemoryCache.get(key);
+        boolean inMemory = cached != null;
+        if (cached == null) {
+            cached = readDisk(key);
+        }
+
+        if (cached != null && cached.mExpires > System.currentTimeMillis()) {
+            (inMemory ? mMemoryHits : mDiskHits).incrementAndGet();
+            if (!inMemory) {
+                putMemory(key, cached);
+            }
+            return cached.toResponse();
+        }
+
+        CountDownLatch download;
+        synchronized (mDownloads) {
+            download = mDownloads.get(key);
+            if (download == null) {
+                mDownloads.put(key, new CountDownLatch(1));
+            }
+        }
+        if (download != null) {
+            return awaitDownload(key, download);
+        }
+
+        try {
+            WebResourceResponse response = fetch(key, url, request.getRequestHeaders(), cached);
+            if (response != null) {
+                // download is finished when its body is closed
+                return response;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "fetch " + url, e);
+        }
+        finishDownload(key);
+        // serve stale resource if network is not available
+        return (cached != null) ? cached.toResponse() : null;
+    }
+
+    /**
+     * Get number of resources served from memory tier.
+     *
+     * @return
+     */
+    public int getMemoryHitCount() {
+        return mMemoryHits.get();
+    }
+
+    /**
+     * Get number of resources served from disk without network access.
+     *
+     * @return
+     */
+    public int getDiskHitCount() {
+        return mDiskHits.get();
+    }
+
+    /**
+     * Get number of stale resources served after a not modified (304) response.
+     *
+     * @return
+     */
+    public int getRevalidationCount() {
+        return mRevalidations.get();
+    }
+
+    /**
+     * Get number of resources downloaded.
+     *
+     * @return
+     */
+    public int getMissCount() {
+        return mMisses.get();
+    }
+
+    /**
+     * Reset hit & miss counters.
+     */
+    public void resetCounters() {
+        mMemoryHits.set(0);
+        mDiskHits.set(0);
+        mRevalidations.set(0);
+        mMisses.set(0);
+    }
+
+    /**
+     * Remove all cached resources.
+     */
+    public void clear() {
+        mMemoryCache.evictAll();
+        synchronized (mDiskIndex) {
+            for (String key : mDiskIndex.keySet()) {
+                deleteFiles(key);
+            }
+            mDiskIndex.clear();
+            mDiskSize = 0;
+        }
+    }
+
+    /**
+     * Wait for a download of the same resource started by another request & serve its result.
+     *
+     * @param key      resource key
+     * @param download download in progress
+     * @return response or null to let the webview load the resource itself
+     */
+    private WebResourceResponse awaitDownload(final String key, final CountDownLatch download) {
+        try {
+            download.await(YoutubeTvConst.HTTP_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Resource resource = mMemoryCache.get(key);
+        if (resource != null) {
+            mMemoryHits.incrementAndGet();
+            return resource.toResponse();
+        }
+        resource = readDisk(key);
+        if (resource != null) {
+            mDiskHits.incrementAndGet();
+            return resource.toResponse();
+        }
+        return null;
+    }
+
+    /**
+     * Notify requests waiting for this download.
+     *
+     * @param key resource key
+     */
+    private void finishDownload(final String key) {
+        CountDownLatch download;
+        synchronized (mDownloads) {
+            download = mDownloads.remove(key);
+        }
+        if (download != null) {
+            download.countDown();
+        }
+    }
+
+    /**
+     * Fetch a resource, conditionally if a stale version is cached. Any status except a redirect is passed to the
+     * webview, a response body with status 200 is stored once it has been read in full if it is cacheable.
+     *
+     * @param key            resource key
+     * @param url            resource URL
+     * @param requestHeaders webview request headers
+     * @param cached         stale cached resource (may be null)
+     * @return response or null if it can't be returned from interception (redirect)
+     * @throws IOException
+     */
+    private WebResourceResponse fetch(final String key,
+                                      final String url,
+                                      final Map<String, String> requestHeaders,
+                                      final Resource cached) throws IOException {
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        boolean streaming = false;
+
+        try {
+            connection.setConnectTimeout(YoutubeTvConst.HTTP_TIMEOUT);
+            connection.setReadTimeout(YoutubeTvConst.HTTP_TIMEOUT);
+
+            for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+                if (!isSkippedRequestHeader(header.getKey())) {
+                    connection.setRequestProperty(header.getKey(), header.getValue());
+                }
+            }
+            if (cached != null && cached.mETag != null) {
+                connection.setRequestProperty("If-None-Match", cached.mETag);
+            }
+            if (cached != null && cached.mLastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", cached.mLastModified);
+            }
+
+            int status = connection.getResponseCode();
+
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                mRevalidations.incrementAndGet();
+                cached.mExpires = getExpires(connection);
+                putMemory(key, cached);
+                writeDisk(key, cached);
+                finishDownload(key);
+                return cached.toResponse();
+            } else if (status < 200 || (status >= 300 && status < 400) || status > 599) {
+                // not supported by WebResourceResponse
+                return null;
+            }
+            mMisses.incrementAndGet();
+
+            Resource resource = new Resource();
+            resource.mETag = connection.getHeaderField("ETag");
+            resource.mLastModified = connection.getHeaderField("Last-Modified");
+            resource.mExpires = getExpires(connection);
+
+            String cacheControl = connection.getHeaderField("Cache-Control");
+            resource.mStorable = status == HttpURLConnection.HTTP_OK &&
+                    (cacheControl == null || !cacheControl.contains("no-store")) &&
+                    (resource.mETag != null || resource.mLastModified != null ||
+                            resource.mExpires > System.currentTimeMillis());
+
+            String contentType = connection.getContentType();
+            resource.mMimeType = "application/octet-stream";
+            resource.mEncoding = null;
+            if (contentType != null) {
+                String[] parts = contentType.split(";");
+                resource.mMimeType = parts[0].trim();
+                for (int i = 1; i < parts.length; i++) {
+                    String part = parts[i].trim();
+                    if (part.toLowerCase().startsWith("charset=")) {
+                        resource.mEncoding = part.substring("charset=".length());
+                    }
+                }
+            }
+            for (String name : CACHED_HEADERS) {
+                String value = connection.getHeaderField(name);
+                if (value != null) {
+                    resource.mHeaders.put(name, value);
+                }
+            }
+
+            InputStream body = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+            if (body == null) {
+                body = new ByteArrayInputStream(new byte[0]);
+            }
+            String reason = connection.getResponseMessage();
+            if (reason == null || reason.isEmpty()) {
+                reason = String.valueOf(status);
+            }
+            WebResourceResponse response = new WebResourceResponse(resource.mMimeType, resource.mEncoding,
+                    status, reason, resource.mHeaders,
+                    new ResponseInputStream(body, connection, key, resource.mStorable ? resource : null));
+            streaming = true;
+            return response;
+        } finally {
+            if (!streaming) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Get expiration time of a response from Cache-Control max-age or Expires header.
+     *
+     * @param connection http connection
+     * @return expiration time in milliseconds since epoch (0 if the response must be revalidated)
+     */
+    private static long getExpires(final HttpURLConnection connection) {
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl != null) {
+            if (cacheControl.contains("no-cache")) {
+                return 0;
+            }
+            for (String directive : cacheControl.split(",")) {
+                directive = directive.trim();
+                if (directive.startsWith("max-age=")) {
+                    try {
+                        return System.currentTimeMillis() + Long.parseLong(directive.substring("max-age=".length())) * 1000;
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return connection.getExpiration();
+    }
+
+    private static boolean isSkippedRequestHeader(final String name) {
+        for (String skipped : SKIPPED_REQUEST_HEADERS) {
+            if (skipped.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putMemory(final String key, final Resource resource) {
+        if (resource.mData.length <= MAX_MEMORY_ENTRY_SIZE) {
+            mMemoryCache.put(key, resource);
+        }
+    }
+
+    /**
+     * Read a resource from disk cache. Files are opened under the index lock, so that meta & data files belong to
+     * the same version of the resource, & read outside of it.
+     *
+     * @param key resource key
+     * @return resource or null if not in disk cache
+     */
+    private Resource readDisk(final String key) {
+
+        File metaFile;
+        DataInputStream meta;
+        InputStream data;
+
+        synchronized (mDiskIndex) {
+
+            if (mDirectory == null || mDiskIndex.get(key) == null) {
+                return null;
+            }
+            metaFile = new File(mDirectory, key + META_SUFFIX);
+
+            try {
+                meta = new DataInputStream(new FileInputStream(metaFile));
+            } catch (IOException e) {
+                Log.e(TAG, "read " + key, e);
+                removeDisk(key);
+                return null;
+            }
+            try {
+                data = new FileInputStream(new File(mDirectory, key));
+            } catch (IOException e) {
+                Log.e(TAG, "read " + key, e);
+                closeQuietly(meta);
+                removeDisk(key);
+                return null;
+            }
+        }
+
+        try {
+            Resource resource = new Resource();
+            try {
+                resource.mMimeType = meta.readUTF();
+                resource.mEncoding = emptyToNull(meta.readUTF());
+                resource.mETag = emptyToNull(meta.readUTF());
+                resource.mLastModified = emptyToNull(meta.readUTF());
+                resource.mExpires = meta.readLong();
+                int headerCount = meta.readInt();
+                for (int i = 0; i < headerCount; i++) {
+                    resource.mHeaders.put(meta.readUTF(), meta.readUTF());
+                }
+            } finally {
+                meta.close();
+            }
+            resource.mData = readFully(data);
+            resource.mStorable = true;
+
+            metaFile.setLastModified(System.currentTimeMillis());
+            return resource;
+        } catch (IOException e) {
+            Log.e(TAG, "read " + key, e);
+            closeQuietly(data);
+            synchronized (mDiskIndex) {
+                removeDisk(key);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Write a resource to disk cache & evict least recently used resources if needed. Files are written to
+     * temporary files outside of the index lock & renamed under it.
+     *
+     * @param key      resource key
+     * @param resource resource
+     */
+    private void writeDisk(final String key, final Resource resource) {
+
+        File directory;
+        synchronized (mDiskIndex) {
+            directory = mDirectory;
+        }
+        if (directory == null) {
+            return;
+        }
+
+        File dataTemp = null;
+        File metaTemp = null;
+
+        try {
+            dataTemp = File.createTempFile(key, TEMP_SUFFIX, directory);
+            metaTemp = File.createTempFile(key, TEMP_SUFFIX, directory);
+
+            FileOutputStream data = new FileOutputStream(dataTemp);
+            try {
+                data.write(resource.mData);
+            } finally {
+                data.close();
+            }
+            DataOutputStream meta = new DataOutputStream(new FileOutputStream(metaTemp));
+            try {
+                meta.writeUTF(resource.mMimeType);
+                meta.writeUTF(nullToEmpty(resource.mEncoding));
+                meta.writeUTF(nullToEmpty(resource.mETag));
+                meta.writeUTF(nullToEmpty(resource.mLastModified));
+                meta.writeLong(resource.mExpires);
+                meta.writeInt(resource.mHeaders.size());
+                for (Map.Entry<String, String> header : resource.mHeaders.entrySet()) {
+                    meta.writeUTF(header.getKey());
+                    meta.writeUTF(header.getValue());
+                }
+            } finally {
+                meta.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "write " + key, e);
+            if (dataTemp != null) {
+                dataTemp.delete();
+            }
+            if (metaTemp != null) {
+                metaTemp.delete();
+            }
+            return;
+        }
+
+        long size = dataTemp.length() + metaTemp.length();
+
+        synchronized (mDiskIndex) {
+
+            if (mDirectory == null || !dataTemp.renameTo(new File(mDirectory, key)) ||
+                    !metaTemp.renameTo(new File(mDirectory, key + META_SUFFIX))) {
+                Log.e(TAG, "write " + key + " : rename failed");
+                dataTemp.delete();
+                metaTemp.delete();
+                removeDisk(key);
+                return;
+            }
+            Long previous = mDiskIndex.put(key, size);
+            mDiskSize += size - (previous != null ? previous : 0);
+            trimDisk();
+        }
+    }
+
+    /**
+     * Evict least recently used resources until disk cache fits its max size.
+     */
+    private void trimDisk() {
+        Iterator<Map.Entry<String, Long>> iterator = mDiskIndex.entrySet().iterator();
+        while (mDiskSize > mMaxDiskSize && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            mDiskSize -= eldest.getValue();
+            deleteFiles(eldest.getKey());
+            iterator.remove();
+        }
+    }
+
+    private void removeDisk(final String key) {
+        Long size = mDiskIndex.remove(key);
+        if (size != null) {
+            mDiskSize -= size;
+        }
+        deleteFiles(key);
+    }
+
+    private void deleteFiles(final String key) {
+        if (mDirectory != null) {
+            new File(mDirectory, key).delete();
+            new File(mDirectory, key + META_SUFFIX).delete();
+        }
+    }
+
+    private static void closeQuietly(final InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            // ignored
+        }
+    }
+
+    private static byte[] readFully(final InputStream inputStream) throws IOException {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Get cache key (md5 of the URL).
+     *
+     * @param url resource URL
+     * @return
+     */
+    private static String getKey(final String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(url.getBytes("UTF-8"));
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest) {
+                key.append(String.format("%02x", b & 0xff));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    private static String nullToEmpty(final String value) {
+        return (value != null) ? value : "";
+    }
+
+    private static String emptyToNull(final String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * A cached resource.
+     */
+    private static class Resource {
+
+        private String mMimeType;
+        private String mEncoding;
+        private String mETag;
+        private String mLastModified;
+        private volatile long mExpires;
+        private boolean mStorable;
+        private final Map<String, String> mHeaders = new HashMap<>();
+        private byte[] mData;
+
+        WebResourceResponse toResponse() {
+            return new WebResourceResponse(mMimeType, mEncoding, 200, "OK", mHeaders, new ByteArrayInputStream(mData));
+        }
+    }
+
+    /**
+     * Response body read by the webview from the connection. A cacheable body is copied while it is read & stored
+     * if it has been read in full. The connection is released & waiting requests are notified when it is closed.
+     */
+    private class ResponseInputStream extends FilterInputStream {
+
+        private final HttpURLConnection mConnection;
+        private final String mKey;
+
+        /**
+         * resource to store (null if not cacheable).
+         */
+        private final Resource mResource;
+
+        private ByteArrayOutputStream mBuffer;
+        private boolean mComplete;
+        private boolean mClosed;
+
+        ResponseInputStream(final InputStream inputStream,
+                            final HttpURLConnection connection,
+                            final String key,
+                            final Resource resource) {
+            super(inputStream);
+            mConnection = connection;
+            mKey = key;
+            mResource = resource;
+            mBuffer = (resource != null) ? new ByteArrayOutputStream() : null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value == -1) {
+                mComplete = true;
+            } else if (mBuffer != null) {
+                mBuffer.write(value);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int read = super.read(buffer, offset, count);
+            if (read == -1) {
+                mComplete = true;
+            } else if (mBuffer != null) {
+                mBuffer.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            // skipped bytes are not copied : body can't be stored anymore
+            mBuffer = null;
+            return super.skip(count);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            try {
+                super.close();
+            } finally {
+                mConnection.disconnect();
+                if (mComplete && mBuffer != null) {
+                    mResource.mData = mBuffer.toByteArray();
+                    mBuffer = null;
+                    putMemory(mKey, mResource);
+                    writeDisk(mKey, mResource);
+                }
+                finishDownload(mKey);
+            }
+        }
+    }
+}
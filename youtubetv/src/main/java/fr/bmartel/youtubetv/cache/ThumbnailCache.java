@@ -0,0 +1,344 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.cache;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import fr.bmartel.youtubetv.YoutubeTvConst;
+
+/**
+ * Cache of thumbnail qualities probed for each video id. Both available & missing (404) qualities are remembered
+ * in memory (LRU) & optionally on disk, until they expire. The disk cache is bounded to the same number of video ids
+ * as the memory cache : expired & oldest entries are pruned.
+ *
+ * @author Bertrand Martel
+ */
+public class ThumbnailCache {
+
+    /**
+     * Shared preferences file used for the disk cache.
+     */
+    private final static String PREFERENCES_NAME = "fr.bmartel.youtubetv.thumbnails";
+
+    private final static String FIELD_SEPARATOR = ";";
+
+    private final static String QUALITY_SEPARATOR = ",";
+
+    private static ThumbnailCache mInstance;
+
+    /**
+     * memory cache (access ordered, least recently used entry is evicted first).
+     */
+    private final Map<String, Entry> mMemoryCache;
+
+    /**
+     * max number of video ids kept in memory & on disk.
+     */
+    private final int mMaxEntries;
+
+    /**
+     * disk cache (null if disabled).
+     */
+    private SharedPreferences mDiskCache;
+
+    /**
+     * number of video ids in disk cache.
+     */
+    private int mDiskSize;
+
+    /**
+     * time to live of a cache entry in milliseconds.
+     */
+    private volatile long mTimeToLive;
+
+    /**
+     * Build thumbnail cache.
+     *
+     * @param maxEntries max number of video ids kept in memory & on disk
+     * @param timeToLive time to live of a cache entry in milliseconds
+     */
+    public ThumbnailCache(final int maxEntries, final long timeToLive) {
+        mMaxEntries = maxEntries;
+        mMemoryCache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ThumbnailCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        mTimeToLive = timeToLive;
+    }
+
+    /**
+     * Get shared thumbnail cache.
+     *
+     * @return
+     */
+    public static synchronized ThumbnailCache getInstance() {
+        if (mInstance == null) {
+            mInstance = new ThumbnailCache(YoutubeTvConst.THUMBNAIL_CACHE_SIZE, YoutubeTvConst.THUMBNAIL_CACHE_TTL);
+        }
+        return mInstance;
+    }
+
+    /**
+     * Enable disk cache. Expired & invalid entries are pruned.
+     *
+     * @param context android context
+     */
+    public void enableDiskCache(final Context context) {
+        setDiskCache(context.getApplicationContext().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE));
+    }
+
+    /**
+     * Set preferences used as disk cache (if not already set) & prune them.
+     *
+     * @param preferences shared preferences
+     */
+    synchronized void setDiskCache(final SharedPreferences preferences) {
+        if (mDiskCache == null) {
+            mDiskCache = preferences;
+            pruneDiskCache();
+        }
+    }
+
+    /**
+     * Set time to live of cache entries.
+     *
+     * @param timeToLive time to live in milliseconds
+     */
+    public void setTimeToLive(final long timeToLive) {
+        mTimeToLive = timeToLive;
+    }
+
+    /**
+     * Check if this thumbnail quality is known to exist for this video.
+     *
+     * @param videoId youtube video id
+     * @param quality thumbnail quality
+     * @return
+     */
+    public boolean isAvailable(final String videoId, final String quality) {
+        Entry entry = getEntry(videoId);
+        return entry != null && entry.mAvailable.contains(quality);
+    }
+
+    /**
+     * Check if this thumbnail quality is known to be missing (404) for this video.
+     *
+     * @param videoId youtube video id
+     * @param quality thumbnail quality
+     * @return
+     */
+    public boolean isMissing(final String videoId, final String quality) {
+        Entry entry = getEntry(videoId);
+        return entry != null && entry.mMissing.contains(quality);
+    }
+
+    /**
+     * Record the result of a thumbnail probe.
+     *
+     * @param videoId   youtube video id
+     * @param quality   thumbnail quality
+     * @param available true if the thumbnail exists, false if it responded 404
+     */
+    public synchronized void put(final String videoId, final String quality, final boolean available) {
+
+        Entry entry = getEntry(videoId);
+
+        Set<String> availableSet = new HashSet<>();
+        Set<String> missingSet = new HashSet<>();
+        long timestamp = System.currentTimeMillis();
+
+        if (entry != null) {
+            availableSet.addAll(entry.mAvailable);
+            missingSet.addAll(entry.mMissing);
+            timestamp = entry.mTimestamp;
+        }
+        if (available) {
+            availableSet.add(quality);
+            missingSet.remove(quality);
+        } else {
+            missingSet.add(quality);
+            availableSet.remove(quality);
+        }
+        entry = new Entry(timestamp, availableSet, missingSet);
+        mMemoryCache.put(videoId, entry);
+
+        if (mDiskCache != null) {
+            if (!mDiskCache.contains(videoId)) {
+                mDiskSize++;
+            }
+            mDiskCache.edit().putString(videoId, entry.serialize()).apply();
+            if (mDiskSize > mMaxEntries) {
+                pruneDiskCache();
+            }
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear() {
+        mMemoryCache.clear();
+        if (mDiskCache != null) {
+            mDiskCache.edit().clear().apply();
+            mDiskSize = 0;
+        }
+    }
+
+    /**
+     * Get a non-expired entry from memory or from disk.
+     *
+     * @param videoId youtube video id
+     * @return cache entry or null if not found or expired
+     */
+    private synchronized Entry getEntry(final String videoId) {
+
+        Entry entry = mMemoryCache.get(videoId);
+
+        if (entry == null && mDiskCache != null) {
+            entry = Entry.deserialize(mDiskCache.getString(videoId, null));
+            if (entry != null) {
+                mMemoryCache.put(videoId, entry);
+            }
+        }
+
+        if (entry != null && System.currentTimeMillis() - entry.mTimestamp > mTimeToLive) {
+            mMemoryCache.remove(videoId);
+            if (mDiskCache != null && mDiskCache.contains(videoId)) {
+                mDiskCache.edit().remove(videoId).apply();
+                mDiskSize--;
+            }
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Remove expired & invalid entries from disk, then the oldest ones above max number of entries.
+     */
+    private void pruneDiskCache() {
+
+        List<String> removed = new ArrayList<>();
+        final Map<String, Long> timestamps = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<String, ?> diskEntry : mDiskCache.getAll().entrySet()) {
+            Entry entry = (diskEntry.getValue() instanceof String) ?
+                    Entry.deserialize((String) diskEntry.getValue()) : null;
+            if (entry == null || now - entry.mTimestamp > mTimeToLive) {
+                removed.add(diskEntry.getKey());
+            } else {
+                timestamps.put(diskEntry.getKey(), entry.mTimestamp);
+            }
+        }
+        if (timestamps.size() > mMaxEntries) {
+            List<String> videoIds = new ArrayList<>(timestamps.keySet());
+            Collections.sort(videoIds, new Comparator<String>() {
+                @Override
+                public int compare(String first, String second) {
+                    return Long.compare(timestamps.get(first), timestamps.get(second));
+                }
+            });
+            removed.addAll(videoIds.subList(0, videoIds.size() - mMaxEntries));
+        }
+        mDiskSize = Math.min(timestamps.size(), mMaxEntries);
+
+        if (!removed.isEmpty()) {
+            SharedPreferences.Editor editor = mDiskCache.edit();
+            for (String videoId : removed) {
+                editor.remove(videoId);
+            }
+            editor.apply();
+        }
+    }
+
+    /**
+     * Probe results for one video id.
+     */
+    private static class Entry {
+
+        private final long mTimestamp;
+
+        private final Set<String> mAvailable;
+
+        private final Set<String> mMissing;
+
+        Entry(final long timestamp, final Set<String> available, final Set<String> missing) {
+            mTimestamp = timestamp;
+            mAvailable = Collections.unmodifiableSet(available);
+            mMissing = Collections.unmodifiableSet(missing);
+        }
+
+        String serialize() {
+            return mTimestamp + FIELD_SEPARATOR +
+                    join(mAvailable) + FIELD_SEPARATOR +
+                    join(mMissing);
+        }
+
+        private static String join(final Set<String> qualities) {
+            StringBuilder builder = new StringBuilder();
+            for (String quality : qualities) {
+                if (builder.length() > 0) {
+                    builder.append(QUALITY_SEPARATOR);
+                }
+                builder.append(quality);
+            }
+            return builder.toString();
+        }
+
+        static Entry deserialize(final String value) {
+            if (value == null) {
+                return null;
+            }
+            String[] fields = value.split(FIELD_SEPARATOR, -1);
+            if (fields.length != 3) {
+                return null;
+            }
+            try {
+                return new Entry(Long.parseLong(fields[0]), split(fields[1]), split(fields[2]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Set<String> split(final String value) {
+            Set<String> set = new HashSet<>();
+            if (!value.isEmpty()) {
+                Collections.addAll(set, value.split(QUALITY_SEPARATOR));
+            }
+            return set;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Changed parameters between two player configurations, with the way each change is applied.
+ *
+ * @author Bertrand Martel
+ */
+public class ConfigDiff {
+
+    /**
+     * change type by configuration key (only changed parameters).
+     */
+    private final Map<String, ConfigChange> mChanges = new LinkedHashMap<>();
+
+    /**
+     * highest change type.
+     */
+    private ConfigChange mChange = ConfigChange.NONE;
+
+    void add(final String key, final ConfigChange change) {
+        mChanges.put(key, change);
+        if (change.compareTo(mChange) > 0) {
+            mChange = change;
+        }
+    }
+
+    /**
+     * Get changed parameters.
+     *
+     * @return change type by configuration key
+     */
+    public Map<String, ConfigChange> getChanges() {
+        return Collections.unmodifiableMap(mChanges);
+    }
+
+    /**
+     * Check if a parameter has changed.
+     *
+     * @param key configuration key
+     * @return
+     */
+    public boolean isChanged(final String key) {
+        return mChanges.containsKey(key);
+    }
+
+    /**
+     * Get the highest change type of this diff.
+     *
+     * @return
+     */
+    public ConfigChange getChange() {
+        return mChange;
+    }
+
+    public boolean isEmpty() {
+        return mChanges.isEmpty();
+    }
+
+    public boolean requiresReload() {
+        return mChange == ConfigChange.RELOAD;
+    }
+
+    @Override
+    public String toString() {
+        return mChanges.toString();
+    }
+}
@@ -0,0 +1,861 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.config;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.os.Bundle;
+import android.util.AttributeSet;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Objects;
+
+import fr.bmartel.youtubetv.R;
+import fr.bmartel.youtubetv.YoutubeTvConst;
+import fr.bmartel.youtubetv.model.ThumbnailQuality;
+import fr.bmartel.youtubetv.model.UserAgents;
+import fr.bmartel.youtubetv.model.VideoAutoHide;
+import fr.bmartel.youtubetv.model.VideoControls;
+import fr.bmartel.youtubetv.model.VideoQuality;
+
+/**
+ * Immutable player configuration, built from view attributes or from a configuration bundle. Two configurations can
+ * be compared with {@link #diff(PlayerConfig)} to know which changes can be applied to the running player.
+ *
+ * @author Bertrand Martel
+ */
+public class PlayerConfig {
+
+    private final static String TAG = PlayerConfig.class.getSimpleName();
+
+    /**
+     * configuration bundle keys (also used to identify changed parameters in {@link ConfigDiff}).
+     */
+    public final static String KEY_VIDEO_ID = "videoId";
+    public final static String KEY_PLAYLIST_ID = "playlistId";
+    public final static String KEY_VIDEO_QUALITY = "videoQuality";
+    public final static String KEY_SHOW_RELATED_VIDEOS = "showRelatedVideos";
+    public final static String KEY_SHOW_VIDEO_INFO = "showVideoInfo";
+    public final static String KEY_SHOW_CONTROLS = "showControls";
+    public final static String KEY_AUTO_HIDE = "autoHide";
+    public final static String KEY_CLOSED_CAPTIONS = "closedCaptions";
+    public final static String KEY_VIDEO_ANNOTATION = "videoAnnotation";
+    public final static String KEY_DEBUG = "debug";
+    public final static String KEY_LOADING_BACKGROUND_COLOR = "loadingBackgroundColor";
+    public final static String KEY_AUTOPLAY = "autoplay";
+    public final static String KEY_USER_AGENT = "userAgentString";
+    public final static String KEY_SHOW_BORDER = "showBorder";
+    public final static String KEY_BORDER_WIDTH = "borderWidth";
+    public final static String KEY_BORDER_COLOR = "borderColor";
+    public final static String KEY_THUMBNAIL_QUALITY = "thumbnailQuality";
+    public final static String KEY_CLOSED_CAPTION_LANG_PREF = "closedCaptionLangPref";
+    public final static String KEY_PLAYER_LANGUAGE = "playerLanguage";
+    public final static String KEY_JAVASCRIPT_TIMEOUT = "javascriptTimeout";
+    public final static String KEY_SHOW_NOW_PLAYING_CARD = "showNowPlayingCard";
+    public final static String KEY_STATE_SNAPSHOT = "stateSnapshot";
+    public final static String KEY_STATE_SNAPSHOT_INTERVAL = "stateSnapshotInterval";
+    public final static String KEY_PROGRESS_INTERVAL = "progressInterval";
+    public final static String KEY_IFRAME_API_URL = "iframeApiUrl";
+    public final static String KEY_IDLE_RELEASE_DELAY = "idleReleaseDelay";
+
+    /**
+     * video id loaded with the page.
+     */
+    private final String mVideoId;
+
+    /**
+     * playlist id loaded with the page.
+     */
+    private final String mPlaylistId;
+
+    /**
+     * suggested video quality.
+     */
+    private final VideoQuality mVideoQuality;
+
+    /**
+     * show related videos at the end of the video.
+     */
+    private final boolean mShowRelatedVideos;
+
+    /**
+     * show video info at the beginning of the video.
+     */
+    private final boolean mShowVideoInfo;
+
+    /**
+     * player controls mode.
+     */
+    private final VideoControls mShowControls;
+
+    /**
+     * autohide mode for player controls.
+     */
+    private final VideoAutoHide mAutoHide;
+
+    /**
+     * show closed captions.
+     */
+    private final boolean mClosedCaptions;
+
+    /**
+     * show video annotations.
+     */
+    private final boolean mVideoAnnotation;
+
+    /**
+     * debug mode.
+     */
+    private final boolean mDebug;
+
+    /**
+     * webview background color.
+     */
+    private final int mLoadingBackgroundColor;
+
+    /**
+     * autoplay mode.
+     */
+    private final boolean mAutoplay;
+
+    /**
+     * user agent string.
+     */
+    private final UserAgents mUserAgent;
+
+    /**
+     * show border when the view is focused.
+     */
+    private final boolean mShowBorder;
+
+    /**
+     * border width.
+     */
+    private final int mBorderWidth;
+
+    /**
+     * border color.
+     */
+    private final int mBorderColor;
+
+    /**
+     * thumbnail quality.
+     */
+    private final ThumbnailQuality mThumbnailQuality;
+
+    /**
+     * closed caption language preference.
+     */
+    private final String mClosedCaptionLangPref;
+
+    /**
+     * player language.
+     */
+    private final String mPlayerLanguage;
+
+    /**
+     * Javascript query timeout in milliseconds.
+     */
+    private final int mJavascriptTimeout;
+
+    /**
+     * show now playing card.
+     */
+    private final boolean mShowNowPlayingCard;
+
+    /**
+     * push player state as snapshots.
+     */
+    private final boolean mStateSnapshot;
+
+    /**
+     * interval between two state snapshots in milliseconds.
+     */
+    private final int mStateSnapshotInterval;
+
+    /**
+     * interval between two progress updates in milliseconds.
+     */
+    private final int mProgressInterval;
+
+    /**
+     * Youtube iframe API URL.
+     */
+    private final String mIframeApiUrl;
+
+    /**
+     * delay after which a hidden player is released in milliseconds.
+     */
+    private final int mIdleReleaseDelay;
+
+    private PlayerConfig(final Builder builder) {
+        mVideoId = builder.mVideoId;
+        mPlaylistId = builder.mPlaylistId;
+        mVideoQuality = builder.mVideoQuality;
+        mShowRelatedVideos = builder.mShowRelatedVideos;
+        mShowVideoInfo = builder.mShowVideoInfo;
+        mShowControls = builder.mShowControls;
+        mAutoHide = builder.mAutoHide;
+        mClosedCaptions = builder.mClosedCaptions;
+        mVideoAnnotation = builder.mVideoAnnotation;
+        mDebug = builder.mDebug;
+        mLoadingBackgroundColor = builder.mLoadingBackgroundColor;
+        mAutoplay = builder.mAutoplay;
+        mUserAgent = builder.mUserAgent;
+        mShowBorder = builder.mShowBorder;
+        mBorderWidth = builder.mBorderWidth;
+        mBorderColor = builder.mBorderColor;
+        mThumbnailQuality = builder.mThumbnailQuality;
+        mClosedCaptionLangPref = builder.mClosedCaptionLangPref;
+        mPlayerLanguage = builder.mPlayerLanguage;
+        mJavascriptTimeout = builder.mJavascriptTimeout;
+        mShowNowPlayingCard = builder.mShowNowPlayingCard;
+        mStateSnapshot = builder.mStateSnapshot;
+        mStateSnapshotInterval = builder.mStateSnapshotInterval;
+        mProgressInterval = builder.mProgressInterval;
+        mIframeApiUrl = builder.mIframeApiUrl;
+        mIdleReleaseDelay = builder.mIdleReleaseDelay;
+    }
+
+    /**
+     * Parse view attributes.
+     *
+     * @param context view context
+     * @param attrs   attributes
+     * @return player configuration
+     */
+    public static PlayerConfig fromAttributes(final Context context, final AttributeSet attrs) {
+
+        TypedArray styledAttr = context.getTheme().obtainStyledAttributes(attrs, R.styleable.YoutubeTvView, 0, 0);
+
+        try {
+            Builder builder = new Builder();
+            if (styledAttr.hasValue(R.styleable.YoutubeTvView_yt_videoId)) {
+                builder.setVideoId(styledAttr.getString(R.styleable.YoutubeTvView_yt_videoId));
+            }
+            return builder
+                    .setPlaylistId(styledAttr.getString(R.styleable.YoutubeTvView_yt_playlistId))
+                    .setVideoQuality(VideoQuality.getVideoQuality(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_videoQuality, YoutubeTvConst.DEFAULT_VIDEO_QUALITY.getIndex())))
+                    .setShowRelatedVideos(styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_showRelatedVideos, YoutubeTvConst.DEFAULT_SHOW_RELATED_VIDEOS))
+                    .setShowVideoInfo(styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_showVideoInfo, YoutubeTvConst.DEFAULT_SHOW_VIDEO_INFO))
+                    .setShowControls(VideoControls.getVideoControls(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_showControls, YoutubeTvConst.DEFAULT_SHOW_CONTROLS.getIndex())))
+                    .setAutoHide(VideoAutoHide.getVideoControls(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_autoHide, YoutubeTvConst.DEFAULT_AUTOHIDE.getIndex())))
+                    .setClosedCaptions(styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_closedCaptions, YoutubeTvConst.DEFAULT_CLOSED_CAPTION))
+                    .setVideoAnnotation(styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_videoAnnotation, YoutubeTvConst.DEFAULT_VIDEO_ANNOTATION))
+                    .setDebug(styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_debug, YoutubeTvConst.DEFAULT_DEBUG_MODE))
+                    .setLoadingBackgroundColor(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_loadingBackgroundColor, YoutubeTvConst.DEFAULT_LOADING_BG))
+                    .setAutoplay(styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_autoplay, YoutubeTvConst.DEFAULT_AUTOPLAY))
+                    .setUserAgent(UserAgents.getUserAgent(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_userAgentString, YoutubeTvConst.DEFAULT_USER_AGENT.getIndex())))
+                    .setShowBorder(styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_showBorder, YoutubeTvConst.DEFAULT_SHOW_BORDER))
+                    .setBorderWidth(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_borderWidth, YoutubeTvConst.DEFAULT_BORDER_WIDTH))
+                    .setBorderColor(styledAttr.getColor(R.styleable.YoutubeTvView_yt_borderColor, YoutubeTvConst.DEFAULT_BORDER_COLOR))
+                    .setThumbnailQuality(ThumbnailQuality.getThumbnail(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_thumbnailQuality, YoutubeTvConst.DEFAULT_THUMBNAIL_QUALITY.getIndex())))
+                    .setClosedCaptionLangPref(styledAttr.getString(R.styleable.YoutubeTvView_yt_closedCaptionLangPref))
+                    .setPlayerLanguage(styledAttr.getString(R.styleable.YoutubeTvView_yt_playerLanguage))
+                    .setJavascriptTimeout(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_javascriptTimeout, YoutubeTvConst.DEFAULT_JAVASCRIPT_TIMEOUT))
+                    .setShowNowPlayingCard(styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_showNowPlayingCard, YoutubeTvConst.DEFAULT_SHOW_NOWPLAYINGCARD))
+                    .setStateSnapshot(styledAttr.getBoolean(R.styleable.YoutubeTvView_yt_stateSnapshot, YoutubeTvConst.DEFAULT_STATE_SNAPSHOT))
+                    .setStateSnapshotInterval(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_stateSnapshotInterval, YoutubeTvConst.DEFAULT_STATE_SNAPSHOT_INTERVAL))
+                    .setProgressInterval(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_progressInterval, YoutubeTvConst.DEFAULT_PROGRESS_INTERVAL))
+                    .setIdleReleaseDelay(styledAttr.getInteger(R.styleable.YoutubeTvView_yt_idleReleaseDelay, YoutubeTvConst.DEFAULT_IDLE_RELEASE_DELAY))
+                    .build();
+        } finally {
+            styledAttr.recycle();
+        }
+    }
+
+    /**
+     * Get a builder initialized with this configuration.
+     *
+     * @return
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * Compare this configuration with a new one.
+     *
+     * @param config new configuration
+     * @return changed parameters & how they are applied to a running player
+     */
+    public ConfigDiff diff(final PlayerConfig config) {
+        ConfigDiff diff = new ConfigDiff();
+        if (!Objects.equals(mVideoId, config.mVideoId)) {
+            diff.add(KEY_VIDEO_ID, ConfigChange.NONE);
+        }
+        if (!Objects.equals(mPlaylistId, config.mPlaylistId)) {
+            diff.add(KEY_PLAYLIST_ID, ConfigChange.RELOAD);
+        }
+        if (!Objects.equals(mVideoQuality, config.mVideoQuality)) {
+            diff.add(KEY_VIDEO_QUALITY, ConfigChange.JAVASCRIPT);
+        }
+        if (mShowRelatedVideos != config.mShowRelatedVideos) {
+            diff.add(KEY_SHOW_RELATED_VIDEOS, ConfigChange.RELOAD);
+        }
+        if (mShowVideoInfo != config.mShowVideoInfo) {
+            diff.add(KEY_SHOW_VIDEO_INFO, ConfigChange.RELOAD);
+        }
+        if (!Objects.equals(mShowControls, config.mShowControls)) {
+            diff.add(KEY_SHOW_CONTROLS, ConfigChange.RELOAD);
+        }
+        if (!Objects.equals(mAutoHide, config.mAutoHide)) {
+            diff.add(KEY_AUTO_HIDE, ConfigChange.RELOAD);
+        }
+        if (mClosedCaptions != config.mClosedCaptions) {
+            diff.add(KEY_CLOSED_CAPTIONS, ConfigChange.JAVASCRIPT);
+        }
+        if (mVideoAnnotation != config.mVideoAnnotation) {
+            diff.add(KEY_VIDEO_ANNOTATION, ConfigChange.RELOAD);
+        }
+        if (mDebug != config.mDebug) {
+            diff.add(KEY_DEBUG, ConfigChange.RELOAD);
+        }
+        if (mLoadingBackgroundColor != config.mLoadingBackgroundColor) {
+            diff.add(KEY_LOADING_BACKGROUND_COLOR, ConfigChange.NONE);
+        }
+        if (mAutoplay != config.mAutoplay) {
+            diff.add(KEY_AUTOPLAY, ConfigChange.NONE);
+        }
+        if (!Objects.equals(mUserAgent, config.mUserAgent)) {
+            diff.add(KEY_USER_AGENT, ConfigChange.RELOAD);
+        }
+        if (mShowBorder != config.mShowBorder) {
+            diff.add(KEY_SHOW_BORDER, ConfigChange.NONE);
+        }
+        if (mBorderWidth != config.mBorderWidth) {
+            diff.add(KEY_BORDER_WIDTH, ConfigChange.NONE);
+        }
+        if (mBorderColor != config.mBorderColor) {
+            diff.add(KEY_BORDER_COLOR, ConfigChange.NONE);
+        }
+        if (!Objects.equals(mThumbnailQuality, config.mThumbnailQuality)) {
+            diff.add(KEY_THUMBNAIL_QUALITY, ConfigChange.RELOAD);
+        }
+        if (!Objects.equals(mClosedCaptionLangPref, config.mClosedCaptionLangPref)) {
+            diff.add(KEY_CLOSED_CAPTION_LANG_PREF, ConfigChange.RELOAD);
+        }
+        if (!Objects.equals(mPlayerLanguage, config.mPlayerLanguage)) {
+            diff.add(KEY_PLAYER_LANGUAGE, ConfigChange.RELOAD);
+        }
+        if (mJavascriptTimeout != config.mJavascriptTimeout) {
+            diff.add(KEY_JAVASCRIPT_TIMEOUT, ConfigChange.NONE);
+        }
+        if (mShowNowPlayingCard != config.mShowNowPlayingCard) {
+            diff.add(KEY_SHOW_NOW_PLAYING_CARD, ConfigChange.RELOAD);
+        }
+        if (mStateSnapshot != config.mStateSnapshot) {
+            diff.add(KEY_STATE_SNAPSHOT, ConfigChange.RELOAD);
+        }
+        if (mStateSnapshotInterval != config.mStateSnapshotInterval) {
+            diff.add(KEY_STATE_SNAPSHOT_INTERVAL, ConfigChange.RELOAD);
+        }
+        if (mProgressInterval != config.mProgressInterval) {
+            diff.add(KEY_PROGRESS_INTERVAL, ConfigChange.JAVASCRIPT);
+        }
+        if (!Objects.equals(mIframeApiUrl, config.mIframeApiUrl)) {
+            diff.add(KEY_IFRAME_API_URL, ConfigChange.RELOAD);
+        }
+        if (mIdleReleaseDelay != config.mIdleReleaseDelay) {
+            diff.add(KEY_IDLE_RELEASE_DELAY, ConfigChange.NONE);
+        }
+        return diff;
+    }
+
+    /**
+     * Build page configuration read by Javascript when the page loads (JSON object, null values are omitted).
+     *
+     * @param videoId         video id loaded with the page
+     * @param playlistId      playlist id loaded with the page (may be null)
+     * @param autoPlay        autoplay mode (1 to play as soon as the player is ready)
+     * @param start           time from which the video starts playing in seconds
+     * @param width           player width
+     * @param height          player height
+     * @param progressEnabled define if progress updates are sent
+     * @return JSON configuration
+     */
+    public String toPageConfig(final String videoId,
+                               final String playlistId,
+                               final int autoPlay,
+                               final int start,
+                               final int width,
+                               final int height,
+                               final boolean progressEnabled) {
+
+        JSONObject config = new JSONObject();
+
+        try {
+            config.put("videoId", videoId)
+                    .put("videoQuality", mVideoQuality.getValue())
+                    .put("playerHeight", height)
+                    .put("playerWidth", width)
+                    .put("rel", mShowRelatedVideos ? 1 : 0)
+                    .put("showinfo", mShowVideoInfo ? 1 : 0)
+                    .put("controls", mShowControls.getIndex())
+                    .put("autohide", mAutoHide.getIndex())
+                    .put("cc_load_policy", mClosedCaptions ? 1 : 0)
+                    .put("iv_load_policy", mVideoAnnotation ? 1 : 3)
+                    .put("autoplay", autoPlay)
+                    .put("start", start)
+                    .put("thumbnailQuality", mThumbnailQuality.getValue())
+                    .put("cc_lang_pref", mClosedCaptionLangPref)
+                    .put("hl", mPlayerLanguage)
+                    .put("playlist_id", playlistId)
+                    .put("stateSnapshot", mStateSnapshot ? 1 : 0)
+                    .put("snapshotInterval", mStateSnapshotInterval)
+                    .put("progressInterval", mProgressInterval)
+                    .put("progressEnabled", progressEnabled ? 1 : 0)
+                    .put("iframeApiUrl", mIframeApiUrl)
+                    .put("debug", mDebug ? 1 : 0);
+        } catch (JSONException e) {
+            Log.e(TAG, "build page config", e);
+        }
+        return config.toString();
+    }
+
+    public String getVideoId() {
+        return mVideoId;
+    }
+
+    public String getPlaylistId() {
+        return mPlaylistId;
+    }
+
+    public VideoQuality getVideoQuality() {
+        return mVideoQuality;
+    }
+
+    public boolean isShowRelatedVideos() {
+        return mShowRelatedVideos;
+    }
+
+    public boolean isShowVideoInfo() {
+        return mShowVideoInfo;
+    }
+
+    public VideoControls getShowControls() {
+        return mShowControls;
+    }
+
+    public VideoAutoHide getAutoHide() {
+        return mAutoHide;
+    }
+
+    public boolean isClosedCaptions() {
+        return mClosedCaptions;
+    }
+
+    public boolean isVideoAnnotation() {
+        return mVideoAnnotation;
+    }
+
+    public boolean isDebug() {
+        return mDebug;
+    }
+
+    public int getLoadingBackgroundColor() {
+        return mLoadingBackgroundColor;
+    }
+
+    public boolean isAutoplay() {
+        return mAutoplay;
+    }
+
+    public UserAgents getUserAgent() {
+        return mUserAgent;
+    }
+
+    public boolean isShowBorder() {
+        return mShowBorder;
+    }
+
+    public int getBorderWidth() {
+        return mBorderWidth;
+    }
+
+    public int getBorderColor() {
+        return mBorderColor;
+    }
+
+    public ThumbnailQuality getThumbnailQuality() {
+        return mThumbnailQuality;
+    }
+
+    public String getClosedCaptionLangPref() {
+        return mClosedCaptionLangPref;
+    }
+
+    public String getPlayerLanguage() {
+        return mPlayerLanguage;
+    }
+
+    public int getJavascriptTimeout() {
+        return mJavascriptTimeout;
+    }
+
+    public boolean isShowNowPlayingCard() {
+        return mShowNowPlayingCard;
+    }
+
+    public boolean isStateSnapshot() {
+        return mStateSnapshot;
+    }
+
+    public int getStateSnapshotInterval() {
+        return mStateSnapshotInterval;
+    }
+
+    public int getProgressInterval() {
+        return mProgressInterval;
+    }
+
+    public String getIframeApiUrl() {
+        return mIframeApiUrl;
+    }
+
+    public int getIdleReleaseDelay() {
+        return mIdleReleaseDelay;
+    }
+
+    /**
+     * Player configuration builder (defaults from {@link YoutubeTvConst}).
+     */
+    public static class Builder {
+
+        private String mVideoId = YoutubeTvConst.DEFAULT_VIDEO_ID;
+
+        private String mPlaylistId;
+
+        private VideoQuality mVideoQuality = YoutubeTvConst.DEFAULT_VIDEO_QUALITY;
+
+        private boolean mShowRelatedVideos = YoutubeTvConst.DEFAULT_SHOW_RELATED_VIDEOS;
+
+        private boolean mShowVideoInfo = YoutubeTvConst.DEFAULT_SHOW_VIDEO_INFO;
+
+        private VideoControls mShowControls = YoutubeTvConst.DEFAULT_SHOW_CONTROLS;
+
+        private VideoAutoHide mAutoHide = YoutubeTvConst.DEFAULT_AUTOHIDE;
+
+        private boolean mClosedCaptions = YoutubeTvConst.DEFAULT_CLOSED_CAPTION;
+
+        private boolean mVideoAnnotation = YoutubeTvConst.DEFAULT_VIDEO_ANNOTATION;
+
+        private boolean mDebug = YoutubeTvConst.DEFAULT_DEBUG_MODE;
+
+        private int mLoadingBackgroundColor = YoutubeTvConst.DEFAULT_LOADING_BG;
+
+        private boolean mAutoplay = YoutubeTvConst.DEFAULT_AUTOPLAY;
+
+        private UserAgents mUserAgent = YoutubeTvConst.DEFAULT_USER_AGENT;
+
+        private boolean mShowBorder = YoutubeTvConst.DEFAULT_SHOW_BORDER;
+
+        private int mBorderWidth = YoutubeTvConst.DEFAULT_BORDER_WIDTH;
+
+        private int mBorderColor = YoutubeTvConst.DEFAULT_BORDER_COLOR;
+
+        private ThumbnailQuality mThumbnailQuality = YoutubeTvConst.DEFAULT_THUMBNAIL_QUALITY;
+
+        private String mClosedCaptionLangPref;
+
+        private String mPlayerLanguage;
+
+        private int mJavascriptTimeout = YoutubeTvConst.DEFAULT_JAVASCRIPT_TIMEOUT;
+
+        private boolean mShowNowPlayingCard = YoutubeTvConst.DEFAULT_SHOW_NOWPLAYINGCARD;
+
+        private boolean mStateSnapshot = YoutubeTvConst.DEFAULT_STATE_SNAPSHOT;
+
+        private int mStateSnapshotInterval = YoutubeTvConst.DEFAULT_STATE_SNAPSHOT_INTERVAL;
+
+        private int mProgressInterval = YoutubeTvConst.DEFAULT_PROGRESS_INTERVAL;
+
+        private String mIframeApiUrl = YoutubeTvConst.DEFAULT_IFRAME_API_URL;
+
+        private int mIdleReleaseDelay = YoutubeTvConst.DEFAULT_IDLE_RELEASE_DELAY;
+
+        public Builder() {
+        }
+
+        /**
+         * Build a builder initialized with a configuration.
+         *
+         * @param config initial configuration
+         */
+        public Builder(final PlayerConfig config) {
+            mVideoId = config.mVideoId;
+            mPlaylistId = config.mPlaylistId;
+            mVideoQuality = config.mVideoQuality;
+            mShowRelatedVideos = config.mShowRelatedVideos;
+            mShowVideoInfo = config.mShowVideoInfo;
+            mShowControls = config.mShowControls;
+            mAutoHide = config.mAutoHide;
+            mClosedCaptions = config.mClosedCaptions;
+            mVideoAnnotation = config.mVideoAnnotation;
+            mDebug = config.mDebug;
+            mLoadingBackgroundColor = config.mLoadingBackgroundColor;
+            mAutoplay = config.mAutoplay;
+            mUserAgent = config.mUserAgent;
+            mShowBorder = config.mShowBorder;
+            mBorderWidth = config.mBorderWidth;
+            mBorderColor = config.mBorderColor;
+            mThumbnailQuality = config.mThumbnailQuality;
+            mClosedCaptionLangPref = config.mClosedCaptionLangPref;
+            mPlayerLanguage = config.mPlayerLanguage;
+            mJavascriptTimeout = config.mJavascriptTimeout;
+            mShowNowPlayingCard = config.mShowNowPlayingCard;
+            mStateSnapshot = config.mStateSnapshot;
+            mStateSnapshotInterval = config.mStateSnapshotInterval;
+            mProgressInterval = config.mProgressInterval;
+            mIframeApiUrl = config.mIframeApiUrl;
+            mIdleReleaseDelay = config.mIdleReleaseDelay;
+        }
+
+        /**
+         * Apply parameters defined in a configuration bundle (keys are the KEY_ constants, missing keys are left
+         * unchanged).
+         *
+         * @param arguments configuration bundle
+         * @return
+         */
+        public Builder apply(final Bundle arguments) {
+            if (arguments.containsKey(KEY_VIDEO_ID)) {
+                mVideoId = arguments.getString(KEY_VIDEO_ID);
+            }
+            if (arguments.containsKey(KEY_PLAYLIST_ID)) {
+                mPlaylistId = arguments.getString(KEY_PLAYLIST_ID);
+            }
+            if (arguments.containsKey(KEY_VIDEO_QUALITY)) {
+                mVideoQuality = VideoQuality.getVideoQuality(arguments.getString(KEY_VIDEO_QUALITY));
+            }
+            if (arguments.containsKey(KEY_SHOW_RELATED_VIDEOS)) {
+                mShowRelatedVideos = arguments.getBoolean(KEY_SHOW_RELATED_VIDEOS);
+            }
+            if (arguments.containsKey(KEY_SHOW_VIDEO_INFO)) {
+                mShowVideoInfo = arguments.getBoolean(KEY_SHOW_VIDEO_INFO);
+            }
+            if (arguments.containsKey(KEY_SHOW_CONTROLS)) {
+                mShowControls = VideoControls.getVideoControls(arguments.getInt(KEY_SHOW_CONTROLS));
+            }
+            if (arguments.containsKey(KEY_AUTO_HIDE)) {
+                mAutoHide = VideoAutoHide.getVideoControls(arguments.getInt(KEY_AUTO_HIDE));
+            }
+            if (arguments.containsKey(KEY_CLOSED_CAPTIONS)) {
+                mClosedCaptions = arguments.getBoolean(KEY_CLOSED_CAPTIONS);
+            }
+            if (arguments.containsKey(KEY_VIDEO_ANNOTATION)) {
+                mVideoAnnotation = arguments.getBoolean(KEY_VIDEO_ANNOTATION);
+            }
+            if (arguments.containsKey(KEY_DEBUG)) {
+                mDebug = arguments.getBoolean(KEY_DEBUG);
+            }
+            if (arguments.containsKey(KEY_LOADING_BACKGROUND_COLOR)) {
+                mLoadingBackgroundColor = arguments.getInt(KEY_LOADING_BACKGROUND_COLOR);
+            }
+            if (arguments.containsKey(KEY_AUTOPLAY)) {
+                mAutoplay = arguments.getBoolean(KEY_AUTOPLAY);
+            }
+            if (arguments.containsKey(KEY_USER_AGENT)) {
+                mUserAgent = UserAgents.getUserAgent(arguments.getInt(KEY_USER_AGENT));
+            }
+            if (arguments.containsKey(KEY_SHOW_BORDER)) {
+                mShowBorder = arguments.getBoolean(KEY_SHOW_BORDER);
+            }
+            if (arguments.containsKey(KEY_BORDER_WIDTH)) {
+                mBorderWidth = arguments.getInt(KEY_BORDER_WIDTH);
+            }
+            if (arguments.containsKey(KEY_BORDER_COLOR)) {
+                mBorderColor = arguments.getInt(KEY_BORDER_COLOR);
+            }
+            if (arguments.containsKey(KEY_THUMBNAIL_QUALITY)) {
+                mThumbnailQuality = ThumbnailQuality.getThumbnail(arguments.getInt(KEY_THUMBNAIL_QUALITY));
+            }
+            if (arguments.containsKey(KEY_CLOSED_CAPTION_LANG_PREF)) {
+                mClosedCaptionLangPref = arguments.getString(KEY_CLOSED_CAPTION_LANG_PREF);
+            }
+            if (arguments.containsKey(KEY_PLAYER_LANGUAGE)) {
+                mPlayerLanguage = arguments.getString(KEY_PLAYER_LANGUAGE);
+            }
+            if (arguments.containsKey(KEY_JAVASCRIPT_TIMEOUT)) {
+                mJavascriptTimeout = arguments.getInt(KEY_JAVASCRIPT_TIMEOUT);
+            }
+            if (arguments.containsKey(KEY_SHOW_NOW_PLAYING_CARD)) {
+                mShowNowPlayingCard = arguments.getBoolean(KEY_SHOW_NOW_PLAYING_CARD);
+            }
+            if (arguments.containsKey(KEY_STATE_SNAPSHOT)) {
+                mStateSnapshot = arguments.getBoolean(KEY_STATE_SNAPSHOT);
+            }
+            if (arguments.containsKey(KEY_STATE_SNAPSHOT_INTERVAL)) {
+                mStateSnapshotInterval = arguments.getInt(KEY_STATE_SNAPSHOT_INTERVAL);
+            }
+            if (arguments.containsKey(KEY_PROGRESS_INTERVAL)) {
+                mProgressInterval = arguments.getInt(KEY_PROGRESS_INTERVAL);
+            }
+            if (arguments.containsKey(KEY_IFRAME_API_URL)) {
+                mIframeApiUrl = arguments.getString(KEY_IFRAME_API_URL);
+            }
+            if (arguments.containsKey(KEY_IDLE_RELEASE_DELAY)) {
+                mIdleReleaseDelay = arguments.getInt(KEY_IDLE_RELEASE_DELAY);
+            }
+            return this;
+        }
+
+        public Builder setVideoId(final String videoId) {
+            mVideoId = videoId;
+            return this;
+        }
+
+        public Builder setPlaylistId(final String playlistId) {
+            mPlaylistId = playlistId;
+            return this;
+        }
+
+        public Builder setVideoQuality(final VideoQuality videoQuality) {
+            mVideoQuality = videoQuality;
+            return this;
+        }
+
+        public Builder setShowRelatedVideos(final boolean showRelatedVideos) {
+            mShowRelatedVideos = showRelatedVideos;
+            return this;
+        }
+
+        public Builder setShowVideoInfo(final boolean showVideoInfo) {
+            mShowVideoInfo = showVideoInfo;
+            return this;
+        }
+
+        public Builder setShowControls(final VideoControls showControls) {
+            mShowControls = showControls;
+            return this;
+        }
+
+        public Builder setAutoHide(final VideoAutoHide autoHide) {
+            mAutoHide = autoHide;
+            return this;
+        }
+
+        public Builder setClosedCaptions(final boolean closedCaptions) {
+            mClosedCaptions = closedCaptions;
+            return this;
+        }
+
+        public Builder setVideoAnnotation(final boolean videoAnnotation) {
+            mVideoAnnotation = videoAnnotation;
+            return this;
+        }
+
+        public Builder setDebug(final boolean debug) {
+            mDebug = debug;
+            return this;
+        }
+
+        public Builder setLoadingBackgroundColor(final int loadingBackgroundColor) {
+            mLoadingBackgroundColor = loadingBackgroundColor;
+            return this;
+        }
+
+        public Builder setAutoplay(final boolean autoplay) {
+            mAutoplay = autoplay;
+            return this;
+        }
+
+        public Builder setUserAgent(final UserAgents userAgent) {
+            mUserAgent = userAgent;
+            return this;
+        }
+
+        public Builder setShowBorder(final boolean showBorder) {
+            mShowBorder = showBorder;
+            return this;
+        }
+
+        public Builder setBorderWidth(final int borderWidth) {
+            mBorderWidth = borderWidth;
+            return this;
+        }
+
+        public Builder setBorderColor(final int borderColor) {
+            mBorderColor = borderColor;
+            return this;
+        }
+
+        public Builder setThumbnailQuality(final ThumbnailQuality thumbnailQuality) {
+            mThumbnailQuality = thumbnailQuality;
+            return this;
+        }
+
+        public Builder setClosedCaptionLangPref(final String closedCaptionLangPref) {
+            mClosedCaptionLangPref = closedCaptionLangPref;
+            return this;
+        }
+
+        public Builder setPlayerLanguage(final String playerLanguage) {
+            mPlayerLanguage = playerLanguage;
+            return this;
+        }
+
+        public Builder setJavascriptTimeout(final int javascriptTimeout) {
+            mJavascriptTimeout = javascriptTimeout;
+            return this;
+        }
+
+        public Builder setShowNowPlayingCard(final boolean showNowPlayingCard) {
+            mShowNowPlayingCard = showNowPlayingCard;
+            return this;
+        }
+
+        public Builder setStateSnapshot(final boolean stateSnapshot) {
+            mStateSnapshot = stateSnapshot;
+            return this;
+        }
+
+        public Builder setStateSnapshotInterval(final int stateSnapshotInterval) {
+            mStateSnapshotInterval = stateSnapshotInterval;
+            return this;
+        }
+
+        public Builder setProgressInterval(final int progressInterval) {
+            mProgressInterval = progressInterval;
+            return this;
+        }
+
+        public Builder setIframeApiUrl(final String iframeApiUrl) {
+            mIframeApiUrl = iframeApiUrl;
+            return this;
+        }
+
+        public Builder setIdleReleaseDelay(final int idleReleaseDelay) {
+            mIdleReleaseDelay = idleReleaseDelay;
+            return this;
+        }
+
+        public PlayerConfig build() {
+            return new PlayerConfig(this);
+        }
+    }
+}
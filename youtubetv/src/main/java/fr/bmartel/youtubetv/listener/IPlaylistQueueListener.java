@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.listener;
+
+/**
+ * Listener of playlist queue changes. Changes are notified as incremental diffs so that a list adapter or a remote
+ * mirror can be updated without reloading the whole playlist.
+ *
+ * @author Bertrand Martel
+ */
+public interface IPlaylistQueueListener {
+
+    /**
+     * called when items have been inserted.
+     *
+     * @param index index of the first inserted item
+     * @param count number of inserted items
+     */
+    void onItemsInserted(int index, int count);
+
+    /**
+     * called when items have been removed.
+     *
+     * @param index index of the first removed item
+     * @param count number of removed items
+     */
+    void onItemsRemoved(int index, int count);
+
+    /**
+     * called when an item has been moved.
+     *
+     * @param fromIndex previous index of the item
+     * @param toIndex   new index of the item
+     */
+    void onItemMoved(int fromIndex, int toIndex);
+
+    /**
+     * called when the play order has changed (shuffle enabled or disabled).
+     */
+    void onOrderChanged();
+
+    /**
+     * called when the current item has changed.
+     *
+     * @param index index of the current item (-1 if none)
+     */
+    void onCurrentChanged(int index);
+}
@@ -0,0 +1,44 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.listener;
+
+import fr.bmartel.youtubetv.YoutubeTvView;
+
+/**
+ * Listener of transitions to a player prepared in advance for the next playlist item.
+ *
+ * @author Bertrand Martel
+ */
+public interface IPlaylistTransitionListener {
+
+    /**
+     * called when the current video has ended : the previous player is stopped & the prepared player starts the next
+     * item as soon as this returns. The next player should replace the previous one in the layout here, the previous
+     * one can be released.
+     *
+     * @param previous player which has finished playing
+     * @param next     player playing the next playlist item
+     */
+    void onTransition(YoutubeTvView previous, YoutubeTvView next);
+}
@@ -42,6 +42,7 @@ import android.content.Context;
 import android.graphics.drawable.Drawable;
 import android.media.MediaPlayer;
 import android.os.Handler;
+import android.os.Looper;
 import android.support.v17.leanback.app.PlaybackControlGlue;
 import android.support.v17.leanback.app.PlaybackOverlayFragment;
 import android.support.v17.leanback.widget.Action;
@@ -66,6 +67,7 @@ import fr.bmartel.youtubetv.listener.IProgressUpdateListener;
 import fr.bmartel.youtubetv.listener.IVideoInfoListener;
 import fr.bmartel.youtubetv.model.VideoInfo;
 import fr.bmartel.youtubetv.model.VideoState;
+import fr.bmartel.youtubetv.utils.ProgressInterpolator;
 
 /**
  * This glue extends the {@link PlaybackControlGlue} with a {@link MediaPlayer} synchronization. It
@@ -91,14 +93,23 @@ public abstract class MediaPlayerGlue extends PlaybackControlGlue implements OnI
     private final PlaybackControlsRow.RepeatAction mRepeatAction;
     private final PlaybackControlsRow.ShuffleAction mShuffleAction;
     private PlaybackControlsRow mControlsRow;
-    private Runnable mRunnable;
+    private final Runnable mRunnable = new Runnable() {
+        @Override
+        public void run() {
+            updateProgress();
+            mHandler.postDelayed(this, getUpdatePeriod());
+        }
+    };
+    private final ProgressInterpolator mProgress = new ProgressInterpolator(); // position between two progress updates
+    private boolean mProgressUpdating; // true when the glue wants progress updates
+    private boolean mOverlayVisible = true; // true when the controls overlay is displayed
     private Handler mHandler = new Handler();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper()); // leanback rows are only touched from main thread
     private boolean mInitialized = false; // true when the MediaPlayer is prepared/initialized
     private OnMediaFileFinishedPlayingListener mMediaFileFinishedPlayingListener;
     private Action mSelectedAction; // the action which is currently selected by the user
     private long mLastKeyDownEvent = 0L; // timestamp when the last DPAD_CENTER KEY_DOWN occurred
     private MetaData mMetaData;
-    private int mCurrentTime;
     private int mVideoDuration;
     private boolean isPlaying;
     private IVideoInfoListener mVideoInfoListener;
@@ -118,14 +129,29 @@ public abstract class MediaPlayerGlue extends PlaybackControlGlue implements OnI
         // Register selected listener such that we know what action the user currently has focused.
         fragment.setOnItemViewSelectedListener(this);
 
+        // Progress is only needed while the controls overlay is displayed.
+        fragment.setFadeCompleteListener(new PlaybackOverlayFragment.OnFadeCompleteListener() {
+            @Override
+            public void onFadeInComplete() {
+                mOverlayVisible = true;
+                updateProgressChannel();
+            }
+
+            @Override
+            public void onFadeOutComplete() {
+                mOverlayVisible = false;
+                updateProgressChannel();
+            }
+        });
+
+        // Sparse progress updates re-anchor the interpolated position, UI is refreshed by mRunnable.
         mPlayer.setOnProgressUpdateListener(new IProgressUpdateListener() {
             @Override
             public void onProgressUpdate(final float currentTime) {
-                mCurrentTime = (int) (currentTime * 1000);
-                mHandler.post(new Runnable() {
+                runOnMainThread(new Runnable() {
                     @Override
                     public void run() {
-                        updateProgress();
+                        mProgress.setPosition((long) (currentTime * 1000));
                     }
                 });
             }
@@ -143,6 +169,7 @@ public abstract class MediaPlayerGlue extends PlaybackControlGlue implements OnI
      */
     public void reset() {
         mInitialized = false;
+        mProgress.reset();
         //mPlayer.reset();
     }
 
@@ -202,9 +229,34 @@ public abstract class MediaPlayerGlue extends PlaybackControlGlue implements OnI
 
     @Override
     public void enableProgressUpdating(final boolean enabled) {
-        if (!enabled) {
-            if (mRunnable != null) mHandler.removeCallbacks(mRunnable);
-            return;
+        mProgressUpdating = enabled;
+        updateProgressChannel();
+    }
+
+    /**
+     * Run a player event on main thread whatever the listener executor set on the player : leanback rows &
+     * presenters are not thread safe. Events already delivered on main thread are run inline to keep their order.
+     *
+     * @param runnable event handling
+     */
+    private void runOnMainThread(final Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            mMainHandler.post(runnable);
+        }
+    }
+
+    /**
+     * Request progress updates from the player & refresh progress bar only if progress is wanted & the controls
+     * overlay is displayed.
+     */
+    private void updateProgressChannel() {
+        boolean active = mProgressUpdating && mOverlayVisible;
+        mPlayer.setProgressEnabled(active);
+        mHandler.removeCallbacks(mRunnable);
+        if (active) {
+            mHandler.post(mRunnable);
         }
     }
 
@@ -311,7 +363,7 @@ public abstract class MediaPlayerGlue extends PlaybackControlGlue implements OnI
 
     @Override
     public int getCurrentPosition() {
-        return mInitialized ? mCurrentTime : 0;
+        return mInitialized ? (int) mProgress.getPosition() : 0;
     }
 
     @Override
@@ -343,6 +395,7 @@ public abstract class MediaPlayerGlue extends PlaybackControlGlue implements OnI
      * @param newPosition The new position of the media track in milliseconds.
      */
     protected void seekTo(int newPosition) {
+        mProgress.setPosition(newPosition);
         mPlayer.seekTo(newPosition / 1000);
     }
 
@@ -352,32 +405,39 @@ public abstract class MediaPlayerGlue extends PlaybackControlGlue implements OnI
         mPlayer.addPlayerListener(new IPlayerListener() {
             @Override
             public void onPlayerReady(final VideoInfo videoInfo) {
-                mInitialized = true;
-                //mPlayer.start();
-                MediaPlayerGlue.MetaData metaData = new MediaPlayerGlue.MetaData();
-                metaData.setArtist(videoInfo.getAuthor());
-                metaData.setTitle(videoInfo.getTitle());
-                setMetaData(metaData);
-                onStateChanged();
-                updateProgress();
-                mVideoInfoListener.onVideoInfoReceived(videoInfo);
+                runOnMainThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mInitialized = true;
+                        //mPlayer.start();
+                        MediaPlayerGlue.MetaData metaData = new MediaPlayerGlue.MetaData();
+                        metaData.setArtist(videoInfo.getAuthor());
+                        metaData.setTitle(videoInfo.getTitle());
+                        setMetaData(metaData);
+                        onStateChanged();
+                        updateProgress();
+                        mVideoInfoListener.onVideoInfoReceived(videoInfo);
+                    }
+                });
             }
 
             @Override
-            public void onPlayerStateChange(final VideoState state, long position, float speed, float duration, final VideoInfo videoInfo) {
-                Log.i(TAG, "state : " + state);
-                if (state == VideoState.ENDED && mInitialized && mMediaFileFinishedPlayingListener != null) {
-                    mMediaFileFinishedPlayingListener.onMediaFileFinishedPlaying(mMetaData);
-                }
-                if (state == VideoState.PLAYING) {
-                    isPlaying = true;
-                } else {
-                    isPlaying = false;
-                }
-                mVideoDuration = (int) (duration * 1000);
-                mHandler.post(new Runnable() {
+            public void onPlayerStateChange(final VideoState state, final long position, final float speed, final float duration, final VideoInfo videoInfo) {
+                runOnMainThread(new Runnable() {
                     @Override
                     public void run() {
+                        Log.i(TAG, "state : " + state);
+                        if (state == VideoState.ENDED && mInitialized && mMediaFileFinishedPlayingListener != null) {
+                            mMediaFileFinishedPlayingListener.onMediaFileFinishedPlaying(mMetaData);
+                        }
+                        if (state == VideoState.PLAYING) {
+                            isPlaying = true;
+                        } else {
+                            isPlaying = false;
+                        }
+                        mVideoDuration = (int) (duration * 1000);
+                        mProgress.setDuration(mVideoDuration);
+                        mProgress.update(position, speed, state == VideoState.PLAYING);
                         MediaPlayerGlue.MetaData metaData = new MediaPlayerGlue.MetaData();
                         metaData.setArtist(videoInfo.getAuthor());
                         metaData.setTitle(videoInfo.getTitle());
@@ -386,9 +446,9 @@ public abstract class MediaPlayerGlue extends PlaybackControlGlue implements OnI
                             onStateChanged();
                         }
                         updateProgress();
+                        mVideoInfoListener.onVideoInfoReceived(videoInfo);
                     }
                 });
-                mVideoInfoListener.onVideoInfoReceived(videoInfo);
             }
         });
 
@@ -396,7 +456,12 @@ public abstract class MediaPlayerGlue extends PlaybackControlGlue implements OnI
             @Override
             public void onBufferUpdate(final float videoDuration, final float loadedFraction) {
                 Log.i(TAG, "onBufferUpdate : " + loadedFraction);
-                mControlsRow.setBufferedProgress((int) (videoDuration * 1000 * loadedFraction));
+                runOnMainThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mControlsRow.setBufferedProgress((int) (videoDuration * 1000 * loadedFraction));
+                    }
+                });
             }
         });
 
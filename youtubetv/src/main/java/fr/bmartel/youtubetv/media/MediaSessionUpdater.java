@@ -0,0 +1,323 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.media;
+
+import android.graphics.Bitmap;
+import android.media.MediaMetadata;
+import android.media.session.MediaSession;
+import android.media.session.PlaybackState;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+
+import fr.bmartel.youtubetv.YoutubeTvConst;
+import fr.bmartel.youtubetv.cache.ArtworkCache;
+import fr.bmartel.youtubetv.utils.TaskExecutor;
+import fr.bmartel.youtubetv.utils.WebviewUtils;
+
+/**
+ * Publish player metadata & state to the media session (now playing card). Bursts of updates are debounced & only
+ * what changed since the last publish is sent. Title & state are published at once, the artwork is fetched in
+ * background when the video changes & added to the metadata when it is available.
+ *
+ * @author Bertrand Martel
+ */
+public class MediaSessionUpdater {
+
+    private final static String TAG = MediaSessionUpdater.class.getSimpleName();
+
+    /**
+     * key of artwork tasks (a new video cancels the artwork fetch of the previous one).
+     */
+    private final static String ARTWORK_TASK = "artwork";
+
+    /**
+     * max difference in milliseconds between reported position & position extrapolated by the media session.
+     */
+    private final static long POSITION_TOLERANCE = 1000;
+
+    /**
+     * Handler of main thread.
+     */
+    private final Handler mHandler;
+
+    /**
+     * executor used to fetch artworks.
+     */
+    private final TaskExecutor mTaskExecutor;
+
+    /**
+     * suggested quality for thumbnail.
+     */
+    private final String mThumbnailQuality;
+
+    /*
+     * last requested values.
+     */
+    private MediaSession mMediaSession;
+    private String mVideoId;
+    private String mTitle;
+    private int mState;
+    private long mPosition;
+    private float mSpeed;
+
+    /*
+     * last published values.
+     */
+    private MediaSession mPublishedSession;
+    private String mPublishedVideoId;
+    private String mPublishedTitle;
+    private int mPublishedState = -1;
+    private long mPublishedPosition;
+    private float mPublishedSpeed;
+    private long mPublishedTime;
+    private Bitmap mPublishedArtwork;
+
+    /**
+     * video id for which artwork is being fetched.
+     */
+    private String mFetchingVideoId;
+
+    /**
+     * task publishing last requested values.
+     */
+    private final Runnable mPublishTask = new Runnable() {
+        @Override
+        public void run() {
+            publish();
+        }
+    };
+
+    /**
+     * Build media session updater.
+     *
+     * @param handler          main thread handler
+     * @param taskExecutor     executor used to fetch artworks
+     * @param thumbnailQuality suggested quality for thumbnail
+     */
+    public MediaSessionUpdater(final Handler handler, final TaskExecutor taskExecutor, final String thumbnailQuality) {
+        mHandler = handler;
+        mTaskExecutor = taskExecutor;
+        mThumbnailQuality = thumbnailQuality;
+    }
+
+    /**
+     * Request a media session update (main thread). The update is published after a short delay, superseding the
+     * updates requested in the meantime.
+     *
+     * @param mediaSession media session
+     * @param videoId      video id
+     * @param title        video title
+     * @param state        playback state
+     * @param position     position in milliseconds
+     * @param speed        playback speed
+     */
+    public void update(final MediaSession mediaSession,
+                       final String videoId,
+                       final String title,
+                       final int state,
+                       final long position,
+                       final float speed) {
+        mMediaSession = mediaSession;
+        mVideoId = videoId;
+        mTitle = title;
+        mState = state;
+        mPosition = position;
+        mSpeed = speed;
+        mHandler.removeCallbacks(mPublishTask);
+        mHandler.postDelayed(mPublishTask, YoutubeTvConst.MEDIA_SESSION_DEBOUNCE);
+    }
+
+    /**
+     * Forget published values & cancel pending updates (main thread).
+     */
+    public void reset() {
+        mHandler.removeCallbacks(mPublishTask);
+        mTaskExecutor.cancel(ARTWORK_TASK);
+        mFetchingVideoId = null;
+        mPublishedSession = null;
+        mPublishedVideoId = null;
+        mPublishedTitle = null;
+        mPublishedArtwork = null;
+        mPublishedState = -1;
+    }
+
+    /**
+     * Publish what changed since last publish.
+     */
+    private void publish() {
+
+        if (mMediaSession == null || !mMediaSession.isActive()) {
+            return;
+        }
+
+        if (mMediaSession != mPublishedSession) {
+            reset();
+            mPublishedSession = mMediaSession;
+        }
+
+        if (!equals(mVideoId, mPublishedVideoId)) {
+            // artwork of the previous video is not kept
+            publishMetadata(mTitle, null);
+            mPublishedVideoId = mVideoId;
+            fetchArtwork(mVideoId);
+        } else if (!equals(mTitle, mPublishedTitle)) {
+            publishMetadata(mTitle, mPublishedArtwork);
+        }
+        publishState();
+    }
+
+    /**
+     * Publish playback state if it differs from the one the media session is extrapolating.
+     */
+    private void publishState() {
+
+        long now = SystemClock.elapsedRealtime();
+
+        if (mState == mPublishedState && mSpeed == mPublishedSpeed) {
+            long expectedPosition = mPublishedPosition;
+            if (mState == PlaybackState.STATE_PLAYING) {
+                expectedPosition += (long) ((now - mPublishedTime) * mPublishedSpeed);
+            }
+            if (Math.abs(expectedPosition - mPosition) < POSITION_TOLERANCE) {
+                return;
+            }
+        }
+
+        PlaybackState.Builder stateBuilder = new PlaybackState.Builder();
+        stateBuilder.setState(mState, mPosition, mSpeed, now);
+        mMediaSession.setPlaybackState(stateBuilder.build());
+
+        mPublishedState = mState;
+        mPublishedPosition = mPosition;
+        mPublishedSpeed = mSpeed;
+        mPublishedTime = now;
+    }
+
+    /**
+     * Publish metadata.
+     *
+     * @param title  video title
+     * @param bitmap artwork (may be null)
+     */
+    private void publishMetadata(final String title, final Bitmap bitmap) {
+
+        MediaMetadata.Builder mediaBuilder = new MediaMetadata.Builder();
+        mediaBuilder.putString(MediaMetadata.METADATA_KEY_TITLE, title);
+        if (bitmap != null) {
+            mediaBuilder.putBitmap(MediaMetadata.METADATA_KEY_ART, bitmap);
+        }
+        mMediaSession.setMetadata(mediaBuilder.build());
+
+        mPublishedTitle = title;
+        mPublishedArtwork = bitmap;
+    }
+
+    /**
+     * Fetch artwork in background then add it to the published metadata.
+     *
+     * @param videoId video id
+     */
+    private void fetchArtwork(final String videoId) {
+
+        mFetchingVideoId = videoId;
+
+        mTaskExecutor.submit(ARTWORK_TASK, new Runnable() {
+            @Override
+            public void run() {
+
+                String thumbnailUrl = WebviewUtils.getThumbnailURL(videoId, mThumbnailQuality);
+                try {
+                    thumbnailUrl = WebviewUtils.getThumbnailQuality(videoId, mThumbnailQuality);
+                } catch (IOException e) {
+                    Log.e(TAG, "getThumbnailQuality", e);
+                }
+
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                final Bitmap bitmap = ArtworkCache.getInstance().getArtwork(videoId, thumbnailUrl);
+
+                if (Thread.currentThread().isInterrupted() || bitmap == null) {
+                    return;
+                }
+
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        publishArtwork(videoId, bitmap);
+                    }
+                });
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onArtworkDone(videoId);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Called when the artwork task has ended (published, cancelled, discarded or failed).
+     *
+     * @param videoId video id
+     */
+    private void onArtworkDone(final String videoId) {
+        if (equals(videoId, mFetchingVideoId)) {
+            mFetchingVideoId = null;
+        }
+    }
+
+    /**
+     * Add artwork to the published metadata if its video is still the published one.
+     *
+     * @param videoId video id
+     * @param bitmap  artwork
+     */
+    private void publishArtwork(final String videoId, final Bitmap bitmap) {
+
+        if (!equals(videoId, mFetchingVideoId)) {
+            return;
+        }
+        mFetchingVideoId = null;
+
+        if (mMediaSession == null || !mMediaSession.isActive() || mMediaSession != mPublishedSession ||
+                !equals(videoId, mPublishedVideoId)) {
+            return;
+        }
+        publishMetadata(mPublishedTitle, bitmap);
+    }
+
+    private static boolean equals(final String first, final String second) {
+        return (first == null) ? (second == null) : first.equals(second);
+    }
+}
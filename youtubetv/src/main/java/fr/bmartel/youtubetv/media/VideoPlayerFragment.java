@@ -100,6 +100,18 @@ public class VideoPlayerFragment extends PlaybackOverlayFragment implements
         mGlue.enableProgressUpdating(mGlue.hasValidMedia() && mGlue.isMediaPlaying());
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        youtubeTvView.onResume();
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        youtubeTvView.onPause();
+    }
+
     @Override
     public void onStop() {
         super.onStop();
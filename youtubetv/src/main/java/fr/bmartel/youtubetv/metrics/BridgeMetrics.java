@@ -0,0 +1,214 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.metrics;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import fr.bmartel.youtubetv.listener.IMetricsReporter;
+
+/**
+ * Round trip metrics of Javascript queries by JS function : latency histogram, timeouts, late replies & number of
+ * queries waiting for a response.
+ *
+ * @author Bertrand Martel
+ */
+public class BridgeMetrics {
+
+    /**
+     * number of timed out request ids remembered to detect late replies.
+     */
+    private final static int MAX_EXPIRED_REQUESTS = 64;
+
+    /**
+     * counters by JS function name.
+     */
+    private final Map<String, Counters> mMethods = new TreeMap<>();
+
+    /**
+     * JS function name of the last timed out requests by request id.
+     */
+    private final Map<Integer, String> mExpiredRequests = new LinkedHashMap<Integer, String>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > MAX_EXPIRED_REQUESTS;
+        }
+    };
+
+    private int mQueueDepth;
+
+    private int mMaxQueueDepth;
+
+    private int mUnknownReplyCount;
+
+    /**
+     * Handler used to call the reporter.
+     */
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private volatile IMetricsReporter mReporter;
+
+    private volatile int mReportInterval;
+
+    private final Runnable mReportTask = new Runnable() {
+        @Override
+        public void run() {
+            IMetricsReporter reporter = mReporter;
+            if (reporter != null) {
+                reporter.report(snapshot());
+                mHandler.postDelayed(this, mReportInterval);
+            }
+        }
+    };
+
+    /**
+     * Record a query sent to Javascript.
+     *
+     * @param queueDepth number of queries waiting for a response
+     */
+    public synchronized void onQuerySent(final int queueDepth) {
+        setQueueDepth(queueDepth);
+    }
+
+    /**
+     * Record a response received in time.
+     *
+     * @param methodName JS function name
+     * @param latency    round trip time in milliseconds
+     * @param queueDepth number of queries waiting for a response
+     */
+    public synchronized void onResponse(final String methodName, final long latency, final int queueDepth) {
+        Counters counters = getCounters(methodName);
+        counters.mCount++;
+        counters.mTotalLatency += latency;
+        counters.mMaxLatency = Math.max(counters.mMaxLatency, latency);
+        counters.mHistogram[MethodMetrics.getBucket(latency)]++;
+        setQueueDepth(queueDepth);
+    }
+
+    /**
+     * Record a query which has received no response in time.
+     *
+     * @param methodName JS function name
+     * @param requestId  request id
+     * @param queueDepth number of queries waiting for a response
+     */
+    public synchronized void onTimeout(final String methodName, final int requestId, final int queueDepth) {
+        getCounters(methodName).mTimeoutCount++;
+        mExpiredRequests.put(requestId, methodName);
+        setQueueDepth(queueDepth);
+    }
+
+    /**
+     * Record a response matching no pending query.
+     *
+     * @param requestId request id
+     */
+    public synchronized void onUnmatchedResponse(final int requestId) {
+        String methodName = mExpiredRequests.remove(requestId);
+        if (methodName != null) {
+            getCounters(methodName).mLateReplyCount++;
+        } else {
+            mUnknownReplyCount++;
+        }
+    }
+
+    /**
+     * Get current metrics.
+     *
+     * @return
+     */
+    public synchronized BridgeMetricsSnapshot snapshot() {
+        Map<String, MethodMetrics> methods = new LinkedHashMap<>();
+        for (Map.Entry<String, Counters> entry : mMethods.entrySet()) {
+            Counters counters = entry.getValue();
+            methods.put(entry.getKey(), new MethodMetrics(entry.getKey(),
+                    counters.mCount,
+                    counters.mTimeoutCount,
+                    counters.mLateReplyCount,
+                    counters.mTotalLatency,
+                    counters.mMaxLatency,
+                    counters.mHistogram));
+        }
+        return new BridgeMetricsSnapshot(methods, mQueueDepth, mMaxQueueDepth, mUnknownReplyCount,
+                SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Reset all counters (pending queries are still counted in queue depth).
+     */
+    public synchronized void reset() {
+        mMethods.clear();
+        mExpiredRequests.clear();
+        mMaxQueueDepth = mQueueDepth;
+        mUnknownReplyCount = 0;
+    }
+
+    /**
+     * Set a reporter called periodically on main thread with current metrics.
+     *
+     * @param reporter       metrics reporter (null to stop reporting)
+     * @param reportInterval reporting interval in milliseconds
+     */
+    public void setReporter(final IMetricsReporter reporter, final int reportInterval) {
+        mHandler.removeCallbacks(mReportTask);
+        mReporter = reporter;
+        mReportInterval = reportInterval;
+        if (reporter != null) {
+            mHandler.postDelayed(mReportTask, reportInterval);
+        }
+    }
+
+    private void setQueueDepth(final int queueDepth) {
+        mQueueDepth = queueDepth;
+        mMaxQueueDepth = Math.max(mMaxQueueDepth, queueDepth);
+    }
+
+    private Counters getCounters(final String methodName) {
+        Counters counters = mMethods.get(methodName);
+        if (counters == null) {
+            counters = new Counters();
+            mMethods.put(methodName, counters);
+        }
+        return counters;
+    }
+
+    /**
+     * Mutable counters of a JS function.
+     */
+    private static class Counters {
+
+        private int mCount;
+        private int mTimeoutCount;
+        private int mLateReplyCount;
+        private long mTotalLatency;
+        private long mMaxLatency;
+        private final int[] mHistogram = new int[MethodMetrics.LATENCY_BUCKETS.length + 1];
+    }
+}
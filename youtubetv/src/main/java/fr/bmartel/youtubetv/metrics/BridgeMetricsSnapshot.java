@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of Javascript bridge metrics.
+ *
+ * @author Bertrand Martel
+ */
+public class BridgeMetricsSnapshot {
+
+    /**
+     * metrics by JS function name.
+     */
+    private final Map<String, MethodMetrics> mMethods;
+
+    /**
+     * number of queries waiting for a response.
+     */
+    private final int mQueueDepth;
+
+    /**
+     * max number of queries waiting for a response at the same time.
+     */
+    private final int mMaxQueueDepth;
+
+    /**
+     * number of responses matching no query issued.
+     */
+    private final int mUnknownReplyCount;
+
+    /**
+     * time at which the snapshot has been taken (SystemClock.elapsedRealtime() in milliseconds).
+     */
+    private final long mTimestamp;
+
+    /**
+     * Build bridge metrics snapshot.
+     *
+     * @param methods           metrics by JS function name
+     * @param queueDepth        number of pending queries
+     * @param maxQueueDepth     max number of pending queries
+     * @param unknownReplyCount number of responses matching no query
+     * @param timestamp         snapshot time in milliseconds
+     */
+    public BridgeMetricsSnapshot(final Map<String, MethodMetrics> methods,
+                                 final int queueDepth,
+                                 final int maxQueueDepth,
+                                 final int unknownReplyCount,
+                                 final long timestamp) {
+        mMethods = Collections.unmodifiableMap(methods);
+        mQueueDepth = queueDepth;
+        mMaxQueueDepth = maxQueueDepth;
+        mUnknownReplyCount = unknownReplyCount;
+        mTimestamp = timestamp;
+    }
+
+    public Map<String, MethodMetrics> getMethods() {
+        return mMethods;
+    }
+
+    /**
+     * Get metrics of a JS function.
+     *
+     * @param methodName JS function name
+     * @return metrics or null if this function has not been queried
+     */
+    public MethodMetrics getMethod(final String methodName) {
+        return mMethods.get(methodName);
+    }
+
+    public int getQueueDepth() {
+        return mQueueDepth;
+    }
+
+    public int getMaxQueueDepth() {
+        return mMaxQueueDepth;
+    }
+
+    public int getUnknownReplyCount() {
+        return mUnknownReplyCount;
+    }
+
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("queueDepth=" + mQueueDepth + " maxQueueDepth=" + mMaxQueueDepth +
+                " unknownReplies=" + mUnknownReplyCount);
+        for (MethodMetrics method : mMethods.values()) {
+            builder.append('\n').append(method);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Immutable round trip statistics of a Javascript query method.
+ *
+ * @author Bertrand Martel
+ */
+public class MethodMetrics {
+
+    /**
+     * upper bounds in milliseconds of latency histogram buckets (last bucket holds all greater latencies).
+     */
+    public final static long[] LATENCY_BUCKETS = new long[]{1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private final String mMethodName;
+    private final int mCount;
+    private final int mTimeoutCount;
+    private final int mLateReplyCount;
+    private final long mTotalLatency;
+    private final long mMaxLatency;
+    private final int[] mHistogram;
+
+    /**
+     * Build method metrics.
+     *
+     * @param methodName     JS function name
+     * @param count          number of responses received in time
+     * @param timeoutCount   number of queries timed out
+     * @param lateReplyCount number of responses received after timeout
+     * @param totalLatency   sum of round trip times in milliseconds
+     * @param maxLatency     max round trip time in milliseconds
+     * @param histogram      number of responses by latency bucket (LATENCY_BUCKETS length + 1)
+     */
+    public MethodMetrics(final String methodName,
+                         final int count,
+                         final int timeoutCount,
+                         final int lateReplyCount,
+                         final long totalLatency,
+                         final long maxLatency,
+                         final int[] histogram) {
+        mMethodName = methodName;
+        mCount = count;
+        mTimeoutCount = timeoutCount;
+        mLateReplyCount = lateReplyCount;
+        mTotalLatency = totalLatency;
+        mMaxLatency = maxLatency;
+        mHistogram = Arrays.copyOf(histogram, histogram.length);
+    }
+
+    /**
+     * Get histogram bucket of a latency.
+     *
+     * @param latency latency in milliseconds
+     * @return bucket index
+     */
+    public static int getBucket(final long latency) {
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            if (latency <= LATENCY_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BUCKETS.length;
+    }
+
+    public String getMethodName() {
+        return mMethodName;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public int getTimeoutCount() {
+        return mTimeoutCount;
+    }
+
+    public int getLateReplyCount() {
+        return mLateReplyCount;
+    }
+
+    public long getMaxLatency() {
+        return mMaxLatency;
+    }
+
+    /**
+     * Get mean round trip time of responses received in time.
+     *
+     * @return mean latency in milliseconds (0 if no response)
+     */
+    public float getMeanLatency() {
+        return (mCount > 0) ? (float) mTotalLatency / mCount : 0;
+    }
+
+    /**
+     * Get number of responses by latency bucket.
+     *
+     * @return counts indexed like {@link #LATENCY_BUCKETS}, the last one counting latencies above all buckets
+     */
+    public int[] getHistogram() {
+        return Arrays.copyOf(mHistogram, mHistogram.length);
+    }
+
+    /**
+     * Get a latency percentile from histogram.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return upper bound in milliseconds of the bucket holding this percentile (max latency for the last bucket),
+     * -1 if no response
+     */
+    public long getPercentile(final float percentile) {
+        if (mCount == 0) {
+            return -1;
+        }
+        int rank = Math.max(1, (int) Math.ceil(percentile / 100f * mCount));
+        int cumulated = 0;
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            cumulated += mHistogram[i];
+            if (cumulated >= rank) {
+                return Math.min(LATENCY_BUCKETS[i], mMaxLatency);
+            }
+        }
+        return mMaxLatency;
+    }
+
+    /**
+     * Get fraction of queries which have timed out.
+     *
+     * @return timeout ratio between 0 and 1
+     */
+    public float getTimeoutRatio() {
+        int total = mCount + mTimeoutCount;
+        return (total > 0) ? (float) mTimeoutCount / total : 0;
+    }
+
+    @Override
+    public String toString() {
+        return mMethodName + " count=" + mCount + " timeouts=" + mTimeoutCount + " late=" + mLateReplyCount +
+                " mean=" + getMeanLatency() + "ms p50=" + getPercentile(50) + "ms p99=" + getPercentile(99) +
+                "ms max=" + mMaxLatency + "ms";
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.metrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import fr.bmartel.youtubetv.YoutubeTvConst;
+
+/**
+ * Aggregation of startup milestone times over the last sessions, to follow time to first frame percentiles.
+ *
+ * @author Bertrand Martel
+ */
+public class StartupStatistics {
+
+    private static StartupStatistics mInstance;
+
+    /**
+     * max number of samples kept by milestone.
+     */
+    private final int mMaxSamples;
+
+    /**
+     * samples by milestone name.
+     */
+    private final Map<String, Samples> mSamples = new HashMap<>();
+
+    /**
+     * Build startup statistics.
+     *
+     * @param maxSamples max number of samples kept by milestone (oldest samples are dropped)
+     */
+    public StartupStatistics(final int maxSamples) {
+        mMaxSamples = maxSamples;
+    }
+
+    /**
+     * Get statistics shared by all player views.
+     *
+     * @return
+     */
+    public static synchronized StartupStatistics getInstance() {
+        if (mInstance == null) {
+            mInstance = new StartupStatistics(YoutubeTvConst.STARTUP_SAMPLE_COUNT);
+        }
+        return mInstance;
+    }
+
+    /**
+     * Add a milestone sample.
+     *
+     * @param milestone milestone name
+     * @param time      time in milliseconds since session start
+     */
+    public synchronized void record(final String milestone, final long time) {
+        Samples samples = mSamples.get(milestone);
+        if (samples == null) {
+            samples = new Samples(mMaxSamples);
+            mSamples.put(milestone, samples);
+        }
+        samples.add(time);
+    }
+
+    /**
+     * Get a percentile of a milestone time (nearest rank).
+     *
+     * @param milestone  milestone name
+     * @param percentile percentile between 0 and 100
+     * @return time in milliseconds since session start or -1 if there is no sample
+     */
+    public synchronized long getPercentile(final String milestone, final float percentile) {
+        Samples samples = mSamples.get(milestone);
+        if (samples == null || samples.mCount == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples.mValues, samples.mCount);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100f * sorted.length);
+        return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+    }
+
+    /**
+     * Get number of samples kept for a milestone.
+     *
+     * @param milestone milestone name
+     * @return
+     */
+    public synchronized int getSampleCount(final String milestone) {
+        Samples samples = mSamples.get(milestone);
+        return (samples != null) ? samples.mCount : 0;
+    }
+
+    /**
+     * Get names of milestones having samples.
+     *
+     * @return
+     */
+    public synchronized Set<String> getMilestones() {
+        return new TreeSet<>(mSamples.keySet());
+    }
+
+    /**
+     * Remove all samples.
+     */
+    public synchronized void reset() {
+        mSamples.clear();
+    }
+
+    /**
+     * Ring buffer of the last samples of a milestone.
+     */
+    private static class Samples {
+
+        private final long[] mValues;
+        private int mCount;
+        private int mNext;
+
+        Samples(final int maxSamples) {
+            mValues = new long[maxSamples];
+        }
+
+        void add(final long value) {
+            mValues[mNext] = value;
+            mNext = (mNext + 1) % mValues.length;
+            mCount = Math.min(mCount + 1, mValues.length);
+        }
+    }
+}
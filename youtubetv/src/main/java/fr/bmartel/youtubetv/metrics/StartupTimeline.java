@@ -0,0 +1,230 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.metrics;
+
+import android.os.SystemClock;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Milestones reached while loading a player page, from view initialization to first playing state. Times are
+ * monotonic (SystemClock.elapsedRealtime()) & given in milliseconds since the start of the session.
+ * <p/>
+ * Javascript milestones are measured with performance.now() on page clock : they are converted to Java clock with
+ * an offset estimated from their reception time. As bridge latency is never negative, the smallest difference
+ * between reception time & page time is the best estimate of the offset.
+ *
+ * @author Bertrand Martel
+ */
+public class StartupTimeline {
+
+    /**
+     * prefix of milestones measured on Javascript side.
+     */
+    public final static String JS_PREFIX = "js.";
+
+    /**
+     * page finished loading.
+     */
+    public final static String PAGE_LOADED = "pageLoaded";
+
+    /**
+     * player ready event received.
+     */
+    public final static String PLAYER_READY = "playerReady";
+
+    /**
+     * first playing state received.
+     */
+    public final static String FIRST_PLAYING = "firstPlaying";
+
+    /**
+     * loading progress bar hidden.
+     */
+    public final static String LOADING_HIDDEN = "loadingHidden";
+
+    private final static AtomicInteger mNextSessionId = new AtomicInteger();
+
+    /**
+     * session id.
+     */
+    private final int mSessionId;
+
+    /**
+     * session start time (elapsedRealtime in milliseconds).
+     */
+    private final long mStartTime;
+
+    /**
+     * Java milestones (elapsedRealtime in milliseconds).
+     */
+    private final Map<String, Long> mMilestones = new LinkedHashMap<>();
+
+    /**
+     * Javascript milestones (page time in milliseconds).
+     */
+    private final Map<String, Float> mJsMilestones = new LinkedHashMap<>();
+
+    /**
+     * offset between page clock & elapsedRealtime in milliseconds.
+     */
+    private double mClockOffset = Double.NaN;
+
+    /**
+     * Start a new session now.
+     */
+    public StartupTimeline() {
+        this(SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Start a new session.
+     *
+     * @param startTime session start time (elapsedRealtime in milliseconds)
+     */
+    public StartupTimeline(final long startTime) {
+        mSessionId = mNextSessionId.incrementAndGet();
+        mStartTime = startTime;
+    }
+
+    /**
+     * Record a Java milestone now. Only the first occurrence of a milestone is recorded.
+     *
+     * @param milestone milestone name
+     * @return time in milliseconds since session start or -1 if this milestone was already recorded
+     */
+    public synchronized long mark(final String milestone) {
+        if (mMilestones.containsKey(milestone)) {
+            return -1;
+        }
+        long now = SystemClock.elapsedRealtime();
+        mMilestones.put(milestone, now);
+        return now - mStartTime;
+    }
+
+    /**
+     * Record a Javascript milestone. Only the first occurrence of a milestone is recorded.
+     *
+     * @param milestone milestone name (without prefix)
+     * @param pageTime  page time in milliseconds (performance.now())
+     * @return time in milliseconds since session start or -1 if this milestone was already recorded
+     */
+    public synchronized long markJs(final String milestone, final float pageTime) {
+
+        double offset = SystemClock.elapsedRealtime() - pageTime;
+        if (Double.isNaN(mClockOffset) || offset < mClockOffset) {
+            mClockOffset = offset;
+        }
+        if (mJsMilestones.containsKey(milestone)) {
+            return -1;
+        }
+        mJsMilestones.put(milestone, pageTime);
+        return toSessionTime(pageTime);
+    }
+
+    private long toSessionTime(final float pageTime) {
+        return Math.round(pageTime + mClockOffset) - mStartTime;
+    }
+
+    public int getSessionId() {
+        return mSessionId;
+    }
+
+    public long getStartTime() {
+        return mStartTime;
+    }
+
+    /**
+     * Get estimated offset between page clock & elapsedRealtime.
+     *
+     * @return offset in milliseconds (NaN if no Javascript milestone has been received)
+     */
+    public synchronized double getClockOffset() {
+        return mClockOffset;
+    }
+
+    /**
+     * Get time of a milestone (Javascript milestones are prefixed with {@link #JS_PREFIX}).
+     *
+     * @param milestone milestone name
+     * @return time in milliseconds since session start or -1 if not reached
+     */
+    public synchronized long getMilestone(final String milestone) {
+        if (milestone.startsWith(JS_PREFIX)) {
+            Float pageTime = mJsMilestones.get(milestone.substring(JS_PREFIX.length()));
+            return (pageTime != null) ? toSessionTime(pageTime) : -1;
+        }
+        Long time = mMilestones.get(milestone);
+        return (time != null) ? time - mStartTime : -1;
+    }
+
+    /**
+     * Get all milestones (Javascript milestones are prefixed with {@link #JS_PREFIX}).
+     *
+     * @return time in milliseconds since session start by milestone name, in chronological order
+     */
+    public synchronized Map<String, Long> getMilestones() {
+
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+
+        for (Map.Entry<String, Long> milestone : mMilestones.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(milestone.getKey(), milestone.getValue() - mStartTime));
+        }
+        for (Map.Entry<String, Float> milestone : mJsMilestones.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(JS_PREFIX + milestone.getKey(), toSessionTime(milestone.getValue())));
+        }
+        Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+            @Override
+            public int compare(Map.Entry<String, Long> first, Map.Entry<String, Long> second) {
+                return first.getValue().compareTo(second.getValue());
+            }
+        });
+        Map<String, Long> milestones = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            milestones.put(entry.getKey(), entry.getValue());
+        }
+        return milestones;
+    }
+
+    /**
+     * Get raw Javascript milestones.
+     *
+     * @return page time in milliseconds (performance.now()) by milestone name, in reception order
+     */
+    public synchronized Map<String, Float> getJsMilestones() {
+        return new LinkedHashMap<>(mJsMilestones);
+    }
+
+    @Override
+    public String toString() {
+        return "session " + mSessionId + " " + getMilestones();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.model;
+
+/**
+ * Immutable snapshot of the player state pushed from Javascript side.
+ *
+ * @author Bertrand Martel
+ */
+public class PlayerStateSnapshot {
+
+    /**
+     * player state.
+     */
+    private final VideoState mState;
+
+    /**
+     * elapsed time in seconds since the video started playing.
+     */
+    private final float mCurrentTime;
+
+    /**
+     * video duration in seconds.
+     */
+    private final float mDuration;
+
+    /**
+     * player volume between 0 and 100.
+     */
+    private final int mVolume;
+
+    /**
+     * player muted state.
+     */
+    private final boolean mMuted;
+
+    /**
+     * player playback rate.
+     */
+    private final float mPlaybackRate;
+
+    /**
+     * actual video quality.
+     */
+    private final VideoQuality mPlaybackQuality;
+
+    /**
+     * percentage of the video that the player shows as buffered.
+     */
+    private final float mVideoLoadedFraction;
+
+    /**
+     * index of the playlist video that is currently playing.
+     */
+    private final int mPlaylistIndex;
+
+    /**
+     * current video id.
+     */
+    private final String mVideoId;
+
+    /**
+     * current video title.
+     */
+    private final String mVideoTitle;
+
+    /**
+     * time at which the snapshot has been received (SystemClock.elapsedRealtime() in milliseconds).
+     */
+    private final long mTimestamp;
+
+    /**
+     * Build player state snapshot.
+     *
+     * @param state               player state
+     * @param currentTime         current time in seconds
+     * @param duration            video duration in seconds
+     * @param volume              player volume
+     * @param muted               player muted state
+     * @param playbackRate        player playback rate
+     * @param playbackQuality     actual video quality
+     * @param videoLoadedFraction video loaded fraction
+     * @param playlistIndex       playlist index
+     * @param videoId             current video id
+     * @param videoTitle          current video title
+     * @param timestamp           reception time in milliseconds
+     */
+    public PlayerStateSnapshot(final VideoState state,
+                               final float currentTime,
+                               final float duration,
+                               final int volume,
+                               final boolean muted,
+                               final float playbackRate,
+                               final VideoQuality playbackQuality,
+                               final float videoLoadedFraction,
+                               final int playlistIndex,
+                               final String videoId,
+                               final String videoTitle,
+                               final long timestamp) {
+        mState = state;
+        mCurrentTime = currentTime;
+        mDuration = duration;
+        mVolume = volume;
+        mMuted = muted;
+        mPlaybackRate = playbackRate;
+        mPlaybackQuality = playbackQuality;
+        mVideoLoadedFraction = videoLoadedFraction;
+        mPlaylistIndex = playlistIndex;
+        mVideoId = (videoId != null) ? videoId : "";
+        mVideoTitle = (videoTitle != null) ? videoTitle : "";
+        mTimestamp = timestamp;
+    }
+
+    public VideoState getState() {
+        return mState;
+    }
+
+    public float getCurrentTime() {
+        return mCurrentTime;
+    }
+
+    /**
+     * Get current time extrapolated from the snapshot : while playing, the time elapsed since the snapshot has been
+     * received is added at the playback rate (without going past the video duration).
+     *
+     * @param now current time (SystemClock.elapsedRealtime() in milliseconds)
+     * @return current time in seconds
+     */
+    public float getCurrentTime(final long now) {
+        if (mState != VideoState.PLAYING || now <= mTimestamp) {
+            return mCurrentTime;
+        }
+        float currentTime = mCurrentTime + (now - mTimestamp) * mPlaybackRate / 1000f;
+        return (mDuration > 0) ? Math.min(currentTime, mDuration) : currentTime;
+    }
+
+    public float getDuration() {
+        return mDuration;
+    }
+
+    public int getVolume() {
+        return mVolume;
+    }
+
+    public boolean isMuted() {
+        return mMuted;
+    }
+
+    public float getPlaybackRate() {
+        return mPlaybackRate;
+    }
+
+    public VideoQuality getPlaybackQuality() {
+        return mPlaybackQuality;
+    }
+
+    public float getVideoLoadedFraction() {
+        return mVideoLoadedFraction;
+    }
+
+    public int getPlaylistIndex() {
+        return mPlaylistIndex;
+    }
+
+    public String getVideoId() {
+        return mVideoId;
+    }
+
+    public String getVideoTitle() {
+        return mVideoTitle;
+    }
+
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+}
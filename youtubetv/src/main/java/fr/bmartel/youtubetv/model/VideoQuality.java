@@ -24,6 +24,9 @@
 
 package fr.bmartel.youtubetv.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Video Quality enum.
  * Check : https://developers.google.com/youtube/js_api_reference#Playback_quality
@@ -43,6 +46,14 @@ public enum VideoQuality {
     HD_1440(8, "hd1440"),
     HD_2160(9, "hd2160");
 
+    /**
+     * qualities from the highest resolution to the lowest, in the order used by the player ("highres" is above
+     * hd2160 although its index is lower).
+     */
+    private final static VideoQuality[] BEST_FIRST = {
+            HIGH_RES, HD_2160, HD_1440, HD_1080, HD_720, LARGE, MEDIUM, SMALL, TINY, AUTO
+    };
+
     private String mValue;
     private int mIndex;
 
@@ -59,6 +70,60 @@ public enum VideoQuality {
         return mValue;
     }
 
+    /**
+     * Get rank of this quality by actual resolution (0 for auto, higher for higher resolutions). Use this rather
+     * than {@link #getIndex()} to compare qualities.
+     *
+     * @return
+     */
+    public int getResolutionRank() {
+        for (int i = 0; i < BEST_FIRST.length; i++) {
+            if (BEST_FIRST[i] == this) {
+                return BEST_FIRST.length - 1 - i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get bit of this quality in a quality bitmask.
+     *
+     * @return
+     */
+    public int getMask() {
+        return 1 << mIndex;
+    }
+
+    /**
+     * Encode a list of qualities as a bitmask.
+     *
+     * @param qualityList list of video quality
+     * @return quality bitmask
+     */
+    public static int toMask(List<VideoQuality> qualityList) {
+        int mask = 0;
+        for (int i = 0; i < qualityList.size(); i++) {
+            mask |= qualityList.get(i).getMask();
+        }
+        return mask;
+    }
+
+    /**
+     * Decode a quality bitmask.
+     *
+     * @param mask quality bitmask
+     * @return list of video quality from the highest resolution to the lowest (same order as the player)
+     */
+    public static List<VideoQuality> fromMask(int mask) {
+        List<VideoQuality> qualityList = new ArrayList<>();
+        for (VideoQuality quality : BEST_FIRST) {
+            if ((mask & quality.getMask()) != 0) {
+                qualityList.add(quality);
+            }
+        }
+        return qualityList;
+    }
+
     public static VideoQuality getVideoQuality(int value) {
 
         for (VideoQuality quality : VideoQuality.values()) {
@@ -0,0 +1,380 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.playlist;
+
+import android.net.Uri;
+import android.util.Log;
+import android.util.LruCache;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import fr.bmartel.youtubetv.YoutubeTvConst;
+import fr.bmartel.youtubetv.YoutubeTvView;
+import fr.bmartel.youtubetv.YoutubeTvViewPool;
+import fr.bmartel.youtubetv.cache.ArtworkCache;
+import fr.bmartel.youtubetv.listener.IPlayerListener;
+import fr.bmartel.youtubetv.listener.IPlaylistTransitionListener;
+import fr.bmartel.youtubetv.model.VideoInfo;
+import fr.bmartel.youtubetv.model.VideoQuality;
+import fr.bmartel.youtubetv.model.VideoState;
+import fr.bmartel.youtubetv.utils.TaskExecutor;
+import fr.bmartel.youtubetv.utils.WebviewUtils;
+
+/**
+ * Prefetch upcoming playlist items : thumbnails, artworks & metadata of the next items are resolved in background
+ * and the next item is cued in a hidden player taken from a {@link YoutubeTvViewPool}, which is started as soon as
+ * the current video ends. Must be used from main thread.
+ *
+ * @author Bertrand Martel
+ */
+public class PlaylistPrefetcher implements IPlayerListener {
+
+    private final static String TAG = PlaylistPrefetcher.class.getSimpleName();
+
+    private final static String PREFETCH_TASK = "prefetch:";
+
+    /**
+     * player currently playing the playlist.
+     */
+    private YoutubeTvView mPlayer;
+
+    /**
+     * pool providing the hidden player (may be null).
+     */
+    private final YoutubeTvViewPool mPool;
+
+    /**
+     * number of upcoming items prefetched.
+     */
+    private int mDepth;
+
+    private final TaskExecutor mTaskExecutor = new TaskExecutor(TaskExecutor.getDefaultExecutor());
+
+    /**
+     * metadata of prefetched items by video id.
+     */
+    private final LruCache<String, VideoInfo> mMetadata = new LruCache<>(YoutubeTvConst.PREFETCH_METADATA_SIZE);
+
+    private IPlaylistTransitionListener mTransitionListener;
+
+    /**
+     * hidden player with the next item cued.
+     */
+    private YoutubeTvView mNextPlayer;
+
+    /**
+     * video id cued in hidden player.
+     */
+    private String mNextVideoId;
+
+    /**
+     * playlist index cued in hidden player.
+     */
+    private int mNextIndex = -1;
+
+    /**
+     * video id of the current item.
+     */
+    private String mVideoId;
+
+    /**
+     * video ids of the upcoming items.
+     */
+    private List<String> mUpcoming = new ArrayList<>();
+
+    /**
+     * Build playlist prefetcher.
+     *
+     * @param player player playing the playlist
+     * @param pool   pool providing the hidden player for the next item (null to only prefetch thumbnails & metadata)
+     * @param depth  number of upcoming items prefetched
+     */
+    public PlaylistPrefetcher(final YoutubeTvView player, final YoutubeTvViewPool pool, final int depth) {
+        mPlayer = player;
+        mPool = pool;
+        mDepth = depth;
+    }
+
+    /**
+     * Start watching the player.
+     */
+    public void start() {
+        mPlayer.addPlayerListener(this);
+    }
+
+    /**
+     * Stop watching the player, cancel prefetching & give the hidden player back to the pool.
+     */
+    public void stop() {
+        mPlayer.removePlayerListener(this);
+        mTaskExecutor.cancelAll();
+        releaseNextPlayer();
+        mVideoId = null;
+    }
+
+    /**
+     * Set number of upcoming items prefetched (applied on next item).
+     *
+     * @param depth lookahead depth
+     */
+    public void setDepth(final int depth) {
+        mDepth = depth;
+    }
+
+    /**
+     * Set listener notified when the hidden player takes over. The hidden player is only prepared if a listener is
+     * set (the application has to swap the views).
+     *
+     * @param listener transition listener
+     */
+    public void setTransitionListener(final IPlaylistTransitionListener listener) {
+        mTransitionListener = listener;
+    }
+
+    /**
+     * Get player currently playing the playlist.
+     *
+     * @return
+     */
+    public YoutubeTvView getPlayer() {
+        return mPlayer;
+    }
+
+    /**
+     * Get video ids of the upcoming items being prefetched.
+     *
+     * @return
+     */
+    public List<String> getUpcoming() {
+        return Collections.unmodifiableList(mUpcoming);
+    }
+
+    /**
+     * Get prefetched metadata of an upcoming item.
+     *
+     * @param videoId video id
+     * @return video information (without quality levels) or null if not resolved yet
+     */
+    public VideoInfo getVideoInfo(final String videoId) {
+        return mMetadata.get(videoId);
+    }
+
+    @Override
+    public void onPlayerReady(final VideoInfo videoInfo) {
+        onVideo(videoInfo);
+    }
+
+    @Override
+    public void onPlayerStateChange(final VideoState state,
+                                    final long position,
+                                    final float speed,
+                                    final float duration,
+                                    final VideoInfo videoInfo) {
+        if (state == VideoState.ENDED && mNextPlayer != null && mTransitionListener != null) {
+            transition();
+            return;
+        }
+        onVideo(videoInfo);
+    }
+
+    /**
+     * Refresh upcoming items when a new item is played. Upcoming items are taken from the player queue so that
+     * shuffle & loop order is followed.
+     *
+     * @param videoInfo current video information
+     */
+    private void onVideo(final VideoInfo videoInfo) {
+
+        if (videoInfo == null || videoInfo.getVideoId().isEmpty() || videoInfo.getVideoId().equals(mVideoId)) {
+            return;
+        }
+        mVideoId = videoInfo.getVideoId();
+
+        PlaylistQueue queue = mPlayer.getPlaylistQueue();
+
+        List<Integer> indexes = queue.getUpcoming(mDepth);
+        List<String> upcoming = new ArrayList<>();
+        for (int i = 0; i < indexes.size(); i++) {
+            upcoming.add(queue.get(indexes.get(i)));
+        }
+        mUpcoming = upcoming;
+
+        for (String videoId : upcoming) {
+            prefetch(videoId);
+        }
+
+        if (upcoming.isEmpty() || queue.isDetached()) {
+            // a locally edited queue is played by video id from the current player
+            releaseNextPlayer();
+        } else {
+            prepareNextPlayer(indexes.get(0), upcoming.get(0));
+        }
+    }
+
+    /**
+     * Cue the next item in a hidden player. The hidden player is detached : its content is loaded when its page is
+     * ready & it stays suspended until it is attached.
+     *
+     * @param index   playlist index of the next item
+     * @param videoId video id of the next item
+     */
+    private void prepareNextPlayer(final int index, final String videoId) {
+
+        String playlistId = mPlayer.getPlaylistId();
+
+        if (mPool == null || mTransitionListener == null || playlistId == null || playlistId.isEmpty() ||
+                (videoId.equals(mNextVideoId) && index == mNextIndex)) {
+            return;
+        }
+        releaseNextPlayer();
+        mNextPlayer = mPool.acquire();
+        mNextPlayer.cuePlaylist(playlistId, index, 0);
+        mNextVideoId = videoId;
+        mNextIndex = index;
+    }
+
+    /**
+     * Stop the current player & start the hidden player at the next item.
+     */
+    private void transition() {
+
+        YoutubeTvView previous = mPlayer;
+        YoutubeTvView next = mNextPlayer;
+        int index = mNextIndex;
+
+        mNextPlayer = null;
+        mNextVideoId = null;
+        mNextIndex = -1;
+        mVideoId = null;
+
+        // previous player must not go on with the playlist on its own
+        PlaylistQueue previousQueue = previous.getPlaylistQueue();
+        boolean shuffle = previousQueue.isShuffle();
+        boolean loop = previousQueue.isLoop();
+        previous.removePlayerListener(this);
+        previousQueue.clear();
+        previous.stopVideo();
+
+        mPlayer = next;
+        next.addPlayerListener(this);
+        next.setLoop(loop);
+        next.setShuffle(shuffle);
+
+        // the application attaches the next player before it is started
+        mTransitionListener.onTransition(previous, next);
+
+        next.playVideoAt(index);
+    }
+
+    private void releaseNextPlayer() {
+        if (mNextPlayer != null) {
+            mPool.release(mNextPlayer);
+            mNextPlayer = null;
+            mNextVideoId = null;
+            mNextIndex = -1;
+        }
+    }
+
+    /**
+     * Resolve thumbnail, artwork & metadata of an upcoming item in background.
+     *
+     * @param videoId video id
+     */
+    private void prefetch(final String videoId) {
+
+        final String thumbnailQuality = mPlayer.getThumbnailQuality().getValue();
+
+        mTaskExecutor.submit(PREFETCH_TASK + videoId, new Runnable() {
+            @Override
+            public void run() {
+                String thumbnailUrl = WebviewUtils.getThumbnailURL(videoId, thumbnailQuality);
+                try {
+                    thumbnailUrl = WebviewUtils.getThumbnailQuality(videoId, thumbnailQuality);
+                } catch (IOException e) {
+                    Log.e(TAG, "getThumbnailQuality", e);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                ArtworkCache.getInstance().getArtwork(videoId, thumbnailUrl);
+
+                if (mMetadata.get(videoId) == null && !Thread.currentThread().isInterrupted()) {
+                    VideoInfo videoInfo = fetchMetadata(videoId);
+                    if (videoInfo != null) {
+                        mMetadata.put(videoId, videoInfo);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Get title & author of a video from oEmbed endpoint.
+     *
+     * @param videoId video id
+     * @return video information or null if not available
+     */
+    private static VideoInfo fetchMetadata(final String videoId) {
+
+        String url = YoutubeTvConst.OEMBED_URL + Uri.encode("https://www.youtube.com/watch?v=" + videoId);
+
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            try {
+                connection.setConnectTimeout(YoutubeTvConst.HTTP_TIMEOUT);
+                connection.setReadTimeout(YoutubeTvConst.HTTP_TIMEOUT);
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    return null;
+                }
+                InputStream inputStream = connection.getInputStream();
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+                inputStream.close();
+
+                JSONObject response = new JSONObject(outputStream.toString("UTF-8"));
+                return new VideoInfo(videoId, response.optString("author_name"), response.optString("title"),
+                        Collections.<VideoQuality>emptyList());
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "fetch metadata " + videoId, e);
+            return null;
+        }
+    }
+}
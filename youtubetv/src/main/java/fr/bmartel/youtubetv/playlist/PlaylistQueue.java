@@ -0,0 +1,528 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.playlist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import fr.bmartel.youtubetv.listener.IPlaylistQueueListener;
+
+/**
+ * Java side model of the player playlist. Items are kept in playlist order, the play order is an index permutation
+ * (identity when shuffle is disabled) with its inverse, so that next & previous items are found in constant time.
+ * Edits are linear in the playlist size. Must be used from main thread.
+ *
+ * @author Bertrand Martel
+ */
+public class PlaylistQueue {
+
+    /**
+     * video ids in playlist order.
+     */
+    private final List<String> mItems = new ArrayList<>();
+
+    /**
+     * play position to item index (null when shuffle is disabled).
+     */
+    private int[] mOrder;
+
+    /**
+     * item index to play position (null when shuffle is disabled).
+     */
+    private int[] mPositions;
+
+    /**
+     * index of the current item (-1 if none).
+     */
+    private int mCurrentIndex = -1;
+
+    private boolean mShuffle;
+
+    private boolean mLoop;
+
+    /**
+     * define if the queue has been edited locally & doesn't match the player playlist anymore.
+     */
+    private boolean mDetached;
+
+    private final Random mRandom;
+
+    private final List<IPlaylistQueueListener> mListeners = new ArrayList<>();
+
+    /**
+     * Build an empty playlist queue.
+     */
+    public PlaylistQueue() {
+        this(new Random());
+    }
+
+    /**
+     * Build an empty playlist queue.
+     *
+     * @param random random generator used to shuffle the play order
+     */
+    public PlaylistQueue(final Random random) {
+        mRandom = random;
+    }
+
+    public void addListener(final IPlaylistQueueListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(final IPlaylistQueueListener listener) {
+        mListeners.remove(listener);
+    }
+
+    public int getSize() {
+        return mItems.size();
+    }
+
+    public boolean isEmpty() {
+        return mItems.isEmpty();
+    }
+
+    /**
+     * Get video id of an item.
+     *
+     * @param index item index
+     * @return
+     */
+    public String get(final int index) {
+        return mItems.get(index);
+    }
+
+    /**
+     * Get video ids in playlist order.
+     *
+     * @return read-only view of the items
+     */
+    public List<String> getItems() {
+        return Collections.unmodifiableList(mItems);
+    }
+
+    public int getCurrentIndex() {
+        return mCurrentIndex;
+    }
+
+    /**
+     * Get video id of the current item.
+     *
+     * @return video id or null if none
+     */
+    public String getCurrent() {
+        return (mCurrentIndex != -1) ? mItems.get(mCurrentIndex) : null;
+    }
+
+    /**
+     * Set the current item.
+     *
+     * @param index item index
+     */
+    public void setCurrentIndex(final int index) {
+        if (index < -1 || index >= mItems.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " size " + mItems.size());
+        }
+        if (index != mCurrentIndex) {
+            mCurrentIndex = index;
+            notifyCurrentChanged();
+        }
+    }
+
+    public boolean isShuffle() {
+        return mShuffle;
+    }
+
+    /**
+     * Enable or disable shuffle. When enabled, the current item is kept first & the other items are played in random
+     * order.
+     *
+     * @param shuffle shuffle state
+     */
+    public void setShuffle(final boolean shuffle) {
+        if (shuffle == mShuffle) {
+            return;
+        }
+        mShuffle = shuffle;
+        if (shuffle) {
+            buildOrder();
+        } else {
+            mOrder = null;
+            mPositions = null;
+        }
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onOrderChanged();
+        }
+    }
+
+    public boolean isLoop() {
+        return mLoop;
+    }
+
+    /**
+     * Define if playback restarts from the first item after the last one.
+     *
+     * @param loop loop state
+     */
+    public void setLoop(final boolean loop) {
+        mLoop = loop;
+    }
+
+    /**
+     * Check if the queue has been edited locally & doesn't match the player playlist anymore.
+     *
+     * @return
+     */
+    public boolean isDetached() {
+        return mDetached;
+    }
+
+    /**
+     * Get index of the item played after the current one.
+     *
+     * @return item index or -1 if the current item is the last one & loop is disabled
+     */
+    public int getNextIndex() {
+        int size = mItems.size();
+        if (size == 0) {
+            return -1;
+        }
+        int position = (mCurrentIndex != -1) ? getPosition(mCurrentIndex) + 1 : 0;
+        if (position >= size) {
+            if (!mLoop) {
+                return -1;
+            }
+            position = 0;
+        }
+        return getIndex(position);
+    }
+
+    /**
+     * Get indexes of the items played after the current one, in play order.
+     *
+     * @param count maximum number of items
+     * @return item indexes (the current item is never included)
+     */
+    public List<Integer> getUpcoming(final int count) {
+        List<Integer> upcoming = new ArrayList<>();
+        int size = mItems.size();
+        int start = (mCurrentIndex != -1) ? getPosition(mCurrentIndex) + 1 : 0;
+        int others = (mCurrentIndex != -1) ? size - 1 : size;
+        for (int i = 0; i < count && i < others; i++) {
+            int position = start + i;
+            if (position >= size) {
+                if (!mLoop) {
+                    break;
+                }
+                position -= size;
+            }
+            upcoming.add(getIndex(position));
+        }
+        return upcoming;
+    }
+
+    /**
+     * Get index of the item played before the current one.
+     *
+     * @return item index or -1 if the current item is the first one & loop is disabled
+     */
+    public int getPreviousIndex() {
+        int size = mItems.size();
+        if (size == 0) {
+            return -1;
+        }
+        int position = (mCurrentIndex != -1) ? getPosition(mCurrentIndex) - 1 : 0;
+        if (position < 0) {
+            if (!mLoop) {
+                return -1;
+            }
+            position = size - 1;
+        }
+        return getIndex(position);
+    }
+
+    /**
+     * Make the next item current.
+     *
+     * @return new current item index or -1 if there is no next item
+     */
+    public int moveToNext() {
+        int index = getNextIndex();
+        if (index != -1) {
+            setCurrentIndex(index);
+        }
+        return index;
+    }
+
+    /**
+     * Make the previous item current.
+     *
+     * @return new current item index or -1 if there is no previous item
+     */
+    public int moveToPrevious() {
+        int index = getPreviousIndex();
+        if (index != -1) {
+            setCurrentIndex(index);
+        }
+        return index;
+    }
+
+    /**
+     * Append an item.
+     *
+     * @param videoId video id
+     */
+    public void add(final String videoId) {
+        insert(mItems.size(), Collections.singletonList(videoId));
+    }
+
+    /**
+     * Insert items.
+     *
+     * @param index    index of the first inserted item
+     * @param videoIds video ids
+     */
+    public void insert(final int index, final List<String> videoIds) {
+        mDetached = true;
+        insertItems(index, videoIds);
+    }
+
+    /**
+     * Remove an item. If it was the current one, the item taking its index becomes current.
+     *
+     * @param index item index
+     */
+    public void remove(final int index) {
+        mDetached = true;
+        removeItems(index, 1);
+    }
+
+    /**
+     * Move an item.
+     *
+     * @param fromIndex index of the item
+     * @param toIndex   new index of the item
+     */
+    public void move(final int fromIndex, final int toIndex) {
+
+        int size = mItems.size();
+
+        if (fromIndex < 0 || fromIndex >= size || toIndex < 0 || toIndex >= size) {
+            throw new IndexOutOfBoundsException("move " + fromIndex + " to " + toIndex + " size " + size);
+        }
+        if (fromIndex == toIndex) {
+            return;
+        }
+        mDetached = true;
+        mItems.add(toIndex, mItems.remove(fromIndex));
+
+        mCurrentIndex = getMovedIndex(mCurrentIndex, fromIndex, toIndex);
+        if (mOrder != null) {
+            for (int i = 0; i < size; i++) {
+                mOrder[i] = getMovedIndex(mOrder[i], fromIndex, toIndex);
+            }
+            buildPositions();
+        }
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onItemMoved(fromIndex, toIndex);
+        }
+    }
+
+    /**
+     * Remove all items. The queue matches the player playlist again.
+     */
+    public void clear() {
+        mDetached = false;
+        if (!mItems.isEmpty()) {
+            removeItems(0, mItems.size());
+        }
+    }
+
+    /**
+     * Apply a change of the player playlist pushed by Javascript side (ignored if the queue has been edited locally).
+     *
+     * @param currentIndex index of the item played by the player
+     * @param start        index of the first changed item
+     * @param removeCount  number of items removed at start index
+     * @param inserted     video ids inserted at start index
+     */
+    public void applyPlayerDiff(final int currentIndex, final int start, final int removeCount, final List<String> inserted) {
+        if (mDetached || start < 0 || start + removeCount > mItems.size()) {
+            return;
+        }
+        if (removeCount > 0) {
+            removeItems(start, removeCount);
+        }
+        if (!inserted.isEmpty()) {
+            insertItems(start, inserted);
+        }
+        if (currentIndex >= 0 && currentIndex < mItems.size()) {
+            setCurrentIndex(currentIndex);
+        }
+    }
+
+    private void insertItems(final int index, final List<String> videoIds) {
+
+        int count = videoIds.size();
+
+        if (count == 0) {
+            return;
+        }
+        mItems.addAll(index, videoIds);
+
+        int currentPosition = (mCurrentIndex != -1) ? getPosition(mCurrentIndex) : -1;
+
+        if (mCurrentIndex >= index) {
+            mCurrentIndex += count;
+        }
+        if (mOrder != null) {
+            int size = mItems.size();
+            int[] order = new int[size];
+            for (int i = 0; i < size - count; i++) {
+                order[i] = (mOrder[i] >= index) ? mOrder[i] + count : mOrder[i];
+            }
+            for (int i = 0; i < count; i++) {
+                order[size - count + i] = index + i;
+            }
+            mOrder = order;
+            // new items are spread among the items not played yet
+            shuffle(currentPosition + 1);
+            buildPositions();
+        }
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onItemsInserted(index, count);
+        }
+    }
+
+    private void removeItems(final int index, final int count) {
+
+        int size = mItems.size();
+
+        if (index < 0 || count < 0 || index + count > size) {
+            throw new IndexOutOfBoundsException("remove " + count + " at " + index + " size " + size);
+        }
+        mItems.subList(index, index + count).clear();
+
+        int newSize = size - count;
+        boolean currentRemoved = mCurrentIndex >= index && mCurrentIndex < index + count;
+
+        if (currentRemoved) {
+            mCurrentIndex = (newSize > 0) ? Math.min(index, newSize - 1) : -1;
+        } else if (mCurrentIndex >= index + count) {
+            mCurrentIndex -= count;
+        }
+
+        if (mOrder != null) {
+            int[] order = new int[newSize];
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                int item = mOrder[i];
+                if (item < index) {
+                    order[position++] = item;
+                } else if (item >= index + count) {
+                    order[position++] = item - count;
+                }
+            }
+            mOrder = order;
+            buildPositions();
+        }
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onItemsRemoved(index, count);
+        }
+        if (currentRemoved) {
+            notifyCurrentChanged();
+        }
+    }
+
+    private void notifyCurrentChanged() {
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onCurrentChanged(mCurrentIndex);
+        }
+    }
+
+    /**
+     * Build a new random play order starting with the current item.
+     */
+    private void buildOrder() {
+        int size = mItems.size();
+        mOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            mOrder[i] = i;
+        }
+        if (mCurrentIndex != -1) {
+            mOrder[mCurrentIndex] = 0;
+            mOrder[0] = mCurrentIndex;
+            shuffle(1);
+        } else {
+            shuffle(0);
+        }
+        buildPositions();
+    }
+
+    /**
+     * Shuffle the play order from a play position to the end (Fisher-Yates).
+     *
+     * @param from first play position to shuffle
+     */
+    private void shuffle(final int from) {
+        for (int i = mOrder.length - 1; i > from; i--) {
+            int j = from + mRandom.nextInt(i - from + 1);
+            int item = mOrder[i];
+            mOrder[i] = mOrder[j];
+            mOrder[j] = item;
+        }
+    }
+
+    private void buildPositions() {
+        mPositions = new int[mOrder.length];
+        for (int i = 0; i < mOrder.length; i++) {
+            mPositions[mOrder[i]] = i;
+        }
+    }
+
+    private int getPosition(final int index) {
+        return (mPositions != null) ? mPositions[index] : index;
+    }
+
+    private int getIndex(final int position) {
+        return (mOrder != null) ? mOrder[position] : position;
+    }
+
+    /**
+     * Get the new index of an item after another item has been moved.
+     */
+    private static int getMovedIndex(final int index, final int fromIndex, final int toIndex) {
+        if (index == fromIndex) {
+            return toIndex;
+        }
+        if (fromIndex < toIndex && index > fromIndex && index <= toIndex) {
+            return index - 1;
+        }
+        if (toIndex < fromIndex && index >= toIndex && index < fromIndex) {
+            return index + 1;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.quality;
+
+import fr.bmartel.youtubetv.model.VideoQuality;
+
+/**
+ * Quality change decided by {@link QualityGovernor}.
+ *
+ * @author Bertrand Martel
+ */
+public class QualityDecision {
+
+    /**
+     * Reason of a quality change.
+     */
+    public enum Reason {
+
+        /**
+         * player has buffered too often or too long in the observation window.
+         */
+        REBUFFERING,
+
+        /**
+         * position has stopped advancing while the player was playing.
+         */
+        STALL,
+
+        /**
+         * playback has been smooth & buffer has been growing faster than playback.
+         */
+        STABLE
+    }
+
+    private final VideoQuality mFrom;
+    private final VideoQuality mTo;
+    private final Reason mReason;
+    private final int mRebufferCount;
+    private final long mBufferingTime;
+    private final float mBufferGrowth;
+    private final long mTimestamp;
+
+    /**
+     * Build quality decision.
+     *
+     * @param from          quality before the decision
+     * @param to            quality requested
+     * @param reason        reason of the change
+     * @param rebufferCount number of rebuffering events in the observation window
+     * @param bufferingTime buffering time in milliseconds in the observation window
+     * @param bufferGrowth  seconds of video buffered per second of wall time
+     * @param timestamp     decision time in milliseconds (governor clock)
+     */
+    public QualityDecision(final VideoQuality from,
+                           final VideoQuality to,
+                           final Reason reason,
+                           final int rebufferCount,
+                           final long bufferingTime,
+                           final float bufferGrowth,
+                           final long timestamp) {
+        mFrom = from;
+        mTo = to;
+        mReason = reason;
+        mRebufferCount = rebufferCount;
+        mBufferingTime = bufferingTime;
+        mBufferGrowth = bufferGrowth;
+        mTimestamp = timestamp;
+    }
+
+    public VideoQuality getFrom() {
+        return mFrom;
+    }
+
+    public VideoQuality getTo() {
+        return mTo;
+    }
+
+    public Reason getReason() {
+        return mReason;
+    }
+
+    public int getRebufferCount() {
+        return mRebufferCount;
+    }
+
+    public long getBufferingTime() {
+        return mBufferingTime;
+    }
+
+    public float getBufferGrowth() {
+        return mBufferGrowth;
+    }
+
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    /**
+     * Check if quality has been lowered.
+     *
+     * @return
+     */
+    public boolean isDowngrade() {
+        return mTo.getResolutionRank() < mFrom.getResolutionRank();
+    }
+
+    @Override
+    public String toString() {
+        return mFrom.getValue() + " -> " + mTo.getValue() + " (" + mReason + ", rebuffers=" + mRebufferCount +
+                ", buffering=" + mBufferingTime + "ms, growth=" + mBufferGrowth + ")";
+    }
+}
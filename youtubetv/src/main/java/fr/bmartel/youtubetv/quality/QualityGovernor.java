@@ -0,0 +1,528 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.quality;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import fr.bmartel.youtubetv.IYoutubeApi;
+import fr.bmartel.youtubetv.listener.IPlayerListener;
+import fr.bmartel.youtubetv.listener.IQualityListener;
+import fr.bmartel.youtubetv.listener.IQueryListener;
+import fr.bmartel.youtubetv.model.VideoInfo;
+import fr.bmartel.youtubetv.model.VideoQuality;
+import fr.bmartel.youtubetv.model.VideoState;
+
+/**
+ * Adaptive quality controller : watches rebuffering (frequency & duration), position stalls & buffer growth rate and
+ * steps player quality through available quality levels, down as soon as playback degrades & up after a stable
+ * period. Position & loaded fraction are polled with asynchronous queries.
+ * <p/>
+ * Player events & samples can also be fed directly with {@link #onPlayerStateChange} & {@link #onSample} together
+ * with a fake {@link Clock} to replay buffering traces. Must be used from main thread.
+ *
+ * @author Bertrand Martel
+ */
+public class QualityGovernor implements IPlayerListener {
+
+    /**
+     * observation window of rebuffering events in milliseconds.
+     */
+    private final static long WINDOW = 30000;
+
+    /**
+     * number of rebuffering events in the window above which quality is lowered.
+     */
+    private final static int DOWN_REBUFFER_COUNT = 2;
+
+    /**
+     * buffering time in milliseconds in the window above which quality is lowered.
+     */
+    private final static long DOWN_BUFFERING_TIME = 4000;
+
+    /**
+     * time in milliseconds without position progress while playing after which playback is considered stalled.
+     */
+    private final static long STALL_TIME = 2500;
+
+    /**
+     * time in milliseconds without rebuffering required before raising quality.
+     */
+    private final static long UP_STABLE_TIME = 30000;
+
+    /**
+     * min buffer growth (seconds buffered per second) required before raising quality.
+     */
+    private final static float UP_BUFFER_GROWTH = 1.5f;
+
+    /**
+     * min time in milliseconds between two quality changes.
+     */
+    private final static long SWITCH_COOLDOWN = 10000;
+
+    /**
+     * weight of the last sample in buffer growth moving average.
+     */
+    private final static float GROWTH_SMOOTHING = 0.3f;
+
+    /**
+     * interval in milliseconds between two position & loaded fraction samples.
+     */
+    private final static int POLL_INTERVAL = 2000;
+
+    /**
+     * Monotonic time source.
+     */
+    public interface Clock {
+
+        /**
+         * Get current time.
+         *
+         * @return time in milliseconds
+         */
+        long now();
+    }
+
+    private final IYoutubeApi mPlayer;
+
+    private final Clock mClock;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final List<IQualityListener> mListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * available quality levels of current video sorted from lowest to highest resolution.
+     */
+    private List<VideoQuality> mLevels = new ArrayList<>();
+
+    /**
+     * quality currently requested (or reported by the player).
+     */
+    private VideoQuality mQuality = VideoQuality.AUTO;
+
+    /**
+     * highest quality the governor may request.
+     */
+    private VideoQuality mMaxQuality = VideoQuality.HD_2160;
+
+    private String mVideoId;
+
+    private VideoState mState = VideoState.UNSTARTED;
+
+    /**
+     * define if current video has already played (initial buffering isn't a rebuffering).
+     */
+    private boolean mPlayed;
+
+    /**
+     * start time of current buffering (-1 if not buffering).
+     */
+    private long mBufferingSince = -1;
+
+    /**
+     * rebuffering events in the window : {end time, duration}.
+     */
+    private final Deque<long[]> mRebuffers = new ArrayDeque<>();
+
+    /**
+     * last time something went wrong (rebuffering, stall) or playback started.
+     */
+    private long mLastProblemTime;
+
+    private long mLastSwitchTime = Long.MIN_VALUE / 2;
+
+    private float mLastPosition = -1;
+
+    private long mLastProgressTime;
+
+    private boolean mStalled;
+
+    private float mLastLoaded = -1;
+
+    private long mLastSampleTime;
+
+    /**
+     * seconds of video buffered per second of wall time (moving average).
+     */
+    private float mBufferGrowth;
+
+    private boolean mStarted;
+
+    private final Runnable mPollTask = new Runnable() {
+        @Override
+        public void run() {
+            poll();
+            mHandler.postDelayed(this, POLL_INTERVAL);
+        }
+    };
+
+    /**
+     * Build quality governor using SystemClock.elapsedRealtime().
+     *
+     * @param player player to control
+     */
+    public QualityGovernor(final IYoutubeApi player) {
+        this(player, new Clock() {
+            @Override
+            public long now() {
+                return SystemClock.elapsedRealtime();
+            }
+        });
+    }
+
+    /**
+     * Build quality governor.
+     *
+     * @param player player to control
+     * @param clock  time source
+     */
+    public QualityGovernor(final IYoutubeApi player, final Clock clock) {
+        mPlayer = player;
+        mClock = clock;
+    }
+
+    /**
+     * Start watching the player & polling its position and loaded fraction.
+     */
+    public void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        mPlayer.addPlayerListener(this);
+        mPlayer.getAvailableQualityLevels(new IQueryListener<List<VideoQuality>>() {
+            @Override
+            public void onResponse(List<VideoQuality> result) {
+                setLevels(result);
+            }
+
+            @Override
+            public void onTimeout() {
+            }
+        });
+        mHandler.postDelayed(mPollTask, POLL_INTERVAL);
+    }
+
+    /**
+     * Stop watching the player. The current quality is kept.
+     */
+    public void stop() {
+        mStarted = false;
+        mPlayer.removePlayerListener(this);
+        mHandler.removeCallbacks(mPollTask);
+    }
+
+    public void addListener(final IQualityListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(final IQualityListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Set highest quality the governor may request.
+     *
+     * @param maxQuality max quality
+     */
+    public void setMaxQuality(final VideoQuality maxQuality) {
+        mMaxQuality = maxQuality;
+    }
+
+    /**
+     * Get quality currently requested.
+     *
+     * @return
+     */
+    public VideoQuality getQuality() {
+        return mQuality;
+    }
+
+    /**
+     * Set quality levels available for current video.
+     *
+     * @param levels available quality levels
+     */
+    public void setLevels(final List<VideoQuality> levels) {
+        List<VideoQuality> sorted = new ArrayList<>();
+        for (VideoQuality level : levels) {
+            if (level != VideoQuality.AUTO) {
+                sorted.add(level);
+            }
+        }
+        Collections.sort(sorted, new Comparator<VideoQuality>() {
+            @Override
+            public int compare(VideoQuality first, VideoQuality second) {
+                return first.getResolutionRank() - second.getResolutionRank();
+            }
+        });
+        mLevels = sorted;
+    }
+
+    @Override
+    public void onPlayerReady(final VideoInfo videoInfo) {
+        onVideo(videoInfo);
+    }
+
+    @Override
+    public void onPlayerStateChange(final VideoState state,
+                                    final long position,
+                                    final float speed,
+                                    final float duration,
+                                    final VideoInfo videoInfo) {
+        onVideo(videoInfo);
+
+        long now = mClock.now();
+
+        if (mState == VideoState.BUFFERING && state != VideoState.BUFFERING && mBufferingSince >= 0) {
+            mRebuffers.add(new long[]{now, now - mBufferingSince});
+            mLastProblemTime = now;
+            mBufferingSince = -1;
+        }
+        if (state == VideoState.BUFFERING && mPlayed && mBufferingSince < 0) {
+            mBufferingSince = now;
+        } else if (state == VideoState.PLAYING) {
+            if (!mPlayed) {
+                mPlayed = true;
+                mLastProblemTime = now;
+            }
+            mLastPosition = position / 1000f;
+            mLastProgressTime = now;
+            mStalled = false;
+        }
+        mState = state;
+        evaluate();
+    }
+
+    /**
+     * Add a playback sample.
+     *
+     * @param position       position in seconds
+     * @param loadedFraction fraction of the video buffered
+     * @param duration       video duration in seconds
+     */
+    public void onSample(final float position, final float loadedFraction, final float duration) {
+
+        long now = mClock.now();
+
+        if (mState == VideoState.PLAYING) {
+            if (position > mLastPosition + 0.1f || position < mLastPosition) {
+                mLastPosition = position;
+                mLastProgressTime = now;
+                mStalled = false;
+            } else if (!mStalled && now - mLastProgressTime >= STALL_TIME) {
+                mStalled = true;
+                mLastProblemTime = now;
+            }
+        }
+
+        float loaded = loadedFraction * duration;
+        if (mLastLoaded >= 0 && now > mLastSampleTime && loaded >= mLastLoaded) {
+            // whole video buffered : buffer can't grow anymore but playback is safe
+            float growth = (loadedFraction >= 0.999f) ? UP_BUFFER_GROWTH :
+                    (loaded - mLastLoaded) * 1000f / (now - mLastSampleTime);
+            mBufferGrowth = GROWTH_SMOOTHING * growth + (1 - GROWTH_SMOOTHING) * mBufferGrowth;
+        }
+        mLastLoaded = loaded;
+        mLastSampleTime = now;
+
+        evaluate();
+    }
+
+    /**
+     * Set quality actually used by the player.
+     *
+     * @param quality playback quality
+     */
+    public void onPlaybackQuality(final VideoQuality quality) {
+        if (quality != null && quality != VideoQuality.AUTO && mClock.now() - mLastSwitchTime >= SWITCH_COOLDOWN) {
+            mQuality = quality;
+        }
+    }
+
+    /**
+     * Reset statistics when a new video is loaded.
+     *
+     * @param videoInfo video information
+     */
+    private void onVideo(final VideoInfo videoInfo) {
+        if (videoInfo == null || videoInfo.getVideoId().equals(mVideoId)) {
+            return;
+        }
+        mVideoId = videoInfo.getVideoId();
+        if (!videoInfo.getAvailableQualityList().isEmpty()) {
+            setLevels(videoInfo.getAvailableQualityList());
+        }
+        mPlayed = false;
+        mBufferingSince = -1;
+        mRebuffers.clear();
+        mStalled = false;
+        mLastLoaded = -1;
+        mBufferGrowth = 0;
+    }
+
+    /**
+     * Decide if quality must change.
+     */
+    private void evaluate() {
+
+        long now = mClock.now();
+
+        Iterator<long[]> iterator = mRebuffers.iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next()[0] > WINDOW) {
+                iterator.remove();
+            }
+        }
+        int rebufferCount = mRebuffers.size();
+        long bufferingTime = 0;
+        for (long[] rebuffer : mRebuffers) {
+            bufferingTime += rebuffer[1];
+        }
+        if (mBufferingSince >= 0) {
+            rebufferCount++;
+            bufferingTime += now - mBufferingSince;
+        }
+
+        if (now - mLastSwitchTime < SWITCH_COOLDOWN) {
+            return;
+        }
+
+        if (mStalled) {
+            switchQuality(-1, QualityDecision.Reason.STALL, rebufferCount, bufferingTime);
+        } else if (rebufferCount >= DOWN_REBUFFER_COUNT || bufferingTime >= DOWN_BUFFERING_TIME) {
+            switchQuality(-1, QualityDecision.Reason.REBUFFERING, rebufferCount, bufferingTime);
+        } else if (mState == VideoState.PLAYING && rebufferCount == 0 &&
+                now - Math.max(mLastProblemTime, mLastSwitchTime) >= UP_STABLE_TIME &&
+                mBufferGrowth >= UP_BUFFER_GROWTH) {
+            switchQuality(1, QualityDecision.Reason.STABLE, rebufferCount, bufferingTime);
+        }
+    }
+
+    /**
+     * Step quality one level down or up.
+     *
+     * @param step          -1 to lower quality, 1 to raise it
+     * @param reason        reason of the change
+     * @param rebufferCount number of rebuffering events in the window
+     * @param bufferingTime buffering time in the window
+     */
+    private void switchQuality(final int step, final QualityDecision.Reason reason, final int rebufferCount, final long bufferingTime) {
+
+        List<VideoQuality> levels = new ArrayList<>();
+        for (VideoQuality level : mLevels) {
+            if (level.getResolutionRank() <= mMaxQuality.getResolutionRank()) {
+                levels.add(level);
+            }
+        }
+        // quality actually played is not known yet
+        if (levels.isEmpty() || mQuality == VideoQuality.AUTO) {
+            return;
+        }
+        int current = levels.size() - 1;
+        for (int i = 0; i < levels.size(); i++) {
+            if (levels.get(i).getResolutionRank() >= mQuality.getResolutionRank()) {
+                current = i;
+                break;
+            }
+        }
+        int target = Math.max(0, Math.min(levels.size() - 1, current + step));
+        if (levels.get(target) == mQuality) {
+            return;
+        }
+
+        long now = mClock.now();
+        QualityDecision decision = new QualityDecision(mQuality, levels.get(target), reason, rebufferCount,
+                bufferingTime, mBufferGrowth, now);
+
+        mQuality = levels.get(target);
+        mLastSwitchTime = now;
+        mRebuffers.clear();
+        mStalled = false;
+        mLastProgressTime = now;
+        mBufferGrowth = 0;
+        mPlayer.setPlaybackQuality(mQuality);
+
+        for (IQualityListener listener : mListeners) {
+            listener.onQualityDecision(decision);
+        }
+    }
+
+    /**
+     * Sample position, loaded fraction & playback quality with asynchronous queries.
+     */
+    private void poll() {
+        mPlayer.getPlaybackQuality(new IQueryListener<VideoQuality>() {
+            @Override
+            public void onResponse(VideoQuality result) {
+                onPlaybackQuality(result);
+            }
+
+            @Override
+            public void onTimeout() {
+            }
+        });
+        mPlayer.getCurrentPosition(new IQueryListener<Float>() {
+            @Override
+            public void onResponse(final Float position) {
+                mPlayer.getVideoLoadedFraction(new IQueryListener<Float>() {
+                    @Override
+                    public void onResponse(final Float loadedFraction) {
+                        mPlayer.getDuration(new IQueryListener<Float>() {
+                            @Override
+                            public void onResponse(Float duration) {
+                                if (position != null && loadedFraction != null && duration != null) {
+                                    onSample(position, loadedFraction, duration);
+                                }
+                            }
+
+                            @Override
+                            public void onTimeout() {
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onTimeout() {
+                    }
+                });
+            }
+
+            @Override
+            public void onTimeout() {
+            }
+        });
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.request;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.bmartel.youtubetv.listener.IQueryListener;
+import fr.bmartel.youtubetv.metrics.BridgeMetrics;
+
+/**
+ * Table of Javascript queries waiting for a response, keyed by request id.
+ *
+ * @author Bertrand Martel
+ */
+public class PendingRequestTable {
+
+    private final static String TAG = PendingRequestTable.class.getSimpleName();
+
+    /**
+     * Request id used by Javascript when no request id has been given.
+     */
+    public final static int NO_REQUEST_ID = 0;
+
+    /**
+     * next request id (monotonically increasing).
+     */
+    private final AtomicInteger mNextRequestId = new AtomicInteger(NO_REQUEST_ID + 1);
+
+    /**
+     * pending queries.
+     */
+    private final Map<Integer, QueryFuture<?>> mPendingRequests = new ConcurrentHashMap<>();
+
+    /**
+     * Handler used to notify listeners & to schedule timeouts.
+     */
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * round trip metrics.
+     */
+    private final BridgeMetrics mMetrics = new BridgeMetrics();
+
+    /**
+     * Register a new query.
+     *
+     * @param methodName JS function name
+     * @param listener   query listener (may be null)
+     * @param timeout    timeout in milliseconds after which the query is discarded
+     * @param <T>        result type
+     * @return pending query
+     */
+    public <T> QueryFuture<T> register(final String methodName, final IQueryListener<T> listener, final int timeout) {
+
+        QueryFuture<T> future = new QueryFuture<>(mNextRequestId.getAndIncrement(), methodName, listener, mHandler,
+                this);
+        mPendingRequests.put(future.getRequestId(), future);
+        mMetrics.onQuerySent(mPendingRequests.size());
+
+        mHandler.postDelayed(future.getTimeoutTask(), timeout);
+
+        return future;
+    }
+
+    /**
+     * Complete the query matching this request id.
+     *
+     * @param requestId request id returned by Javascript
+     * @param result    query result
+     * @return true if a pending query has been completed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean complete(final int requestId, final Object result) {
+        QueryFuture<Object> future = (QueryFuture<Object>) mPendingRequests.remove(requestId);
+        if (future == null) {
+            Log.v(TAG, "no pending request for id " + requestId);
+            mMetrics.onUnmatchedResponse(requestId);
+            return false;
+        }
+        mHandler.removeCallbacks(future.getTimeoutTask());
+        if (!future.complete(result)) {
+            return false;
+        }
+        mMetrics.onResponse(future.getMethodName(), SystemClock.elapsedRealtime() - future.getSendTime(),
+                mPendingRequests.size());
+        return true;
+    }
+
+    /**
+     * Discard a pending query which has received no response in time (a later response is dropped & counted as
+     * late reply).
+     *
+     * @param requestId request id
+     */
+    public void discard(final int requestId) {
+        QueryFuture<?> future = mPendingRequests.remove(requestId);
+        if (future == null) {
+            return;
+        }
+        mHandler.removeCallbacks(future.getTimeoutTask());
+        if (future.timeout()) {
+            mMetrics.onTimeout(future.getMethodName(), requestId, mPendingRequests.size());
+        }
+    }
+
+    /**
+     * Remove a cancelled query (a later response is dropped).
+     *
+     * @param requestId request id
+     */
+    void unregister(final int requestId) {
+        QueryFuture<?> future = mPendingRequests.remove(requestId);
+        if (future != null) {
+            mHandler.removeCallbacks(future.getTimeoutTask());
+        }
+    }
+
+    /**
+     * Get round trip metrics of queries registered in this table.
+     *
+     * @return
+     */
+    public BridgeMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Check if this request id has been issued by this table.
+     *
+     * @param requestId request id
+     * @return
+     */
+    public boolean isRequestId(final int requestId) {
+        return requestId > NO_REQUEST_ID && requestId < mNextRequestId.get();
+    }
+}
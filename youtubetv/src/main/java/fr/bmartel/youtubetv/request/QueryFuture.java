@@ -0,0 +1,266 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.request;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import fr.bmartel.youtubetv.listener.IQueryListener;
+
+/**
+ * Pending result of an asynchronous Javascript query.
+ *
+ * @author Bertrand Martel
+ */
+public class QueryFuture<T> implements Future<T> {
+
+    /**
+     * request id sent to Javascript & returned in the response.
+     */
+    private final int mRequestId;
+
+    /**
+     * JS function name.
+     */
+    private final String mMethodName;
+
+    /**
+     * time at which the query has been sent (SystemClock.elapsedRealtime() in milliseconds).
+     */
+    private final long mSendTime;
+
+    /**
+     * listener notified of the result (may be null).
+     */
+    private final IQueryListener<T> mListener;
+
+    /**
+     * Handler used to notify the listener.
+     */
+    private final Handler mHandler;
+
+    /**
+     * table in which the query is registered.
+     */
+    private final PendingRequestTable mTable;
+
+    /**
+     * task discarding the query if no response is received in time.
+     */
+    private final Runnable mTimeoutTask = new Runnable() {
+        @Override
+        public void run() {
+            mTable.discard(mRequestId);
+        }
+    };
+
+    /**
+     * query result.
+     */
+    private T mResult;
+
+    /**
+     * define if a result has been set, or if the query has timed out/been cancelled.
+     */
+    private boolean mDone;
+
+    /**
+     * define if the query has timed out.
+     */
+    private boolean mTimedOut;
+
+    /**
+     * define if the query has been cancelled.
+     */
+    private boolean mCancelled;
+
+    /**
+     * Build query future.
+     *
+     * @param requestId  request id
+     * @param methodName JS function name
+     * @param listener   result listener (may be null)
+     * @param handler    handler used to notify the listener
+     * @param table      table in which the query is registered
+     */
+    public QueryFuture(final int requestId,
+                       final String methodName,
+                       final IQueryListener<T> listener,
+                       final Handler handler,
+                       final PendingRequestTable table) {
+        mRequestId = requestId;
+        mMethodName = methodName;
+        mSendTime = SystemClock.elapsedRealtime();
+        mListener = listener;
+        mHandler = handler;
+        mTable = table;
+    }
+
+    /**
+     * Get request id.
+     *
+     * @return
+     */
+    public int getRequestId() {
+        return mRequestId;
+    }
+
+    public String getMethodName() {
+        return mMethodName;
+    }
+
+    public long getSendTime() {
+        return mSendTime;
+    }
+
+    Runnable getTimeoutTask() {
+        return mTimeoutTask;
+    }
+
+    /**
+     * Set the query result & notify the listener.
+     *
+     * @param result query result
+     * @return true if the result has been set, false if the query was already completed
+     */
+    public boolean complete(final T result) {
+        synchronized (this) {
+            if (mDone) {
+                return false;
+            }
+            mResult = result;
+            mDone = true;
+            notifyAll();
+        }
+        if (mListener != null) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mListener.onResponse(result);
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Mark the query as timed out & notify the listener.
+     *
+     * @return true if the query has been marked as timed out, false if it was already completed
+     */
+    public boolean timeout() {
+        synchronized (this) {
+            if (mDone) {
+                return false;
+            }
+            mTimedOut = true;
+            mDone = true;
+            notifyAll();
+        }
+        if (mListener != null) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mListener.onTimeout();
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Cancel the query : it is removed from the pending queries & a later response is dropped. The listener isn't
+     * notified.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            if (mDone) {
+                return false;
+            }
+            mCancelled = true;
+            mDone = true;
+            notifyAll();
+        }
+        mTable.unregister(mRequestId);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return mDone;
+    }
+
+    /**
+     * Check if the query has timed out.
+     *
+     * @return
+     */
+    public synchronized boolean isTimedOut() {
+        return mTimedOut;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (!mDone) {
+            wait();
+        }
+        return getResult();
+    }
+
+    @Override
+    public synchronized T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        long remaining = unit.toMillis(timeout);
+        long deadline = System.currentTimeMillis() + remaining;
+        while (!mDone && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        if (!mDone) {
+            throw new TimeoutException("no response for request " + mRequestId);
+        }
+        return getResult();
+    }
+
+    private T getResult() throws ExecutionException {
+        if (mCancelled) {
+            throw new CancellationException("request " + mRequestId + " cancelled");
+        }
+        if (mTimedOut) {
+            throw new ExecutionException(new TimeoutException("Javascript timeout for request " + mRequestId));
+        }
+        return mResult;
+    }
+}
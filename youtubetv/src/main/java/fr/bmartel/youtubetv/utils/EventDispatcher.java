@@ -0,0 +1,332 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import fr.bmartel.youtubetv.listener.IBufferStateListener;
+import fr.bmartel.youtubetv.listener.IPlayerListener;
+import fr.bmartel.youtubetv.listener.IProgressUpdateListener;
+import fr.bmartel.youtubetv.listener.IStartupListener;
+import fr.bmartel.youtubetv.metrics.StartupTimeline;
+import fr.bmartel.youtubetv.model.VideoInfo;
+import fr.bmartel.youtubetv.model.VideoState;
+
+/**
+ * Deliver player events to listeners on a target executor (main thread by default) in a single hop. Event objects
+ * are pooled & listeners can be added/removed while events are being delivered.
+ *
+ * @author Bertrand Martel
+ */
+public class EventDispatcher {
+
+    /**
+     * max number of idle event objects kept for reuse.
+     */
+    private final static int MAX_POOL_SIZE = 8;
+
+    private final static int EVENT_PLAYER_READY = 0;
+    private final static int EVENT_STATE_CHANGE = 1;
+    private final static int EVENT_PROGRESS = 2;
+    private final static int EVENT_BUFFER = 3;
+    private final static int EVENT_MILESTONE = 4;
+
+    /**
+     * player listeners.
+     */
+    private final List<IPlayerListener> mPlayerListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * startup milestone listeners.
+     */
+    private final List<IStartupListener> mStartupListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * progress update listener.
+     */
+    private volatile IProgressUpdateListener mProgressUpdateListener;
+
+    /**
+     * buffer state listener.
+     */
+    private volatile IBufferStateListener mBufferStateListener;
+
+    /**
+     * executor on which listeners are called.
+     */
+    private volatile Executor mTarget;
+
+    /**
+     * idle event objects (linked through mNext).
+     */
+    private Event mPool;
+
+    private int mPoolSize;
+
+    /**
+     * Build dispatcher delivering events on main thread.
+     */
+    public EventDispatcher() {
+        this(new Handler(Looper.getMainLooper()));
+    }
+
+    /**
+     * Build dispatcher delivering events on a handler thread.
+     *
+     * @param handler handler of target thread
+     */
+    public EventDispatcher(final Handler handler) {
+        mTarget = new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                handler.post(runnable);
+            }
+        };
+    }
+
+    /**
+     * Set executor on which listeners are called. It must execute tasks in order (eg a single thread executor).
+     * Listeners touching views are responsible for going back to main thread.
+     *
+     * @param target target executor
+     */
+    public void setTarget(final Executor target) {
+        mTarget = target;
+    }
+
+    public void addPlayerListener(final IPlayerListener listener) {
+        mPlayerListeners.add(listener);
+    }
+
+    public void removePlayerListener(final IPlayerListener listener) {
+        mPlayerListeners.remove(listener);
+    }
+
+    public void addStartupListener(final IStartupListener listener) {
+        mStartupListeners.add(listener);
+    }
+
+    public void removeStartupListener(final IStartupListener listener) {
+        mStartupListeners.remove(listener);
+    }
+
+    public void setProgressUpdateListener(final IProgressUpdateListener listener) {
+        mProgressUpdateListener = listener;
+    }
+
+    public void setBufferStateListener(final IBufferStateListener listener) {
+        mBufferStateListener = listener;
+    }
+
+    /**
+     * Remove all listeners.
+     */
+    public void clearListeners() {
+        mPlayerListeners.clear();
+        mStartupListeners.clear();
+        mProgressUpdateListener = null;
+        mBufferStateListener = null;
+    }
+
+    /**
+     * Dispatch player ready event.
+     *
+     * @param videoInfo video information
+     */
+    public void dispatchPlayerReady(final VideoInfo videoInfo) {
+        if (mPlayerListeners.isEmpty()) {
+            return;
+        }
+        Event event = obtain(EVENT_PLAYER_READY);
+        event.mVideoInfo = videoInfo;
+        mTarget.execute(event);
+    }
+
+    /**
+     * Dispatch player state change event.
+     *
+     * @param state     player state
+     * @param position  position in milliseconds
+     * @param speed     playback speed
+     * @param duration  video duration in seconds
+     * @param videoInfo video information
+     */
+    public void dispatchStateChange(final VideoState state,
+                                    final long position,
+                                    final float speed,
+                                    final float duration,
+                                    final VideoInfo videoInfo) {
+        if (mPlayerListeners.isEmpty()) {
+            return;
+        }
+        Event event = obtain(EVENT_STATE_CHANGE);
+        event.mState = state;
+        event.mPosition = position;
+        event.mSpeed = speed;
+        event.mDuration = duration;
+        event.mVideoInfo = videoInfo;
+        mTarget.execute(event);
+    }
+
+    /**
+     * Dispatch progress update.
+     *
+     * @param currentTime current position in seconds
+     */
+    public void dispatchProgress(final float currentTime) {
+        if (mProgressUpdateListener == null) {
+            return;
+        }
+        Event event = obtain(EVENT_PROGRESS);
+        event.mCurrentTime = currentTime;
+        mTarget.execute(event);
+    }
+
+    /**
+     * Dispatch buffer update.
+     *
+     * @param duration       video duration in seconds
+     * @param loadedFraction fraction of the video buffered
+     */
+    public void dispatchBufferUpdate(final float duration, final float loadedFraction) {
+        if (mBufferStateListener == null) {
+            return;
+        }
+        Event event = obtain(EVENT_BUFFER);
+        event.mDuration = duration;
+        event.mLoadedFraction = loadedFraction;
+        mTarget.execute(event);
+    }
+
+    /**
+     * Dispatch startup milestone.
+     *
+     * @param timeline  session timeline
+     * @param milestone milestone name
+     * @param time      time in milliseconds since session start
+     */
+    public void dispatchMilestone(final StartupTimeline timeline, final String milestone, final long time) {
+        if (mStartupListeners.isEmpty()) {
+            return;
+        }
+        Event event = obtain(EVENT_MILESTONE);
+        event.mTimeline = timeline;
+        event.mMilestone = milestone;
+        event.mPosition = time;
+        mTarget.execute(event);
+    }
+
+    private Event obtain(final int type) {
+        Event event;
+        synchronized (this) {
+            event = mPool;
+            if (event != null) {
+                mPool = event.mNext;
+                event.mNext = null;
+                mPoolSize--;
+            }
+        }
+        if (event == null) {
+            event = new Event();
+        }
+        event.mType = type;
+        return event;
+    }
+
+    private void recycle(final Event event) {
+        event.mState = null;
+        event.mVideoInfo = null;
+        event.mTimeline = null;
+        event.mMilestone = null;
+        synchronized (this) {
+            if (mPoolSize < MAX_POOL_SIZE) {
+                event.mNext = mPool;
+                mPool = event;
+                mPoolSize++;
+            }
+        }
+    }
+
+    /**
+     * A pooled player event delivered to listeners.
+     */
+    private class Event implements Runnable {
+
+        private int mType;
+        private VideoState mState;
+        private long mPosition;
+        private float mSpeed;
+        private float mDuration;
+        private float mCurrentTime;
+        private float mLoadedFraction;
+        private VideoInfo mVideoInfo;
+        private StartupTimeline mTimeline;
+        private String mMilestone;
+        private Event mNext;
+
+        @Override
+        public void run() {
+            try {
+                switch (mType) {
+                    case EVENT_PLAYER_READY:
+                        for (IPlayerListener listener : mPlayerListeners) {
+                            listener.onPlayerReady(mVideoInfo);
+                        }
+                        break;
+                    case EVENT_STATE_CHANGE:
+                        for (IPlayerListener listener : mPlayerListeners) {
+                            listener.onPlayerStateChange(mState, mPosition, mSpeed, mDuration, mVideoInfo);
+                        }
+                        break;
+                    case EVENT_PROGRESS:
+                        IProgressUpdateListener progressListener = mProgressUpdateListener;
+                        if (progressListener != null) {
+                            progressListener.onProgressUpdate(mCurrentTime);
+                        }
+                        break;
+                    case EVENT_BUFFER:
+                        IBufferStateListener bufferListener = mBufferStateListener;
+                        if (bufferListener != null) {
+                            bufferListener.onBufferUpdate(mDuration, mLoadedFraction);
+                        }
+                        break;
+                    case EVENT_MILESTONE:
+                        for (IStartupListener listener : mStartupListeners) {
+                            listener.onMilestone(mTimeline, mMilestone, mPosition);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } finally {
+                recycle(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.utils;
+
+import android.view.Choreographer;
+import android.webkit.WebView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queue of Javascript commands evaluated once per frame in a single script. Redundant commands issued in the same frame are collapsed.
+ *
+ * @author Bertrand Martel
+ */
+public class JavascriptCommandQueue {
+
+    /**
+     * Command groups : a command of a group overrides all the commands of the same group still pending.
+     */
+    private final static Map<String, String> OVERRIDING_COMMANDS = new HashMap<>();
+
+    /**
+     * Relative commands : successive commands with the same name are merged by summing their first parameter.
+     */
+    private final static Map<String, String> CUMULATIVE_COMMANDS = new HashMap<>();
+
+    static {
+        OVERRIDING_COMMANDS.put("seekTo", "seek");
+        OVERRIDING_COMMANDS.put("setVolume", "volume");
+        OVERRIDING_COMMANDS.put("setPlaybackRate", "playbackRate");
+        OVERRIDING_COMMANDS.put("setPlaybackQuality", "playbackQuality");
+        OVERRIDING_COMMANDS.put("setSize", "size");
+        CUMULATIVE_COMMANDS.put("moveForward", "seek");
+        CUMULATIVE_COMMANDS.put("moveBackward", "seek");
+    }
+
+    /**
+     * Webview object.
+     */
+    private final WebView mWebView;
+
+    /**
+     * commands waiting for the next frame.
+     */
+    private final List<Command> mPendingCommands = new ArrayList<>();
+
+    /**
+     * define if a flush is already scheduled for the next frame.
+     */
+    private boolean mFlushScheduled;
+
+    /**
+     * choreographer of the main thread : frame callbacks are run even if the webview is not attached to a window
+     * (eg a pooled player), unlike {@link android.view.View#postOnAnimation(Runnable)}.
+     */
+    private final Choreographer mChoreographer;
+
+    /**
+     * frame callback evaluating pending commands.
+     */
+    private final Choreographer.FrameCallback mFlushCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            flush();
+        }
+    };
+
+    /**
+     * Build command queue. Must be called from main thread.
+     *
+     * @param webView webview object
+     */
+    public JavascriptCommandQueue(final WebView webView) {
+        mWebView = webView;
+        mChoreographer = Choreographer.getInstance();
+    }
+
+    /**
+     * Queue a Javascript function call to be evaluated on next frame. This can be called from any thread.
+     *
+     * @param methodName function name
+     * @param params     function parameters
+     */
+    public void post(final String methodName, final Object... params) {
+
+        synchronized (mPendingCommands) {
+
+            String group = OVERRIDING_COMMANDS.get(methodName);
+
+            if (group != null) {
+                removeGroup(group);
+                mPendingCommands.add(new Command(methodName, group, params));
+            } else if (CUMULATIVE_COMMANDS.containsKey(methodName)) {
+                Command last = mPendingCommands.isEmpty() ? null : mPendingCommands.get(mPendingCommands.size() - 1);
+                if (last != null && last.mMethodName.equals(methodName) &&
+                        params.length == 1 && params[0] instanceof Integer) {
+                    last.mParams = new Object[]{(Integer) last.mParams[0] + (Integer) params[0]};
+                } else {
+                    mPendingCommands.add(new Command(methodName, CUMULATIVE_COMMANDS.get(methodName), params));
+                }
+            } else {
+                mPendingCommands.add(new Command(methodName, null, params));
+            }
+
+            if (!mFlushScheduled) {
+                mFlushScheduled = true;
+                mChoreographer.postFrameCallback(mFlushCallback);
+            }
+        }
+    }
+
+    /**
+     * Remove all pending commands belonging to a command group.
+     *
+     * @param group command group
+     */
+    private void removeGroup(final String group) {
+        Iterator<Command> iterator = mPendingCommands.iterator();
+        while (iterator.hasNext()) {
+            if (group.equals(iterator.next().mGroup)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Evaluate all pending commands in a single script (Webview thread).
+     */
+    private void flush() {
+
+        StringBuilder script = new StringBuilder();
+
+        synchronized (mPendingCommands) {
+            for (int i = 0; i < mPendingCommands.size(); i++) {
+                Command command = mPendingCommands.get(i);
+                WebviewUtils.appendCall(script, command.mMethodName, command.mParams);
+            }
+            mPendingCommands.clear();
+            mFlushScheduled = false;
+        }
+
+        if (script.length() > 0) {
+            mWebView.evaluateJavascript(script.toString(), null);
+        }
+    }
+
+    /**
+     * A queued Javascript function call.
+     */
+    private static class Command {
+
+        private final String mMethodName;
+
+        private final String mGroup;
+
+        private Object[] mParams;
+
+        Command(final String methodName, final String group, final Object[] params) {
+            mMethodName = methodName;
+            mGroup = group;
+            mParams = params;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.utils;
+
+import android.os.SystemClock;
+
+/**
+ * Interpolate playback position between two sparse position updates from last known position, playback rate &
+ * reception time.
+ *
+ * @author Bertrand Martel
+ */
+public class ProgressInterpolator {
+
+    /**
+     * last known position in milliseconds.
+     */
+    private long mPosition;
+
+    /**
+     * last known playback rate.
+     */
+    private float mPlaybackRate = 1;
+
+    /**
+     * define if position is advancing.
+     */
+    private boolean mPlaying;
+
+    /**
+     * time at which last position has been received (SystemClock.elapsedRealtime() in milliseconds).
+     */
+    private long mTimestamp;
+
+    /**
+     * media duration in milliseconds (0 if unknown).
+     */
+    private long mDuration;
+
+    /**
+     * Update position, playback rate & playing state.
+     *
+     * @param position     position in milliseconds
+     * @param playbackRate playback rate
+     * @param playing      true if position is advancing
+     */
+    public synchronized void update(final long position, final float playbackRate, final boolean playing) {
+        mPosition = position;
+        mPlaybackRate = playbackRate;
+        mPlaying = playing;
+        mTimestamp = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Update position keeping last playback rate & playing state.
+     *
+     * @param position position in milliseconds
+     */
+    public synchronized void setPosition(final long position) {
+        mPosition = position;
+        mTimestamp = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Set media duration used to bound interpolated position.
+     *
+     * @param duration duration in milliseconds (0 if unknown)
+     */
+    public synchronized void setDuration(final long duration) {
+        mDuration = duration;
+    }
+
+    /**
+     * Get interpolated position.
+     *
+     * @return position in milliseconds
+     */
+    public synchronized long getPosition() {
+        long position = mPosition;
+        if (mPlaying) {
+            position += (long) ((SystemClock.elapsedRealtime() - mTimestamp) * mPlaybackRate);
+        }
+        if (mDuration > 0 && position > mDuration) {
+            position = mDuration;
+        }
+        return position;
+    }
+
+    /**
+     * Reset to initial state.
+     */
+    public synchronized void reset() {
+        mPosition = 0;
+        mPlaybackRate = 1;
+        mPlaying = false;
+        mTimestamp = 0;
+        mDuration = 0;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.utils;
+
+import android.os.Process;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.bmartel.youtubetv.YoutubeTvConst;
+
+/**
+ * Executor for library background work (thumbnail probing, artwork decoding, media session updates). Tasks are
+ * submitted with a key : submitting a task cancels the task still pending or running for the same key.
+ *
+ * @author Bertrand Martel
+ */
+public class TaskExecutor {
+
+    /**
+     * executor shared by all players unless another executor is set.
+     */
+    private static ExecutorService mDefaultExecutor;
+
+    /**
+     * executor running the tasks.
+     */
+    private ExecutorService mExecutor;
+
+    /**
+     * last task submitted for each key.
+     */
+    private final Map<String, Future<?>> mTasks = new HashMap<>();
+
+    /**
+     * Build task executor.
+     *
+     * @param executor executor running the tasks
+     */
+    public TaskExecutor(final ExecutorService executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Get the executor shared by all players : a small pool with a bounded queue. When the queue is full, the
+     * oldest pending task is cancelled.
+     *
+     * @return
+     */
+    public static synchronized ExecutorService getDefaultExecutor() {
+        if (mDefaultExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(YoutubeTvConst.BACKGROUND_POOL_SIZE,
+                    YoutubeTvConst.BACKGROUND_POOL_SIZE,
+                    YoutubeTvConst.BACKGROUND_KEEP_ALIVE,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(YoutubeTvConst.BACKGROUND_QUEUE_SIZE),
+                    new BackgroundThreadFactory(),
+                    new DiscardOldestTaskPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            mDefaultExecutor = executor;
+        }
+        return mDefaultExecutor;
+    }
+
+    /**
+     * Set the executor running the tasks (eg a synchronous executor for tests).
+     *
+     * @param executor executor service
+     */
+    public synchronized void setExecutor(final ExecutorService executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Submit a task, cancelling the task previously submitted with the same key. A cancelled task which is already
+     * running is interrupted & should check {@link Thread#isInterrupted()} before publishing its result.
+     *
+     * @param key  task key
+     * @param task task to run
+     * @return task future
+     */
+    public synchronized Future<?> submit(final String key, final Runnable task) {
+        return submit(key, task, null);
+    }
+
+    /**
+     * Submit a task, cancelling the task previously submitted with the same key. The completion callback is called
+     * once the task has completed, failed or has been cancelled (including when it is discarded before running).
+     *
+     * @param key        task key
+     * @param task       task to run
+     * @param completion callback called from the thread completing or cancelling the task (may be null)
+     * @return task future
+     */
+    public synchronized Future<?> submit(final String key, final Runnable task, final Runnable completion) {
+
+        Future<?> previous = mTasks.remove(key);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+
+        final FutureTask<Void> future = new FutureTask<Void>(task, null) {
+            @Override
+            protected void done() {
+                synchronized (TaskExecutor.this) {
+                    if (mTasks.get(key) == this) {
+                        mTasks.remove(key);
+                    }
+                }
+                if (completion != null) {
+                    completion.run();
+                }
+            }
+        };
+        mTasks.put(key, future);
+        mExecutor.execute(future);
+        return future;
+    }
+
+    /**
+     * Cancel the task submitted with this key.
+     *
+     * @param key task key
+     */
+    public synchronized void cancel(final String key) {
+        Future<?> future = mTasks.remove(key);
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Cancel all submitted tasks.
+     */
+    public synchronized void cancelAll() {
+        for (Future<?> future : mTasks.values()) {
+            future.cancel(true);
+        }
+        mTasks.clear();
+    }
+
+    /**
+     * Thread factory for low priority library threads.
+     */
+    private static class BackgroundThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "youtubetv-" + mCount.getAndIncrement());
+        }
+    }
+
+    /**
+     * Rejection policy cancelling the oldest pending task to make room for the new one.
+     */
+    private static class DiscardOldestTaskPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            Runnable oldest = executor.getQueue().poll();
+            if (oldest instanceof Future) {
+                ((Future<?>) oldest).cancel(false);
+            }
+            executor.execute(runnable);
+        }
+    }
+}
@@ -24,9 +24,6 @@
 
 package fr.bmartel.youtubetv.utils;
 
-import android.media.MediaMetadata;
-import android.media.session.MediaSession;
-import android.media.session.PlaybackState;
 import android.util.Log;
 import android.webkit.WebView;
 
@@ -40,6 +37,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import fr.bmartel.youtubetv.YoutubeTvConst;
+import fr.bmartel.youtubetv.cache.ThumbnailCache;
 import fr.bmartel.youtubetv.model.VideoQuality;
 
 /**
@@ -52,35 +50,88 @@ public class WebviewUtils {
     private final static String TAG = WebviewUtils.class.getSimpleName();
 
     /**
-     * Call javascript functions in webview.
+     * Call javascript functions in webview (must be called from Webview thread).
      *
      * @param webView    webview object
      * @param methodName function name
      * @param params     function parameters
      */
     public static void callJavaScript(final WebView webView, String methodName, Object... params) {
-
         StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("javascript:try{");
-        stringBuilder.append(methodName);
-        stringBuilder.append("(");
+        appendCall(stringBuilder, methodName, params);
+        webView.evaluateJavascript(stringBuilder.toString(), null);
+    }
+
+    /**
+     * Append a javascript function call wrapped in a try/catch block to a script. String parameters are escaped as
+     * JSON string literals which are also valid in Javascript & in a script element (see {@link #appendString}).
+     *
+     * @param script     script being built
+     * @param methodName function name
+     * @param params     function parameters
+     */
+    public static void appendCall(final StringBuilder script, final String methodName, final Object... params) {
+        script.append("try{");
+        script.append(methodName);
+        script.append("(");
         String separator = "";
         for (Object param : params) {
-            stringBuilder.append(separator);
+            script.append(separator);
             separator = ",";
             if (param instanceof String) {
-                stringBuilder.append("'");
-            }
-            stringBuilder.append(param);
-            if (param instanceof String) {
-                stringBuilder.append("'");
+                appendString(script, (String) param);
+            } else {
+                script.append(param);
             }
 
         }
-        stringBuilder.append(")}catch(error){console.error(error.message);}");
-        final String call = stringBuilder.toString();
+        script.append(")}catch(error){console.error(error.message);}");
+    }
 
-        webView.loadUrl(call);
+    /**
+     * Append a string literal to a script. Besides JSON escapes, line & paragraph separators (U+2028 & U+2029) are
+     * escaped as they end a string literal in Javascript before ES2019, & so are '<' & '>' so that a parameter can't
+     * close a script element.
+     *
+     * @param script script being built
+     * @param value  string value
+     */
+    static void appendString(final StringBuilder script, final String value) {
+        script.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    script.append("\\\"");
+                    break;
+                case '\\':
+                    script.append("\\\\");
+                    break;
+                case '\n':
+                    script.append("\\n");
+                    break;
+                case '\r':
+                    script.append("\\r");
+                    break;
+                case '\t':
+                    script.append("\\t");
+                    break;
+                case '\b':
+                    script.append("\\b");
+                    break;
+                case '\f':
+                    script.append("\\f");
+                    break;
+                default:
+                    if (c < 0x20 || c == '<' || c == '>' || c == '\u2028' || c == '\u2029') {
+                        script.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        script.append(c);
+                    }
+                    break;
+            }
+        }
+        script.append('"');
     }
 
     /**
@@ -95,7 +146,7 @@ public class WebviewUtils {
     }
 
     /**
-     * Get best thumbnail quality from responding thumbnail URL.
+     * Get best thumbnail quality from responding thumbnail URL. Probe results are kept in {@link ThumbnailCache}.
      *
      * @param videoId          youtube video id
      * @param suggestedQuality best quality that should match
@@ -104,15 +155,30 @@ public class WebviewUtils {
      */
     public static String getThumbnailQuality(final String videoId, final String suggestedQuality) throws IOException {
 
+        ThumbnailCache cache = ThumbnailCache.getInstance();
+
         boolean check = false;
         for (int i = 0; i < YoutubeTvConst.THUMBNAIL_QUALITY_LIST.size(); i++) {
 
-            if (suggestedQuality.equals(YoutubeTvConst.THUMBNAIL_QUALITY_LIST.get(i))) {
+            String quality = YoutubeTvConst.THUMBNAIL_QUALITY_LIST.get(i);
+
+            if (suggestedQuality.equals(quality)) {
                 check = true;
             }
 
-            if (check && isUrlExists(getThumbnailURL(videoId, YoutubeTvConst.THUMBNAIL_QUALITY_LIST.get(i)))) {
-                return getThumbnailURL(videoId, YoutubeTvConst.THUMBNAIL_QUALITY_LIST.get(i));
+            if (!check || cache.isMissing(videoId, quality)) {
+                continue;
+            }
+
+            if (cache.isAvailable(videoId, quality)) {
+                return getThumbnailURL(videoId, quality);
+            }
+
+            boolean exists = isUrlExists(getThumbnailURL(videoId, quality));
+            cache.put(videoId, quality, exists);
+
+            if (exists) {
+                return getThumbnailURL(videoId, quality);
             }
         }
 
@@ -120,7 +186,7 @@ public class WebviewUtils {
     }
 
     /**
-     * Check if url exists.
+     * Check if url exists (HEAD request).
      *
      * @param url URL to check
      * @return
@@ -128,29 +194,15 @@ public class WebviewUtils {
      */
     public static boolean isUrlExists(final String url) throws IOException {
         HttpURLConnection huc = (HttpURLConnection) new URL(url).openConnection();
-        huc.setRequestMethod("GET");
+        huc.setRequestMethod("HEAD");
+        huc.setConnectTimeout(YoutubeTvConst.HTTP_TIMEOUT);
+        huc.setReadTimeout(YoutubeTvConst.HTTP_TIMEOUT);
         huc.connect();
         int code = huc.getResponseCode();
         huc.disconnect();
         return (code != 404);
     }
 
-    /**
-     * Call javascript functions in webview thread.
-     *
-     * @param webView    webview object
-     * @param methodName function name
-     * @param params     function parameters
-     */
-    public static void callOnWebviewThread(final WebView webView, final String methodName, final Object... params) {
-        webView.post(new Runnable() {
-            @Override
-            public void run() {
-                WebviewUtils.callJavaScript(webView, methodName, params);
-            }
-        });
-    }
-
     public static List<Integer> parsePlaybackRates(String playbackRates) {
         List<Integer> playBackList = new ArrayList<>();
 
@@ -203,24 +255,4 @@ public class WebviewUtils {
         }
         return playlistRet;
     }
-
-    public static void updateMediaSession(boolean updateMetadata,
-                                          MediaMetadata.Builder mediaBuilder,
-                                          final MediaSession mediaSession,
-                                          final int playbackState,
-                                          final long position,
-                                          final float speed) {
-
-        if (mediaSession.isActive()) {
-
-            if (updateMetadata) {
-                mediaSession.setMetadata(mediaBuilder.build());
-            }
-            PlaybackState.Builder stateBuilder = new PlaybackState.Builder();
-            stateBuilder.setState(playbackState,
-                    position,
-                    speed);
-            mediaSession.setPlaybackState(stateBuilder.build());
-        }
-    }
 }
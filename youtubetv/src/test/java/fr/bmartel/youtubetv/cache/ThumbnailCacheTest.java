@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cache of thumbnail probe results : available/missing qualities, TTL, LRU eviction & bounded disk cache.
+ *
+ * @author Bertrand Martel
+ */
+public class ThumbnailCacheTest {
+
+    private final static long TTL = 60 * 60 * 1000;
+
+    private ThumbnailCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new ThumbnailCache(2, TTL);
+    }
+
+    @Test
+    public void rememberAvailableAndMissingQualities() {
+        mCache.put("video1", "maxresdefault", false);
+        mCache.put("video1", "sddefault", true);
+
+        assertTrue(mCache.isMissing("video1", "maxresdefault"));
+        assertFalse(mCache.isAvailable("video1", "maxresdefault"));
+        assertTrue(mCache.isAvailable("video1", "sddefault"));
+        assertFalse(mCache.isMissing("video1", "sddefault"));
+        assertFalse(mCache.isAvailable("video1", "hqdefault"));
+        assertFalse(mCache.isMissing("video1", "hqdefault"));
+    }
+
+    @Test
+    public void newProbeResultReplacesPreviousOne() {
+        mCache.put("video1", "maxresdefault", false);
+        mCache.put("video1", "maxresdefault", true);
+
+        assertTrue(mCache.isAvailable("video1", "maxresdefault"));
+        assertFalse(mCache.isMissing("video1", "maxresdefault"));
+    }
+
+    @Test
+    public void expiredEntryIsRemoved() {
+        mCache.put("video1", "maxresdefault", true);
+        assertTrue(mCache.isAvailable("video1", "maxresdefault"));
+
+        mCache.setTimeToLive(-1);
+        assertFalse(mCache.isAvailable("video1", "maxresdefault"));
+
+        // entry has been dropped, not only hidden
+        mCache.setTimeToLive(TTL);
+        assertFalse(mCache.isAvailable("video1", "maxresdefault"));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        mCache.put("video1", "maxresdefault", true);
+        mCache.put("video2", "maxresdefault", true);
+
+        // video1 becomes the most recently used
+        assertTrue(mCache.isAvailable("video1", "maxresdefault"));
+
+        mCache.put("video3", "maxresdefault", true);
+
+        assertTrue(mCache.isAvailable("video1", "maxresdefault"));
+        assertFalse(mCache.isAvailable("video2", "maxresdefault"));
+        assertTrue(mCache.isAvailable("video3", "maxresdefault"));
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        mCache.put("video1", "maxresdefault", true);
+        mCache.put("video2", "sddefault", false);
+
+        mCache.clear();
+
+        assertFalse(mCache.isAvailable("video1", "maxresdefault"));
+        assertFalse(mCache.isMissing("video2", "sddefault"));
+    }
+
+    @Test
+    public void diskCacheSurvivesNewInstance() {
+        MemorySharedPreferences preferences = new MemorySharedPreferences();
+        mCache.setDiskCache(preferences);
+        mCache.put("video1", "maxresdefault", false);
+        mCache.put("video1", "sddefault", true);
+        mCache.put("video1", "hqdefault", true);
+
+        ThumbnailCache cache = new ThumbnailCache(2, TTL);
+        cache.setDiskCache(preferences);
+
+        assertTrue(cache.isMissing("video1", "maxresdefault"));
+        assertTrue(cache.isAvailable("video1", "sddefault"));
+        assertTrue(cache.isAvailable("video1", "hqdefault"));
+        assertFalse(cache.isAvailable("video1", "mqdefault"));
+    }
+
+    @Test
+    public void diskCacheIsBoundedToMaxEntries() {
+        MemorySharedPreferences preferences = new MemorySharedPreferences();
+        preferences.edit().putString("video1", (System.currentTimeMillis() - 2000) + ";maxresdefault;").apply();
+        mCache.setDiskCache(preferences);
+
+        mCache.put("video2", "maxresdefault", true);
+        mCache.put("video3", "maxresdefault", true);
+
+        assertEquals(2, preferences.getAll().size());
+        assertFalse(preferences.contains("video1"));
+        assertTrue(preferences.contains("video2"));
+        assertTrue(preferences.contains("video3"));
+    }
+
+    @Test
+    public void enableDiskCachePrunesExpiredInvalidAndOldestEntries() {
+        long now = System.currentTimeMillis();
+        MemorySharedPreferences preferences = new MemorySharedPreferences();
+        preferences.edit()
+                .putString("expired", (now - 2 * TTL) + ";maxresdefault;")
+                .putString("invalid", "not a cache entry")
+                .putString("oldest", (now - 3000) + ";maxresdefault;")
+                .putString("older", (now - 2000) + ";maxresdefault;")
+                .putString("newest", (now - 1000) + ";;maxresdefault")
+                .apply();
+
+        mCache.setDiskCache(preferences);
+
+        assertEquals(2, preferences.getAll().size());
+        assertTrue(mCache.isAvailable("older", "maxresdefault"));
+        assertTrue(mCache.isMissing("newest", "maxresdefault"));
+        assertFalse(mCache.isAvailable("oldest", "maxresdefault"));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.config;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import fr.bmartel.youtubetv.model.VideoQuality;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JSON page configuration read by the player page (assets/youtube.html).
+ *
+ * @author Bertrand Martel
+ */
+public class PlayerConfigTest {
+
+    private final static String PAGE = "src/main/assets/youtube.html";
+
+    /**
+     * Get configuration keys read by the page.
+     *
+     * @return keys used as PlayerConfig.key in the page
+     */
+    private static Set<String> getPageKeys() throws IOException {
+        String page = new String(Files.readAllBytes(new File(PAGE).toPath()), StandardCharsets.UTF_8);
+        Set<String> keys = new TreeSet<>();
+        Matcher matcher = Pattern.compile("PlayerConfig\\.([A-Za-z_]+)").matcher(page);
+        while (matcher.find()) {
+            keys.add(matcher.group(1));
+        }
+        return keys;
+    }
+
+    @Test
+    public void pageConfigContainsEveryKeyReadByPage() throws IOException, JSONException {
+        PlayerConfig config = new PlayerConfig.Builder()
+                .setClosedCaptionLangPref("fr")
+                .setPlayerLanguage("fr")
+                .build();
+        JSONObject pageConfig = new JSONObject(config.toPageConfig("video1", "playlist1", 1, 0, 1280, 720, true));
+
+        Set<String> keys = getPageKeys();
+        assertFalse(keys.isEmpty());
+        for (String key : keys) {
+            assertTrue("missing page config key " + key, pageConfig.has(key));
+        }
+    }
+
+    @Test
+    public void pageConfigOmitsNullValues() throws JSONException {
+        JSONObject pageConfig = new JSONObject(new PlayerConfig.Builder().build()
+                .toPageConfig("video1", null, 0, 0, 1280, 720, true));
+
+        assertFalse(pageConfig.has("playlist_id"));
+        assertFalse(pageConfig.has("cc_lang_pref"));
+        assertFalse(pageConfig.has("hl"));
+    }
+
+    @Test
+    public void pageConfigValues() throws JSONException {
+        PlayerConfig config = new PlayerConfig.Builder()
+                .setVideoQuality(VideoQuality.HD_720)
+                .setVideoAnnotation(false)
+                .setClosedCaptions(true)
+                .setProgressInterval(500)
+                .build();
+        JSONObject pageConfig = new JSONObject(config.toPageConfig("video1", null, 1, 42, 1280, 720, false));
+
+        assertEquals("video1", pageConfig.getString("videoId"));
+        assertEquals(VideoQuality.HD_720.getValue(), pageConfig.getString("videoQuality"));
+        assertEquals(1, pageConfig.getInt("autoplay"));
+        assertEquals(42, pageConfig.getInt("start"));
+        assertEquals(1280, pageConfig.getInt("playerWidth"));
+        assertEquals(720, pageConfig.getInt("playerHeight"));
+        assertEquals(3, pageConfig.getInt("iv_load_policy"));
+        assertEquals(1, pageConfig.getInt("cc_load_policy"));
+        assertEquals(500, pageConfig.getInt("progressInterval"));
+        assertEquals(0, pageConfig.getInt("progressEnabled"));
+    }
+
+    @Test
+    public void pageConfigKeepsStringsIntact() throws JSONException {
+        String videoId = "a\"b'c\\d&e=f</script>\n\u2028";
+        JSONObject pageConfig = new JSONObject(new PlayerConfig.Builder().build()
+                .toPageConfig(videoId, "list&index=2", 0, 0, 1280, 720, true));
+
+        assertEquals(videoId, pageConfig.getString("videoId"));
+        assertEquals("list&index=2", pageConfig.getString("playlist_id"));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Position extrapolated from a player state snapshot.
+ *
+ * @author Bertrand Martel
+ */
+public class PlayerStateSnapshotTest {
+
+    private static PlayerStateSnapshot snapshot(final VideoState state, final float currentTime, final float rate) {
+        return new PlayerStateSnapshot(state, currentTime, 120, 100, false, rate, VideoQuality.HD_720, 0.5f, -1,
+                "video1", "title", 10000);
+    }
+
+    @Test
+    public void positionAdvancesWhilePlaying() {
+        PlayerStateSnapshot snapshot = snapshot(VideoState.PLAYING, 30, 1);
+
+        assertEquals(30, snapshot.getCurrentTime(10000), 0.001f);
+        assertEquals(31.5f, snapshot.getCurrentTime(11500), 0.001f);
+    }
+
+    @Test
+    public void positionAdvancesAtPlaybackRate() {
+        PlayerStateSnapshot snapshot = snapshot(VideoState.PLAYING, 30, 2);
+
+        assertEquals(34, snapshot.getCurrentTime(12000), 0.001f);
+    }
+
+    @Test
+    public void positionIsFrozenWhenNotPlaying() {
+        assertEquals(30, snapshot(VideoState.PAUSED, 30, 1).getCurrentTime(15000), 0);
+        assertEquals(30, snapshot(VideoState.BUFFERING, 30, 1).getCurrentTime(15000), 0);
+    }
+
+    @Test
+    public void positionStopsAtDuration() {
+        assertEquals(120, snapshot(VideoState.PLAYING, 119, 1).getCurrentTime(20000), 0);
+    }
+
+    @Test
+    public void positionNeverGoesBackward() {
+        assertEquals(30, snapshot(VideoState.PLAYING, 30, 1).getCurrentTime(9000), 0);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Quality bitmask sent by the page & ordering of qualities by resolution.
+ *
+ * @author Bertrand Martel
+ */
+public class VideoQualityTest {
+
+    @Test
+    public void maskKeepsPlayerOrder() {
+        // order of player.getAvailableQualityLevels()
+        int mask = VideoQuality.toMask(Arrays.asList(VideoQuality.HIGH_RES, VideoQuality.HD_1440,
+                VideoQuality.HD_1080, VideoQuality.HD_720, VideoQuality.MEDIUM, VideoQuality.AUTO));
+
+        assertEquals(Arrays.asList(VideoQuality.HIGH_RES, VideoQuality.HD_1440, VideoQuality.HD_1080,
+                VideoQuality.HD_720, VideoQuality.MEDIUM, VideoQuality.AUTO), VideoQuality.fromMask(mask));
+    }
+
+    @Test
+    public void everyQualityRoundTrips() {
+        for (VideoQuality quality : VideoQuality.values()) {
+            assertEquals(Collections.singletonList(quality), VideoQuality.fromMask(quality.getMask()));
+        }
+        assertTrue(VideoQuality.fromMask(0).isEmpty());
+    }
+
+    @Test
+    public void highResIsAboveHd2160() {
+        assertTrue(VideoQuality.HIGH_RES.getResolutionRank() > VideoQuality.HD_2160.getResolutionRank());
+        assertTrue(VideoQuality.HD_1440.getResolutionRank() > VideoQuality.HD_1080.getResolutionRank());
+        assertTrue(VideoQuality.TINY.getResolutionRank() > VideoQuality.AUTO.getResolutionRank());
+    }
+}
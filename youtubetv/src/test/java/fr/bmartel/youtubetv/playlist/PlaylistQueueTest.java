@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.playlist;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import fr.bmartel.youtubetv.listener.IPlaylistQueueListener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Play order, shuffle, loop & edits of the Java side playlist queue.
+ *
+ * @author Bertrand Martel
+ */
+public class PlaylistQueueTest {
+
+    private final static List<String> PLAYLIST = Arrays.asList("video0", "video1", "video2", "video3", "video4");
+
+    private PlaylistQueue mQueue;
+
+    private final List<String> mEvents = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mQueue = new PlaylistQueue(new Random(42));
+        mQueue.applyPlayerDiff(0, 0, 0, PLAYLIST);
+        mQueue.addListener(new IPlaylistQueueListener() {
+            @Override
+            public void onItemsInserted(int index, int count) {
+                mEvents.add("inserted " + index + " " + count);
+            }
+
+            @Override
+            public void onItemsRemoved(int index, int count) {
+                mEvents.add("removed " + index + " " + count);
+            }
+
+            @Override
+            public void onItemMoved(int fromIndex, int toIndex) {
+                mEvents.add("moved " + fromIndex + " " + toIndex);
+            }
+
+            @Override
+            public void onOrderChanged() {
+                mEvents.add("order");
+            }
+
+            @Override
+            public void onCurrentChanged(int index) {
+                mEvents.add("current " + index);
+            }
+        });
+    }
+
+    @Test
+    public void playerDiffMirrorsPlaylist() {
+        assertEquals(PLAYLIST, mQueue.getItems());
+        assertEquals(0, mQueue.getCurrentIndex());
+        assertFalse(mQueue.isDetached());
+
+        // player replaced video2 & moved to it
+        mQueue.applyPlayerDiff(2, 2, 1, Collections.singletonList("videoX"));
+
+        assertEquals(Arrays.asList("video0", "video1", "videoX", "video3", "video4"), mQueue.getItems());
+        assertEquals("videoX", mQueue.getCurrent());
+        assertEquals(Arrays.asList("removed 2 1", "inserted 2 1", "current 2"), mEvents);
+    }
+
+    @Test
+    public void playOrderFollowsPlaylistWithoutShuffle() {
+        assertEquals(1, mQueue.getNextIndex());
+        assertEquals(-1, mQueue.getPreviousIndex());
+        assertEquals(Arrays.asList(1, 2, 3), mQueue.getUpcoming(3));
+
+        mQueue.setCurrentIndex(4);
+        assertEquals(-1, mQueue.getNextIndex());
+        assertEquals(-1, mQueue.moveToNext());
+        assertEquals(4, mQueue.getCurrentIndex());
+    }
+
+    @Test
+    public void loopWrapsAround() {
+        mQueue.setLoop(true);
+        mQueue.setCurrentIndex(4);
+
+        assertEquals(0, mQueue.getNextIndex());
+        assertEquals(Arrays.asList(0, 1, 2, 3), mQueue.getUpcoming(10));
+
+        mQueue.setCurrentIndex(0);
+        assertEquals(4, mQueue.getPreviousIndex());
+    }
+
+    @Test
+    public void shuffleKeepsCurrentItemFirstAndPlaysEachItemOnce() {
+        mQueue.setCurrentIndex(2);
+        mQueue.setShuffle(true);
+
+        assertTrue(mEvents.contains("order"));
+        assertEquals(-1, mQueue.getPreviousIndex());
+
+        List<Integer> played = new ArrayList<>();
+        played.add(mQueue.getCurrentIndex());
+        List<Integer> upcoming = mQueue.getUpcoming(10);
+
+        int index;
+        while ((index = mQueue.moveToNext()) != -1) {
+            played.add(index);
+        }
+        assertEquals(upcoming, played.subList(1, played.size()));
+        assertEquals(PLAYLIST.size(), played.size());
+        assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 3, 4)), new HashSet<>(played));
+        assertEquals(2, (int) played.get(0));
+
+        // previous walks the same order backwards
+        for (int i = played.size() - 2; i >= 0; i--) {
+            assertEquals((int) played.get(i), mQueue.moveToPrevious());
+        }
+    }
+
+    @Test
+    public void disablingShuffleRestoresPlaylistOrder() {
+        mQueue.setCurrentIndex(2);
+        mQueue.setShuffle(true);
+        mQueue.setShuffle(false);
+
+        assertEquals(3, mQueue.getNextIndex());
+        assertEquals(1, mQueue.getPreviousIndex());
+    }
+
+    @Test
+    public void insertedItemsArePlayedOnceInShuffleOrder() {
+        mQueue.setShuffle(true);
+        mQueue.insert(1, Arrays.asList("new0", "new1"));
+
+        assertTrue(mQueue.isDetached());
+        assertEquals("video0", mQueue.getCurrent());
+
+        Set<String> played = new HashSet<>();
+        played.add(mQueue.getCurrent());
+        int index;
+        while ((index = mQueue.moveToNext()) != -1) {
+            assertTrue(played.add(mQueue.get(index)));
+        }
+        assertEquals(PLAYLIST.size() + 2, played.size());
+    }
+
+    @Test
+    public void removingCurrentItemSelectsTheOneTakingItsIndex() {
+        mQueue.setCurrentIndex(2);
+        mEvents.clear();
+
+        mQueue.remove(2);
+
+        assertEquals("video3", mQueue.getCurrent());
+        assertEquals(Arrays.asList("removed 2 1", "current 2"), mEvents);
+
+        mQueue.setCurrentIndex(3);
+        mQueue.remove(3);
+        assertEquals("video3", mQueue.getCurrent());
+    }
+
+    @Test
+    public void moveKeepsCurrentItem() {
+        mQueue.setCurrentIndex(1);
+
+        mQueue.move(1, 3);
+
+        assertEquals(Arrays.asList("video0", "video2", "video3", "video1", "video4"), mQueue.getItems());
+        assertEquals(3, mQueue.getCurrentIndex());
+        assertEquals(4, mQueue.getNextIndex());
+
+        mQueue.move(4, 0);
+        assertEquals(4, mQueue.getCurrentIndex());
+        assertEquals("video1", mQueue.getCurrent());
+    }
+
+    @Test
+    public void detachedQueueIgnoresPlayerDiff() {
+        mQueue.add("video5");
+        mQueue.applyPlayerDiff(1, 0, 5, Collections.<String>emptyList());
+
+        assertEquals(6, mQueue.getSize());
+        assertEquals(0, mQueue.getCurrentIndex());
+
+        // clear matches the player playlist again
+        mQueue.clear();
+        assertFalse(mQueue.isDetached());
+        assertTrue(mQueue.isEmpty());
+        assertEquals(-1, mQueue.getCurrentIndex());
+        mQueue.applyPlayerDiff(0, 0, 0, PLAYLIST);
+        assertEquals(PLAYLIST, mQueue.getItems());
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.quality;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.bmartel.youtubetv.IYoutubeApi;
+import fr.bmartel.youtubetv.listener.IQualityListener;
+import fr.bmartel.youtubetv.model.VideoInfo;
+import fr.bmartel.youtubetv.model.VideoQuality;
+import fr.bmartel.youtubetv.model.VideoState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replay of buffering traces through {@link QualityGovernor#onPlayerStateChange} & {@link QualityGovernor#onSample}
+ * with a fake clock.
+ *
+ * @author Bertrand Martel
+ */
+public class QualityGovernorTest {
+
+    /**
+     * video duration in seconds.
+     */
+    private final static float DURATION = 600;
+
+    private final VideoInfo mVideoInfo = new VideoInfo("video1", "author", "title",
+            Arrays.asList(VideoQuality.MEDIUM, VideoQuality.LARGE, VideoQuality.HD_720, VideoQuality.HD_1080));
+
+    /**
+     * fake clock time in milliseconds.
+     */
+    private long mTime;
+
+    /**
+     * qualities requested to the player.
+     */
+    private final List<VideoQuality> mRequested = new ArrayList<>();
+
+    private final List<QualityDecision> mDecisions = new ArrayList<>();
+
+    private QualityGovernor mGovernor;
+
+    @Before
+    public void setUp() {
+        IYoutubeApi player = (IYoutubeApi) Proxy.newProxyInstance(IYoutubeApi.class.getClassLoader(),
+                new Class<?>[]{IYoutubeApi.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("setPlaybackQuality")) {
+                            mRequested.add((VideoQuality) args[0]);
+                        }
+                        return null;
+                    }
+                });
+        mGovernor = new QualityGovernor(player, new QualityGovernor.Clock() {
+            @Override
+            public long now() {
+                return mTime;
+            }
+        });
+        mGovernor.addListener(new IQualityListener() {
+            @Override
+            public void onQualityDecision(QualityDecision decision) {
+                mDecisions.add(decision);
+            }
+        });
+        mGovernor.onPlayerReady(mVideoInfo);
+        mGovernor.onPlaybackQuality(VideoQuality.HD_720);
+    }
+
+    private void state(final long time, final VideoState state, final float position) {
+        mTime = time;
+        mGovernor.onPlayerStateChange(state, (long) (position * 1000), 1, DURATION, mVideoInfo);
+    }
+
+    private void sample(final long time, final float position, final float loaded) {
+        mTime = time;
+        mGovernor.onSample(position, loaded / DURATION, DURATION);
+    }
+
+    private void assertDecision(final int index, final VideoQuality to, final QualityDecision.Reason reason) {
+        assertEquals(index + 1, mDecisions.size());
+        QualityDecision decision = mDecisions.get(index);
+        assertEquals(to, decision.getTo());
+        assertEquals(reason, decision.getReason());
+        assertEquals(to, mRequested.get(index));
+        assertEquals(to, mGovernor.getQuality());
+    }
+
+    @Test
+    public void initialBufferingIsNotRebuffering() {
+        state(0, VideoState.BUFFERING, 0);
+        sample(6000, 0, 10);
+        state(6000, VideoState.PLAYING, 0);
+
+        assertTrue(mDecisions.isEmpty());
+    }
+
+    @Test
+    public void stepDownOnRebufferCount() {
+        state(0, VideoState.PLAYING, 0);
+        state(10000, VideoState.BUFFERING, 10);
+        state(10500, VideoState.PLAYING, 10);
+        assertTrue(mDecisions.isEmpty());
+
+        // second rebuffering in the window
+        state(20000, VideoState.BUFFERING, 19.5f);
+
+        assertDecision(0, VideoQuality.LARGE, QualityDecision.Reason.REBUFFERING);
+        assertEquals(2, mDecisions.get(0).getRebufferCount());
+        assertTrue(mDecisions.get(0).isDowngrade());
+    }
+
+    @Test
+    public void rebufferingOutOfWindowIsForgotten() {
+        state(0, VideoState.PLAYING, 0);
+        state(10000, VideoState.BUFFERING, 10);
+        state(10500, VideoState.PLAYING, 10);
+
+        state(45000, VideoState.BUFFERING, 44.5f);
+
+        assertTrue(mDecisions.isEmpty());
+    }
+
+    @Test
+    public void stepDownOnBufferingTime() {
+        state(0, VideoState.PLAYING, 0);
+        state(10000, VideoState.BUFFERING, 10);
+        sample(13000, 10, 12);
+        assertTrue(mDecisions.isEmpty());
+
+        sample(14000, 10, 12);
+
+        assertDecision(0, VideoQuality.LARGE, QualityDecision.Reason.REBUFFERING);
+        assertEquals(4000, mDecisions.get(0).getBufferingTime());
+    }
+
+    @Test
+    public void stepDownOnStall() {
+        state(0, VideoState.PLAYING, 10);
+        sample(1000, 11, 30);
+        sample(2000, 11, 30);
+        sample(3000, 11.05f, 30);
+        assertTrue(mDecisions.isEmpty());
+
+        // no progress for STALL_TIME since 1000
+        sample(3500, 11.05f, 30);
+
+        assertDecision(0, VideoQuality.LARGE, QualityDecision.Reason.STALL);
+    }
+
+    @Test
+    public void stepUpAfterStablePeriodWithBufferGrowth() {
+        state(0, VideoState.PLAYING, 0);
+
+        // 2 seconds buffered per second
+        long time = 0;
+        for (; time < 30000; time += 2000) {
+            sample(time, time / 1000f, 10 + time / 500f);
+        }
+        assertTrue(mDecisions.isEmpty());
+
+        sample(time, time / 1000f, 10 + time / 500f);
+
+        assertDecision(0, VideoQuality.HD_1080, QualityDecision.Reason.STABLE);
+        assertTrue(mDecisions.get(0).getBufferGrowth() >= 1.5f);
+    }
+
+    @Test
+    public void noStepUpWithoutBufferGrowth() {
+        state(0, VideoState.PLAYING, 0);
+
+        // buffer only grows as fast as playback
+        for (long time = 0; time <= 90000; time += 2000) {
+            sample(time, time / 1000f, 10 + time / 1000f);
+        }
+
+        assertTrue(mDecisions.isEmpty());
+    }
+
+    @Test
+    public void noStepUpAboveMaxQuality() {
+        mGovernor.setMaxQuality(VideoQuality.HD_720);
+        state(0, VideoState.PLAYING, 0);
+
+        for (long time = 0; time <= 60000; time += 2000) {
+            sample(time, time / 1000f, 10 + time / 500f);
+        }
+
+        assertTrue(mDecisions.isEmpty());
+    }
+
+    @Test
+    public void cooldownBetweenSwitches() {
+        state(0, VideoState.PLAYING, 0);
+        state(10000, VideoState.BUFFERING, 10);
+        state(10500, VideoState.PLAYING, 10);
+        state(12000, VideoState.BUFFERING, 11.5f);
+        assertDecision(0, VideoQuality.LARGE, QualityDecision.Reason.REBUFFERING);
+
+        // two more rebufferings within the cooldown
+        state(13000, VideoState.PLAYING, 11.5f);
+        state(15000, VideoState.BUFFERING, 13.5f);
+        state(16000, VideoState.PLAYING, 13.5f);
+        state(18000, VideoState.BUFFERING, 15.5f);
+        assertEquals(1, mDecisions.size());
+
+        // cooldown elapsed
+        state(18000 + 4000, VideoState.PLAYING, 15.5f);
+
+        assertDecision(1, VideoQuality.MEDIUM, QualityDecision.Reason.REBUFFERING);
+    }
+
+    @Test
+    public void stepUpWaitsStablePeriodAfterSwitch() {
+        state(0, VideoState.PLAYING, 0);
+        state(10000, VideoState.BUFFERING, 10);
+        state(10500, VideoState.PLAYING, 10);
+        state(12000, VideoState.BUFFERING, 11.5f);
+        state(12500, VideoState.PLAYING, 11.5f);
+        assertDecision(0, VideoQuality.LARGE, QualityDecision.Reason.REBUFFERING);
+
+        // buffer grows fast right after the switch, quality is raised only UP_STABLE_TIME after last rebuffering
+        for (long time = 14000; time <= 42000; time += 2000) {
+            sample(time, time / 1000f, 20 + time / 500f);
+        }
+        sample(42500, 42.5f, 20 + 42500 / 500f);
+        assertEquals(1, mDecisions.size());
+
+        sample(43000, 43, 20 + 43000 / 500f);
+
+        assertDecision(1, VideoQuality.HD_720, QualityDecision.Reason.STABLE);
+    }
+
+    @Test
+    public void newVideoResetsStatistics() {
+        state(0, VideoState.PLAYING, 0);
+        state(10000, VideoState.BUFFERING, 10);
+        state(10500, VideoState.PLAYING, 10);
+
+        VideoInfo nextVideo = new VideoInfo("video2", "author", "title", mVideoInfo.getAvailableQualityList());
+        mTime = 15000;
+        mGovernor.onPlayerStateChange(VideoState.BUFFERING, 0, 1, DURATION, nextVideo);
+        mTime = 16000;
+        mGovernor.onPlayerStateChange(VideoState.PLAYING, 0, 1, DURATION, nextVideo);
+        mTime = 20000;
+        mGovernor.onPlayerStateChange(VideoState.BUFFERING, 4000, 1, DURATION, nextVideo);
+
+        assertTrue(mDecisions.isEmpty());
+    }
+}
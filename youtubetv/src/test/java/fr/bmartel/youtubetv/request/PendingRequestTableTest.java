@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.request;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Correlation of Javascript responses with pending queries.
+ *
+ * @author Bertrand Martel
+ */
+public class PendingRequestTableTest {
+
+    private final static int TIMEOUT = 1000;
+
+    private PendingRequestTable mTable;
+
+    @Before
+    public void setUp() {
+        mTable = new PendingRequestTable();
+    }
+
+    @Test
+    public void responseCompletesMatchingQuery() throws InterruptedException, ExecutionException {
+        QueryFuture<Integer> first = mTable.register("getVolume", null, TIMEOUT);
+        QueryFuture<Integer> second = mTable.register("getVolume", null, TIMEOUT);
+
+        assertTrue(mTable.complete(second.getRequestId(), 20));
+        assertTrue(mTable.complete(first.getRequestId(), 10));
+
+        assertEquals(Integer.valueOf(10), first.get());
+        assertEquals(Integer.valueOf(20), second.get());
+        assertEquals(2, mTable.getMetrics().snapshot().getMethod("getVolume").getCount());
+    }
+
+    @Test
+    public void responseIsMatchedOnce() {
+        QueryFuture<Integer> future = mTable.register("getVolume", null, TIMEOUT);
+
+        assertTrue(mTable.complete(future.getRequestId(), 10));
+        assertFalse(mTable.complete(future.getRequestId(), 20));
+    }
+
+    @Test
+    public void cancelledQueryIsUnregistered() {
+        QueryFuture<Integer> future = mTable.register("getVolume", null, TIMEOUT);
+
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        assertTrue(future.isDone());
+
+        // late response is dropped
+        assertFalse(mTable.complete(future.getRequestId(), 10));
+        assertEquals(1, mTable.getMetrics().snapshot().getUnknownReplyCount());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void cancelledQueryHasNoResult() throws InterruptedException, ExecutionException {
+        QueryFuture<Integer> future = mTable.register("getVolume", null, TIMEOUT);
+        future.cancel(false);
+        future.get();
+    }
+
+    @Test
+    public void completedQueryCantBeCancelled() {
+        QueryFuture<Integer> future = mTable.register("getVolume", null, TIMEOUT);
+        mTable.complete(future.getRequestId(), 10);
+
+        assertFalse(future.cancel(false));
+        assertFalse(future.isCancelled());
+    }
+
+    @Test
+    public void discardedQueryTimesOut() {
+        QueryFuture<Integer> future = mTable.register("getVolume", null, TIMEOUT);
+
+        mTable.discard(future.getRequestId());
+
+        assertTrue(future.isTimedOut());
+        assertFalse(mTable.complete(future.getRequestId(), 10));
+        assertEquals(1, mTable.getMetrics().snapshot().getMethod("getVolume").getTimeoutCount());
+        assertEquals(1, mTable.getMetrics().snapshot().getMethod("getVolume").getLateReplyCount());
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Bertrand Martel
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package fr.bmartel.youtubetv.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import fr.bmartel.youtubetv.cache.ThumbnailCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Thumbnail HEAD probe against a stub HTTP server, thumbnail quality resolution from cached probe results &
+ * serialization of Javascript calls.
+ *
+ * @author Bertrand Martel
+ */
+public class WebviewUtilsTest {
+
+    private HttpServer mServer;
+
+    /**
+     * "METHOD path" of the requests received by the stub server.
+     */
+    private final List<String> mRequests = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                mRequests.add(exchange.getRequestMethod() + " " + path);
+                int code = path.endsWith("/maxresdefault.jpg") ? 404 : 200;
+                exchange.sendResponseHeaders(code, -1);
+                exchange.close();
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+    }
+
+    private String getUrl(final String path) {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + path;
+    }
+
+    @Test
+    public void probeUsesHeadRequest() throws IOException {
+        assertTrue(WebviewUtils.isUrlExists(getUrl("/vi/video1/sddefault.jpg")));
+        assertEquals(Collections.singletonList("HEAD /vi/video1/sddefault.jpg"), mRequests);
+    }
+
+    @Test
+    public void probeReportsMissingThumbnail() throws IOException {
+        assertFalse(WebviewUtils.isUrlExists(getUrl("/vi/video1/maxresdefault.jpg")));
+        assertTrue(WebviewUtils.isUrlExists(getUrl("/vi/video1/hqdefault.jpg")));
+    }
+
+    @Test
+    public void qualityResolvedFromCacheSkipsMissingQualities() throws IOException {
+        ThumbnailCache cache = ThumbnailCache.getInstance();
+        cache.put("cached-video", "maxresdefault", false);
+        cache.put("cached-video", "sddefault", true);
+
+        assertEquals(WebviewUtils.getThumbnailURL("cached-video", "sddefault"),
+                WebviewUtils.getThumbnailQuality("cached-video", "maxresdefault"));
+    }
+
+    @Test
+    public void qualityResolvedFromCacheStartsAtSuggestedQuality() throws IOException {
+        ThumbnailCache cache = ThumbnailCache.getInstance();
+        cache.put("suggested-video", "maxresdefault", true);
+        cache.put("suggested-video", "hqdefault", true);
+
+        assertEquals(WebviewUtils.getThumbnailURL("suggested-video", "hqdefault"),
+                WebviewUtils.getThumbnailQuality("suggested-video", "hqdefault"));
+    }
+
+    /**
+     * Get the script emitted for a call.
+     *
+     * @param methodName function name
+     * @param params     function parameters
+     * @return script
+     */
+    private static String call(final String methodName, final Object... params) {
+        StringBuilder script = new StringBuilder();
+        WebviewUtils.appendCall(script, methodName, params);
+        return script.toString();
+    }
+
+    @Test
+    public void callWithoutParameters() {
+        assertEquals("try{playVideo()}catch(error){console.error(error.message);}", call("playVideo"));
+    }
+
+    @Test
+    public void callParametersKeepTheirType() {
+        assertEquals("try{seekTo(42,true,1.5,\"video1\")}catch(error){console.error(error.message);}",
+                call("seekTo", 42, true, 1.5f, "video1"));
+    }
+
+    /**
+     * Get the script emitted for a string parameter.
+     *
+     * @param value string parameter
+     * @return string literal
+     */
+    private static String quote(final String value) {
+        StringBuilder script = new StringBuilder();
+        WebviewUtils.appendString(script, value);
+        return script.toString();
+    }
+
+    @Test
+    public void callStringParametersAreQuoted() {
+        assertEquals("\"video1\"", quote("video1"));
+        assertEquals("\"a\\\"b\"", quote("a\"b"));
+        assertEquals("\"a'b\"", quote("a'b"));
+        assertEquals("\"');alert(1);//\"", quote("');alert(1);//"));
+        assertEquals("\"back\\\\slash\"", quote("back\\slash"));
+        assertEquals("\"line\\nbreak\\r\\t\"", quote("line\nbreak\r\t"));
+        assertEquals("\"\\u0000\\u001f\"", quote("\u0000\u001f"));
+    }
+
+    @Test
+    public void lineAndParagraphSeparatorsAreEscaped() {
+        assertEquals("\"a\\u2028b\\u2029c\"", quote("a\u2028b\u2029c"));
+
+        assertEquals("try{loadVideoById(\"\\u2028\\u2029\")}catch(error){console.error(error.message);}",
+                call("loadVideoById", "\u2028\u2029"));
+    }
+
+    @Test
+    public void scriptTagCantBeClosedByParameter() {
+        assertEquals("\"\\u003c/script\\u003e\\u003cscript\\u003e\"", quote("</script><script>"));
+    }
+
+    @Test
+    public void callsAreAppendedInOrder() {
+        StringBuilder script = new StringBuilder();
+        WebviewUtils.appendCall(script, "pauseVideo");
+        WebviewUtils.appendCall(script, "seekTo", 10, true);
+
+        assertEquals("try{pauseVideo()}catch(error){console.error(error.message);}" +
+                "try{seekTo(10,true)}catch(error){console.error(error.message);}", script.toString());
+    }
+}